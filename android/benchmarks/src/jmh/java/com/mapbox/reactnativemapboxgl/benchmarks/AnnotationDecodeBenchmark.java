@@ -0,0 +1,98 @@
+package com.mapbox.reactnativemapboxgl.benchmarks;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.mapbox.reactnativemapboxgl.AnnotationParser;
+import com.mapbox.reactnativemapboxgl.AnnotationSpec;
+import com.mapbox.reactnativemapboxgl.PolylineCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of the {@code setAnnotations} payload, for each of the coordinate shapes a
+ * polyline may be sent in.
+ *
+ * The payload is held in heap backed arrays and maps, so the numbers leave out the JNI
+ * call the native bridge collections make for every lookup. They are a lower bound for
+ * the per-vertex shapes ({@code pairs} and {@code maps}), which make the most lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnnotationDecodeBenchmark {
+
+    static final int VERTICES = 8;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int features;
+
+    /**
+     * pairs: [[lat, lon], ...], maps: [{latitude, longitude}, ...], flat: [lat, lon, ...],
+     * encoded: an encoded polyline string
+     */
+    @Param({"pairs", "maps", "flat", "encoded"})
+    public String coordinates;
+
+    private ReadableArray annotations;
+    private final AnnotationParser parser = new AnnotationParser();
+
+    @Setup
+    public void setUp() {
+        double[][] lines = Datasets.lines(features, VERTICES);
+        JavaOnlyArray array = new JavaOnlyArray(features);
+        for (int i = 0; i < features; i++) {
+            array.add(new JavaOnlyMap()
+                    .put("type", "polyline")
+                    .put("id", i)
+                    .put("strokeColor", "#3bb2d0")
+                    .put("strokeWidth", 2)
+                    .put("coordinates", coordinates(lines[i])));
+        }
+        annotations = array;
+    }
+
+    private Object coordinates(double[] line) {
+        int count = line.length / 2;
+        switch (coordinates) {
+            case "pairs": {
+                JavaOnlyArray pairs = new JavaOnlyArray(count);
+                for (int p = 0; p < count; p++) {
+                    pairs.add(new JavaOnlyArray(2).add(line[p * 2]).add(line[p * 2 + 1]));
+                }
+                return pairs;
+            }
+            case "maps": {
+                JavaOnlyArray maps = new JavaOnlyArray(count);
+                for (int p = 0; p < count; p++) {
+                    maps.add(new JavaOnlyMap().put("latitude", line[p * 2]).put("longitude", line[p * 2 + 1]));
+                }
+                return maps;
+            }
+            case "flat": {
+                JavaOnlyArray flat = new JavaOnlyArray(line.length);
+                for (double value : line) {
+                    flat.add(value);
+                }
+                return flat;
+            }
+            case "encoded":
+                return PolylineCodec.encode(line);
+            default:
+                throw new IllegalArgumentException("Unknown coordinates " + coordinates);
+        }
+    }
+
+    @Benchmark
+    public List<AnnotationSpec> parse() {
+        return parser.parse(annotations);
+    }
+}
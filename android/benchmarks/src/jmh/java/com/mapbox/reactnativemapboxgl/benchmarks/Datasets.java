@@ -0,0 +1,59 @@
+package com.mapbox.reactnativemapboxgl.benchmarks;
+
+import com.mapbox.reactnativemapboxgl.BoundingBox;
+
+import java.util.Random;
+
+/**
+ * Seeded synthetic data, so every run and every fork measures the same input.
+ */
+final class Datasets {
+
+    static final long SEED = 0x6d6170626f78L;
+
+    /**
+     * Features are spread over a box around San Francisco, roughly a metro area.
+     */
+    static final BoundingBox AREA = new BoundingBox(37.2, -122.8, 38.2, -121.8);
+
+    private Datasets() {
+    }
+
+    /**
+     * @return {@code count} random walks of {@code vertices} points each, packed as
+     *         [lat, lon, ...] and rounded to the 5 digit precision of encoded polylines
+     */
+    static double[][] lines(int count, int vertices) {
+        Random random = new Random(SEED);
+        double[][] lines = new double[count][];
+        for (int i = 0; i < count; i++) {
+            double[] line = new double[vertices * 2];
+            double lat = AREA.getMinLat() + random.nextDouble() * (AREA.getMaxLat() - AREA.getMinLat());
+            double lon = AREA.getMinLon() + random.nextDouble() * (AREA.getMaxLon() - AREA.getMinLon());
+            for (int v = 0; v < vertices; v++) {
+                line[v * 2] = Math.rint(lat * 1e5) / 1e5;
+                line[v * 2 + 1] = Math.rint(lon * 1e5) / 1e5;
+                lat += (random.nextDouble() - 0.5) * 0.002;
+                lon += (random.nextDouble() - 0.5) * 0.002;
+            }
+            lines[i] = line;
+        }
+        return lines;
+    }
+
+    /**
+     * @return {@code count} boxes of up to {@code maxSpan} degrees inside {@link #AREA}
+     */
+    static BoundingBox[] boxes(int count, double maxSpan) {
+        Random random = new Random(SEED);
+        BoundingBox[] boxes = new BoundingBox[count];
+        for (int i = 0; i < count; i++) {
+            double latSpan = random.nextDouble() * maxSpan;
+            double lonSpan = random.nextDouble() * maxSpan;
+            double minLat = AREA.getMinLat() + random.nextDouble() * (AREA.getMaxLat() - AREA.getMinLat() - latSpan);
+            double minLon = AREA.getMinLon() + random.nextDouble() * (AREA.getMaxLon() - AREA.getMinLon() - lonSpan);
+            boxes[i] = new BoundingBox(minLat, minLon, minLat + latSpan, minLon + lonSpan);
+        }
+        return boxes;
+    }
+}
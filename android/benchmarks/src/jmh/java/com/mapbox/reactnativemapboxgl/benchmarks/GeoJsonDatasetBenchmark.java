@@ -0,0 +1,197 @@
+package com.mapbox.reactnativemapboxgl.benchmarks;
+
+import com.mapbox.reactnativemapboxgl.AnnotationSpec;
+import com.mapbox.reactnativemapboxgl.BoundingBox;
+import com.mapbox.reactnativemapboxgl.GeoJsonDataset;
+import com.mapbox.reactnativemapboxgl.GeoJsonReader;
+import com.mapbox.reactnativemapboxgl.PackedRTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a large local GeoJSON file: memory mapping and indexing it as a
+ * {@link GeoJsonDataset}, against streaming every feature into memory the way
+ * {@code addGeoJSONFromFile} does, and the cost of reading the features of one viewport
+ * from an open dataset.
+ *
+ * Each iteration is a single load, timed once. The peak heap use of the iteration,
+ * above what was live before it, is printed after it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class GeoJsonDatasetBenchmark {
+
+    static final int VERTICES = 8;
+
+    /**
+     * A neighbourhood inside {@link Datasets#AREA}, about what a map at zoom 14 shows.
+     */
+    static final BoundingBox VIEWPORT = new BoundingBox(37.70, -122.45, 37.74, -122.40);
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int features;
+
+    private File file;
+    private GeoJsonDataset dataset;
+    private long baselineBytes;
+
+    @Setup(Level.Trial)
+    public void writeDataset() throws IOException {
+        file = File.createTempFile("dataset", ".geojson");
+        file.deleteOnExit();
+        write(file, features);
+        dataset = GeoJsonDataset.open(file.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDataset() throws IOException {
+        dataset.close();
+        file.delete();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        System.gc();
+        baselineBytes = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            baselineBytes += pool.getUsage().getUsed();
+            pool.resetPeakUsage();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakHeap(BenchmarkParams params) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.println(String.format("%s features=%d file=%.1f MB peak heap=+%.1f MB",
+                params.getBenchmark(), features, file.length() / 1048576.0,
+                Math.max(0, peak - baselineBytes) / 1048576.0));
+    }
+
+    /**
+     * Opens and closes the dataset, so no mapping or index outlives an invocation.
+     */
+    @Benchmark
+    public int openDataset() throws IOException {
+        GeoJsonDataset opened = GeoJsonDataset.open(file.getPath());
+        try {
+            return opened.getFeatureCount();
+        } finally {
+            opened.close();
+        }
+    }
+
+    @Benchmark
+    public List<AnnotationSpec> streamAll() throws IOException {
+        final List<AnnotationSpec> all = new ArrayList<>();
+        new GeoJsonReader(GeoJsonReader.fromFile(file.getPath()).open()).read(new GeoJsonReader.Sink() {
+            @Override
+            public void onFeatures(List<AnnotationSpec> batch) {
+                all.addAll(batch);
+            }
+        }, GeoJsonReader.DEFAULT_BATCH_SIZE);
+        return all;
+    }
+
+    @Benchmark
+    public List<AnnotationSpec> readViewport() {
+        PackedRTree.Results results = new PackedRTree.Results();
+        dataset.query(VIEWPORT, results);
+        List<AnnotationSpec> specs = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            specs.add(dataset.read(results.get(i)));
+        }
+        return specs;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Writes points of interest with a few properties, every tenth feature a short line.
+     */
+    static void write(File file, int count) throws IOException {
+        Random random = new Random(Datasets.SEED);
+        double[][] lines = Datasets.lines(count / 10 + 1, VERTICES);
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8")));
+        try {
+            out.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    out.write(",\n");
+                }
+                out.write("{\"type\":\"Feature\",\"id\":");
+                out.write(Integer.toString(i));
+                out.write(",\"properties\":{\"title\":\"Place ");
+                out.write(Integer.toString(i));
+                out.write("\",\"category\":\"");
+                out.write(Integer.toString(random.nextInt(40)));
+                out.write("\",\"rating\":");
+                out.write(Double.toString(Math.rint(random.nextDouble() * 50) / 10));
+                out.write("},\"geometry\":");
+                if (i % 10 == 0) {
+                    double[] line = lines[i / 10];
+                    out.write("{\"type\":\"LineString\",\"coordinates\":[");
+                    for (int p = 0; p < line.length; p += 2) {
+                        out.write(p > 0 ? ",[" : "[");
+                        out.write(Double.toString(line[p + 1]));
+                        out.write(",");
+                        out.write(Double.toString(line[p]));
+                        out.write("]");
+                    }
+                    out.write("]}}");
+                } else {
+                    double lat = Datasets.AREA.getMinLat() + random.nextDouble() * (Datasets.AREA.getMaxLat() - Datasets.AREA.getMinLat());
+                    double lon = Datasets.AREA.getMinLon() + random.nextDouble() * (Datasets.AREA.getMaxLon() - Datasets.AREA.getMinLon());
+                    out.write("{\"type\":\"Point\",\"coordinates\":[");
+                    out.write(Double.toString(Math.rint(lon * 1e6) / 1e6));
+                    out.write(",");
+                    out.write(Double.toString(Math.rint(lat * 1e6) / 1e6));
+                    out.write("]}}");
+                }
+            }
+            out.write("\n]}\n");
+        } finally {
+            out.close();
+        }
+    }
+}
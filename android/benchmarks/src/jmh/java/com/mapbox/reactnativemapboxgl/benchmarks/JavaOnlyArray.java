@@ -0,0 +1,71 @@
+package com.mapbox.reactnativemapboxgl.benchmarks;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap backed {@link ReadableArray}, standing in for the native array the bridge hands
+ * to view managers. Numbers are stored as doubles, like JavaScript sends them.
+ */
+final class JavaOnlyArray implements ReadableArray {
+
+    private final List<Object> values;
+
+    JavaOnlyArray(int capacity) {
+        values = new ArrayList<>(capacity);
+    }
+
+    JavaOnlyArray add(Object value) {
+        values.add(value instanceof Number ? ((Number) value).doubleValue() : value);
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return values.get(index) == null;
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        return (Boolean) values.get(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return (Double) values.get(index);
+    }
+
+    @Override
+    public int getInt(int index) {
+        return ((Double) values.get(index)).intValue();
+    }
+
+    @Override
+    public String getString(int index) {
+        return (String) values.get(index);
+    }
+
+    @Override
+    public ReadableArray getArray(int index) {
+        return (ReadableArray) values.get(index);
+    }
+
+    @Override
+    public ReadableMap getMap(int index) {
+        return (ReadableMap) values.get(index);
+    }
+
+    @Override
+    public ReadableType getType(int index) {
+        return JavaOnlyMap.typeOf(values.get(index));
+    }
+}
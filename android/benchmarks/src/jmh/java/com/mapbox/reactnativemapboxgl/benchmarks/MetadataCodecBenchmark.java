@@ -0,0 +1,78 @@
+package com.mapbox.reactnativemapboxgl.benchmarks;
+
+import com.mapbox.reactnativemapboxgl.OfflineMetadata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline region metadata in the JSON format and in the compact one that replaced it,
+ * as read by {@code getRegionName} and {@code getRegionUuid} for every listed region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetadataCodecBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int features;
+
+    private OfflineMetadata[] metadata;
+    private byte[][] json;
+    private byte[][] compact;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Datasets.SEED);
+        metadata = new OfflineMetadata[features];
+        json = new byte[features][];
+        compact = new byte[features][];
+        for (int i = 0; i < features; i++) {
+            String uuid = new UUID(random.nextLong(), random.nextLong()).toString();
+            // every fourth region is a part of a partitioned pack
+            String pack = i % 4 == 0 ? new UUID(random.nextLong(), random.nextLong()).toString() : null;
+            metadata[i] = new OfflineMetadata(uuid, "Region " + i, pack);
+            json[i] = metadata[i].encodeJson();
+            compact[i] = metadata[i].encode();
+        }
+    }
+
+    @Benchmark
+    public void encodeJson(Blackhole blackhole) {
+        for (OfflineMetadata m : metadata) {
+            blackhole.consume(m.encodeJson());
+        }
+    }
+
+    @Benchmark
+    public void encodeCompact(Blackhole blackhole) {
+        for (OfflineMetadata m : metadata) {
+            blackhole.consume(m.encode());
+        }
+    }
+
+    @Benchmark
+    public void decodeJson(Blackhole blackhole) {
+        for (byte[] bytes : json) {
+            blackhole.consume(OfflineMetadata.decode(bytes));
+        }
+    }
+
+    @Benchmark
+    public void decodeCompact(Blackhole blackhole) {
+        for (byte[] bytes : compact) {
+            blackhole.consume(OfflineMetadata.decode(bytes));
+        }
+    }
+}
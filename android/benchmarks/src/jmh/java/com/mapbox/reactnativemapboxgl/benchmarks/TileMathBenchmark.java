@@ -0,0 +1,110 @@
+package com.mapbox.reactnativemapboxgl.benchmarks;
+
+import com.mapbox.reactnativemapboxgl.BoundingBox;
+import com.mapbox.reactnativemapboxgl.RegionPartitioner;
+import com.mapbox.reactnativemapboxgl.TilePyramid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds and tile pyramid math: the bounds of annotation geometry, viewport culling,
+ * and the tile count, size estimate and partitioning of offline regions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TileMathBenchmark {
+
+    static final int VERTICES = 8;
+
+    /**
+     * Regions span up to a fifth of a degree, a neighbourhood to a small city.
+     */
+    static final double REGION_SPAN = 0.2;
+
+    static final int MIN_ZOOM = 0;
+    static final int MAX_ZOOM = 16;
+    static final float PIXEL_RATIO = 2;
+
+    /**
+     * Well below the hosted styles' limit, so that about half of the regions are split.
+     */
+    static final long PARTITION_MAX_TILES = 600;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int features;
+
+    private double[][] lines;
+    private BoundingBox[] boxes;
+    private TilePyramid[] pyramids;
+    private final BoundingBox viewport = Datasets.AREA.expandBy(-0.4);
+    private final long[] averageTileBytes = new long[TilePyramid.MAX_ZOOM + 1];
+
+    @Setup
+    public void setUp() {
+        lines = Datasets.lines(features, VERTICES);
+        boxes = Datasets.boxes(features, REGION_SPAN);
+        pyramids = new TilePyramid[features];
+        for (int i = 0; i < features; i++) {
+            pyramids[i] = new TilePyramid(boxes[i], MIN_ZOOM, MAX_ZOOM, PIXEL_RATIO);
+        }
+        for (int z = 0; z < averageTileBytes.length; z++) {
+            averageTileBytes[z] = 20 * 1024 + z * 1024;
+        }
+    }
+
+    @Benchmark
+    public void boundsOfLines(Blackhole blackhole) {
+        for (double[] line : lines) {
+            blackhole.consume(BoundingBox.of(line));
+        }
+    }
+
+    @Benchmark
+    public int intersectViewport() {
+        int visible = 0;
+        for (BoundingBox box : boxes) {
+            if (viewport.intersects(box)) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+
+    @Benchmark
+    public long tileCount() {
+        long tiles = 0;
+        for (BoundingBox box : boxes) {
+            tiles += new TilePyramid(box, MIN_ZOOM, MAX_ZOOM, PIXEL_RATIO).tileCount();
+        }
+        return tiles;
+    }
+
+    @Benchmark
+    public long estimateBytes() {
+        long bytes = 0;
+        for (TilePyramid pyramid : pyramids) {
+            bytes += pyramid.estimateBytes(averageTileBytes);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int partition() {
+        int parts = 0;
+        for (TilePyramid pyramid : pyramids) {
+            parts += RegionPartitioner.partition(pyramid, PARTITION_MAX_TILES).size();
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mapbox.reactnativemapboxgl.benchmarks;
+
+import com.mapbox.reactnativemapboxgl.TrackFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording a track: appending fixes with a forced write every {@code syncEvery} fixes,
+ * and reading ten minutes of a day long track through the keyframe index against
+ * decoding the whole file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackFileBenchmark {
+
+    static final long START_TIME = 1500000000000L;
+    static final int RECORDED_FIXES = 86400;
+
+    @Param({"1", "32", "256"})
+    public int syncEvery;
+
+    private File directory;
+    private TrackFile appending;
+    private TrackFile recorded;
+    private int appended;
+    private double latitude = 37.7;
+    private double longitude = -122.4;
+    private final Random random = new Random(1);
+
+    @Setup(Level.Trial)
+    public void writeTracks() throws IOException {
+        directory = File.createTempFile("tracks", "");
+        directory.delete();
+        directory.mkdirs();
+        appending = TrackFile.open(new File(directory, "appending"));
+        recorded = TrackFile.open(new File(directory, "recorded"));
+        Random walk = new Random(2);
+        double lat = 37.7;
+        double lon = -122.4;
+        for (int i = 0; i < RECORDED_FIXES; i++) {
+            lat += (walk.nextDouble() - 0.5) * 1e-4;
+            lon += (walk.nextDouble() - 0.5) * 1e-4;
+            recorded.append(START_TIME + i * 1000L, lat, lon, 5);
+        }
+        recorded.sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTracks() throws IOException {
+        appending.close();
+        recorded.close();
+        TrackFile.delete(new File(directory, "appending"));
+        TrackFile.delete(new File(directory, "recorded"));
+        directory.delete();
+    }
+
+    @Benchmark
+    public int append() throws IOException {
+        latitude += (random.nextDouble() - 0.5) * 1e-4;
+        longitude += (random.nextDouble() - 0.5) * 1e-4;
+        appending.append(START_TIME + appended * 1000L, latitude, longitude, 5);
+        if (++appended % syncEvery == 0) {
+            appending.sync();
+        }
+        return appended;
+    }
+
+    @Benchmark
+    public int readSegment() throws IOException {
+        long from = START_TIME + RECORDED_FIXES / 2 * 1000L;
+        return count(recorded, from, from + 600 * 1000L);
+    }
+
+    @Benchmark
+    public int readAll() throws IOException {
+        return count(recorded, 0, Long.MAX_VALUE);
+    }
+
+    private static int count(TrackFile track, long startTime, long endTime) throws IOException {
+        final int[] count = new int[1];
+        track.read(startTime, endTime, new TrackFile.Visitor() {
+            @Override
+            public boolean onFix(long time, double latitude, double longitude, double accuracy) {
+                count[0]++;
+                return true;
+            }
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,24 @@
+package android.graphics;
+
+/**
+ * Stand-in for the framework class, limited to the #RRGGBB and #AARRGGBB forms of
+ * {@link #parseColor(String)}.
+ */
+public final class Color {
+
+    private Color() {
+    }
+
+    public static int parseColor(String colorString) {
+        if (colorString.length() > 0 && colorString.charAt(0) == '#') {
+            long color = Long.parseLong(colorString.substring(1), 16);
+            if (colorString.length() == 7) {
+                color |= 0xff000000L;
+            } else if (colorString.length() != 9) {
+                throw new IllegalArgumentException("Unknown color");
+            }
+            return (int) color;
+        }
+        throw new IllegalArgumentException("Unknown color");
+    }
+}
@@ -0,0 +1,27 @@
+package android.util;
+
+/**
+ * Stand-in for the framework logger so the parser can run on a plain JVM. Drops everything,
+ * logging would only add noise to the measurements.
+ */
+public final class Log {
+
+    private Log() {
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int i(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg) {
+        return 0;
+    }
+
+    public static int e(String tag, String msg) {
+        return 0;
+    }
+}
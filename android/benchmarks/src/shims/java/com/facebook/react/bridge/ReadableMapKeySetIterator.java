@@ -0,0 +1,10 @@
+package com.facebook.react.bridge;
+
+/**
+ * Same methods as the React Native bridge interface.
+ */
+public interface ReadableMapKeySetIterator {
+
+    boolean hasNextKey();
+    String nextKey();
+}
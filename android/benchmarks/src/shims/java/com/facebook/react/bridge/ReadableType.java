@@ -0,0 +1,13 @@
+package com.facebook.react.bridge;
+
+/**
+ * Same constants as the React Native bridge type.
+ */
+public enum ReadableType {
+    Null,
+    Boolean,
+    Number,
+    String,
+    Map,
+    Array,
+}
@@ -0,0 +1,135 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Difference between the annotations currently on a map and a new set coming from JS,
+ * keyed by annotation id.
+ */
+public final class AnnotationDiff {
+
+    private final List<AnnotationSpec> added;
+    private final List<AnnotationSpec> updated;
+    private final List<String> removed;
+    private final int unchanged;
+
+    private AnnotationDiff(List<AnnotationSpec> added, List<AnnotationSpec> updated, List<String> removed, int unchanged) {
+        this.added = added;
+        this.updated = updated;
+        this.removed = removed;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * @param current annotations currently known, by id
+     * @param next    incoming annotations; later entries win over earlier ones with the same id
+     * @param replace when true, ids missing from {@code next} are removed, otherwise they are kept
+     * @param kept    ids that are never removed by a replace
+     */
+    public static AnnotationDiff compute(Map<String, AnnotationSpec> current, List<AnnotationSpec> next, boolean replace,
+                                         Set<String> kept) {
+        List<AnnotationSpec> added = new ArrayList<>();
+        List<AnnotationSpec> updated = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        Set<String> seen = new HashSet<>(next.size() * 2);
+        int unchanged = 0;
+
+        // walk backwards so the last occurrence of a duplicated id is the one kept
+        for (int i = next.size() - 1; i >= 0; i--) {
+            AnnotationSpec spec = next.get(i);
+            if (!seen.add(spec.getId())) {
+                continue;
+            }
+            AnnotationSpec previous = current.get(spec.getId());
+            if (previous == null) {
+                added.add(spec);
+            } else if (previous.equals(spec)) {
+                unchanged++;
+            } else {
+                updated.add(spec);
+            }
+        }
+        Collections.reverse(added);
+        Collections.reverse(updated);
+
+        if (replace) {
+            for (String id : current.keySet()) {
+                if (!seen.contains(id) && !kept.contains(id)) {
+                    removed.add(id);
+                }
+            }
+        }
+
+        return new AnnotationDiff(added, updated, removed, unchanged);
+    }
+
+    /**
+     * @param kept ids that are not removed
+     */
+    public static AnnotationDiff removeAll(Map<String, AnnotationSpec> current, Set<String> kept) {
+        List<String> removed = new ArrayList<>(current.size());
+        for (String id : current.keySet()) {
+            if (!kept.contains(id)) {
+                removed.add(id);
+            }
+        }
+        return new AnnotationDiff(Collections.<AnnotationSpec>emptyList(), Collections.<AnnotationSpec>emptyList(), removed, 0);
+    }
+
+    /**
+     * @param ids annotations to remove; ids that are not in {@code current} are ignored
+     */
+    public static AnnotationDiff remove(Map<String, AnnotationSpec> current, Collection<String> ids) {
+        List<String> removed = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (current.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+        return new AnnotationDiff(Collections.<AnnotationSpec>emptyList(), Collections.<AnnotationSpec>emptyList(), removed, 0);
+    }
+
+    public List<AnnotationSpec> getAdded() {
+        return added;
+    }
+
+    public List<AnnotationSpec> getUpdated() {
+        return updated;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public int getAddedCount() {
+        return added.size();
+    }
+
+    public int getUpdatedCount() {
+        return updated.size();
+    }
+
+    public int getRemovedCount() {
+        return removed.size();
+    }
+
+    public int getUnchangedCount() {
+        return unchanged;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "added=" + added.size() + " updated=" + updated.size()
+                + " removed=" + removed.size() + " unchanged=" + unchanged;
+    }
+}
@@ -0,0 +1,188 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.graphics.Color;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the annotations array coming over the bridge into {@link AnnotationSpec}s.
+ */
+public class AnnotationParser {
+
+    private static final String TAG = AnnotationParser.class.getSimpleName();
+
+    public static final String ID_PREFIX_POSITIONAL = "#";
+
+    public List<AnnotationSpec> parse(ReadableArray annotations) {
+        int size = annotations.size();
+        List<AnnotationSpec> specs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            try {
+                AnnotationSpec spec = parse(annotations.getMap(i), i);
+                if (spec != null) {
+                    specs.add(spec);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Skipping invalid annotation at index " + i + ": " + e.getMessage());
+            }
+        }
+        return specs;
+    }
+
+    private AnnotationSpec parse(ReadableMap annotation, int index) {
+        String type = annotation.getString("type");
+        AnnotationSpec.Builder builder = new AnnotationSpec.Builder().id(readId(annotation, index));
+
+        if ("point".equals(type)) {
+            builder.type(AnnotationSpec.TYPE_POINT);
+            builder.coordinates(readPoint(annotation, "coordinates"));
+            if (annotation.hasKey("annotationImage")) {
+                ReadableMap image = annotation.getMap("annotationImage");
+                builder.icon(image.getString("url"),
+                        image.hasKey("width") ? image.getInt("width") : 0,
+                        image.hasKey("height") ? image.getInt("height") : 0);
+            }
+        } else if ("polyline".equals(type)) {
+            builder.type(AnnotationSpec.TYPE_POLYLINE);
+            builder.coordinates(readLine(annotation));
+        } else if ("polygon".equals(type)) {
+            builder.type(AnnotationSpec.TYPE_POLYGON);
+            builder.coordinates(readLine(annotation));
+            if (annotation.hasKey("holes") && !annotation.isNull("holes")) {
+                builder.holes(readHoles(annotation));
+            }
+        } else {
+            Log.w(TAG, "Unsupported annotation type: " + type);
+            return null;
+        }
+
+        if (annotation.hasKey("title")) {
+            builder.title(annotation.getString("title"));
+        }
+        if (annotation.hasKey("subtitle")) {
+            builder.subtitle(annotation.getString("subtitle"));
+        }
+        if (annotation.hasKey("alpha")) {
+            builder.alpha((float) annotation.getDouble("alpha"));
+        } else if (annotation.hasKey("fillAlpha")) {
+            builder.alpha((float) annotation.getDouble("fillAlpha"));
+        }
+        if (annotation.hasKey("strokeColor")) {
+            builder.strokeColor(Color.parseColor(annotation.getString("strokeColor")));
+        }
+        if (annotation.hasKey("fillColor")) {
+            builder.fillColor(Color.parseColor(annotation.getString("fillColor")));
+        }
+        if (annotation.hasKey("strokeWidth")) {
+            builder.strokeWidth((float) annotation.getDouble("strokeWidth"));
+        }
+        return builder.build();
+    }
+
+    private static String readId(ReadableMap annotation, int index) {
+        if (annotation.hasKey("id") && !annotation.isNull("id")) {
+            if (annotation.getType("id") == ReadableType.Number) {
+                double id = annotation.getDouble("id");
+                return id == Math.rint(id) ? Long.toString((long) id) : Double.toString(id);
+            }
+            return annotation.getString("id");
+        }
+        // without an id the position in the array is the best identity we have
+        return ID_PREFIX_POSITIONAL + index;
+    }
+
+    private static double[] readPoint(ReadableMap annotation, String key) {
+        double[] point = new double[2];
+        if (annotation.getType(key) == ReadableType.Array) {
+            readPair(annotation.getArray(key), point, 0);
+        } else {
+            readLatLng(annotation.getMap(key), point, 0);
+        }
+        return point;
+    }
+
+    /**
+     * Line coordinates come in one of three shapes: an encoded polyline string, a flat
+     * [lat, lon, lat, lon, ...] number array, or the legacy array of per-point pairs or maps.
+     * The first two avoid a bridge lookup per vertex.
+     */
+    private static double[] readLine(ReadableMap annotation) {
+        if (annotation.getType("coordinates") == ReadableType.String) {
+            return PolylineCodec.decode(annotation.getString("coordinates"), readPrecision(annotation));
+        }
+        return readLine(annotation.getArray("coordinates"));
+    }
+
+    /**
+     * Holes of a polygon are an array of rings, each in any of the shapes of a line.
+     */
+    private static double[][] readHoles(ReadableMap annotation) {
+        ReadableArray holes = annotation.getArray("holes");
+        double[][] rings = new double[holes.size()][];
+        for (int h = 0; h < rings.length; h++) {
+            if (holes.getType(h) == ReadableType.String) {
+                rings[h] = PolylineCodec.decode(holes.getString(h), readPrecision(annotation));
+            } else {
+                rings[h] = readLine(holes.getArray(h));
+            }
+        }
+        return rings;
+    }
+
+    private static int readPrecision(ReadableMap annotation) {
+        return annotation.hasKey("precision") ? annotation.getInt("precision") : PolylineCodec.DEFAULT_PRECISION;
+    }
+
+    private static double[] readLine(ReadableArray coordinates) {
+        if (coordinates.size() > 0 && coordinates.getType(0) == ReadableType.Number) {
+            return readFlat(coordinates);
+        }
+        return readPairs(coordinates);
+    }
+
+    private static double[] readFlat(ReadableArray coordinates) {
+        int size = coordinates.size();
+        if (size % 2 != 0) {
+            throw new IllegalArgumentException("Flat coordinates need an even number of values, got " + size);
+        }
+        double[] packed = new double[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = coordinates.getDouble(i);
+        }
+        return packed;
+    }
+
+    private static double[] readPairs(ReadableArray coordinates) {
+        int count = coordinates.size();
+        double[] packed = new double[count * 2];
+        for (int p = 0; p < count; p++) {
+            if (coordinates.getType(p) == ReadableType.Array) {
+                readPair(coordinates.getArray(p), packed, p * 2);
+            } else {
+                readLatLng(coordinates.getMap(p), packed, p * 2);
+            }
+        }
+        return packed;
+    }
+
+    private static void readPair(ReadableArray pair, double[] out, int offset) {
+        out[offset] = pair.getDouble(0);
+        out[offset + 1] = pair.getDouble(1);
+    }
+
+    private static void readLatLng(ReadableMap map, double[] out, int offset) {
+        if (map.hasKey("lat")) {
+            out[offset] = map.getDouble("lat");
+            out[offset + 1] = map.getDouble("lon");
+        } else {
+            out[offset] = map.getDouble("latitude");
+            out[offset + 1] = map.getDouble("longitude");
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Two stage annotation pipeline: bridge payloads are parsed into {@link AnnotationSpec}s
+ * on a background thread, then the UI thread applies the result to the map a few
+ * batches per frame, staying inside {@link #setFrameBudgetMillis(long) the frame budget}.
+ *
+ * Work submitted to one pipeline is applied in submission order. A replacing update
+ * that is superseded by a newer one before it finished parsing is dropped.
+ *
+ * The cluster index is rebuilt on the same background thread whenever the points change.
+ *
+ * GeoJSON is streamed into the store on the same thread, a batch of features at a time.
+ * Attached {@link GeoJsonDataset}s are queried there too: whenever the camera settles,
+ * the features around the viewport are read from them and the ones that moved out of
+ * range are removed, so only a bounded part of a large dataset is ever in the store.
+ * Dataset features are pinned in the store, so replaces and clears leave them alone.
+ *
+ * Overlays are annotations owned by native code, such as a track being recorded. They
+ * are put straight into the store on the UI thread and are pinned as well.
+ */
+public class AnnotationPipeline implements Choreographer.FrameCallback {
+
+    private static final String TAG = AnnotationPipeline.class.getSimpleName();
+
+    public static final long DEFAULT_FRAME_BUDGET_MILLIS = 8;
+
+    private static final ExecutorService PARSER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "mapbox-annotations");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    });
+
+    private static final Metrics.Histogram PARSE_NANOS = Metrics.histogram("annotations.parseNanos");
+    private static final Metrics.Histogram APPLY_NANOS = Metrics.histogram("annotations.applyFrameNanos");
+    private static final Metrics.Counter DROPPED = Metrics.counter("annotations.droppedUpdates");
+    private static final Metrics.Histogram GEOJSON_NANOS = Metrics.histogram("annotations.geoJsonNanos");
+    private static final Metrics.Counter GEOJSON_FEATURES = Metrics.counter("annotations.geoJsonFeatures");
+    private static final Metrics.Histogram DATASET_INDEX_NANOS = Metrics.histogram("annotations.datasetIndexNanos");
+    private static final Metrics.Histogram DATASET_LOAD_NANOS = Metrics.histogram("annotations.datasetLoadNanos");
+    private static final Metrics.Counter DATASET_FEATURES_READ = Metrics.counter("annotations.datasetFeaturesRead");
+
+    public static final int DEFAULT_DATASET_MAX_FEATURES = 5000;
+
+    public interface GeoJsonCallback {
+        void onGeoJsonAdded(int features, int skipped, long parseNanos);
+
+        void onGeoJsonFailed(String message);
+    }
+
+    public interface DatasetCallback {
+        /**
+         * Called on the UI thread once the dataset is indexed.
+         */
+        void onDatasetAdded(GeoJsonDataset dataset);
+
+        void onDatasetFailed(String message);
+    }
+
+    /**
+     * A dataset attached to this map and the features of it currently in the store.
+     * Only used on the parser thread.
+     */
+    private static final class DatasetLayer {
+        final GeoJsonDataset dataset;
+        final int maxFeatures;
+        final Map<Integer, String> loaded = new HashMap<>();
+        final PackedRTree.Results results = new PackedRTree.Results();
+
+        DatasetLayer(GeoJsonDataset dataset, int maxFeatures) {
+            this.dataset = dataset;
+            this.maxFeatures = Math.max(1, maxFeatures);
+        }
+
+        /**
+         * Reads the features in {@code area} that are not loaded yet and lets go of the
+         * ones outside it. Above {@link #maxFeatures}, an evenly spread subset is kept.
+         */
+        void load(BoundingBox area, List<AnnotationSpec> added, List<String> removed) {
+            results.clear();
+            dataset.query(area, results);
+            int count = results.size();
+            int stride = (count + maxFeatures - 1) / maxFeatures;
+            Set<Integer> wanted = new HashSet<>(Math.min(count, maxFeatures) * 2);
+            for (int i = 0; i < count; i += Math.max(1, stride)) {
+                wanted.add(results.get(i));
+            }
+
+            Iterator<Map.Entry<Integer, String>> iterator = loaded.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, String> entry = iterator.next();
+                if (!wanted.contains(entry.getKey())) {
+                    removed.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+            for (Integer feature : wanted) {
+                if (loaded.containsKey(feature)) {
+                    continue;
+                }
+                AnnotationSpec spec = dataset.read(feature);
+                if (spec != null) {
+                    loaded.put(feature, spec.getId());
+                    added.add(spec);
+                }
+            }
+        }
+    }
+
+    private final AnnotationStore store;
+    private final AnnotationParser parser = new AnnotationParser();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger replaceGeneration = new AtomicInteger();
+
+    private MapboxMap map;
+    private boolean frameScheduled;
+    private int clusterIndexVersionBuilding = -1;
+    private long frameBudgetNanos = DEFAULT_FRAME_BUDGET_MILLIS * 1000000L;
+
+    // ids of the overlays, only used on the UI thread
+    private final Set<String> overlays = new HashSet<>();
+
+    // datasets by path, only used on the parser thread
+    private final Map<String, DatasetLayer> datasets = new LinkedHashMap<>();
+    private final AtomicInteger pendingDatasetLoads = new AtomicInteger();
+    private volatile int datasetCount;
+    private volatile int datasetFeaturesLoaded;
+    private volatile BoundingBox datasetArea;
+
+    private volatile long lastParseNanos;
+    private long droppedUpdates;
+    private long framesUsed;
+
+    public AnnotationPipeline(AnnotationStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Call once the map is ready; pending work is applied from then on.
+     */
+    public void setMap(MapboxMap map) {
+        this.map = map;
+        scheduleFrame();
+    }
+
+    /**
+     * Call when the camera settles so zoom dependent geometry can catch up.
+     */
+    public void onCameraIdle(double zoom, BoundingBox viewport) {
+        store.setCamera(zoom, viewport);
+        afterStoreChange();
+        datasetArea = viewport.expandBy(store.getCullingMargin());
+        if (datasetCount > 0) {
+            submitDatasetLoad();
+        }
+    }
+
+    public void setCulling(boolean enabled, double margin) {
+        store.setCulling(enabled, margin);
+        afterStoreChange();
+    }
+
+    public void setClustering(boolean enabled, double radiusPixels, int maxZoom) {
+        store.setClustering(enabled, radiusPixels, maxZoom);
+        afterStoreChange();
+    }
+
+    public void setSimplificationTolerance(double pixels) {
+        if (store.setSimplificationTolerance(pixels)) {
+            scheduleFrame();
+        }
+    }
+
+    public void setPolygonVertexBudget(int vertices) {
+        if (store.setPolygonVertexBudget(vertices)) {
+            scheduleFrame();
+        }
+    }
+
+    public void setFrameBudgetMillis(long millis) {
+        this.frameBudgetNanos = Math.max(1, millis) * 1000000L;
+    }
+
+    public void submit(final ReadableArray annotations, final boolean replace) {
+        final int generation = replace ? replaceGeneration.incrementAndGet() : replaceGeneration.get();
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (replace && generation != replaceGeneration.get()) {
+                    droppedUpdate();
+                    return;
+                }
+                long start = System.nanoTime();
+                final List<AnnotationSpec> specs = parser.parse(annotations);
+                lastParseNanos = System.nanoTime() - start;
+                PARSE_NANOS.record(lastParseNanos);
+
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (replace && generation != replaceGeneration.get()) {
+                            droppedUpdates++;
+                            DROPPED.increment();
+                            return;
+                        }
+                        store.update(specs, replace);
+                        afterStoreChange();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Reads GeoJSON features on the background thread and adds them to the annotations
+     * already on the map, one batch at a time. A replacing update, a clear or a release
+     * submitted meanwhile would discard the features anyway, so reading stops and the
+     * callback reports a failure. The callback is invoked on the UI thread, once every
+     * batch has reached the store.
+     */
+    public void submitGeoJson(final GeoJsonReader.Source source, final GeoJsonCallback callback) {
+        final int generation = replaceGeneration.get();
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                final GeoJsonReader reader;
+                try {
+                    reader = new GeoJsonReader(source.open());
+                    reader.read(new GeoJsonReader.Sink() {
+                        @Override
+                        public void onFeatures(final List<AnnotationSpec> features) {
+                            if (generation != replaceGeneration.get()) {
+                                throw new CancellationException();
+                            }
+                            GEOJSON_FEATURES.add(features.size());
+                            mainHandler.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (generation == replaceGeneration.get()) {
+                                        store.update(features, false);
+                                        afterStoreChange();
+                                    }
+                                }
+                            });
+                        }
+                    }, GeoJsonReader.DEFAULT_BATCH_SIZE);
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not read GeoJSON: " + e.getMessage());
+                    postGeoJsonFailure(callback, e.getMessage());
+                    return;
+                } catch (CancellationException e) {
+                    postGeoJsonFailure(callback, "Superseded by a newer annotations update");
+                    return;
+                }
+                final long parseNanos = System.nanoTime() - start;
+                lastParseNanos = parseNanos;
+                GEOJSON_NANOS.record(parseNanos);
+
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != replaceGeneration.get()) {
+                            callback.onGeoJsonFailed("Superseded by a newer annotations update");
+                        } else {
+                            callback.onGeoJsonAdded(reader.getFeatureCount(), reader.getSkippedCount(), parseNanos);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void postGeoJsonFailure(final GeoJsonCallback callback, final String message) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onGeoJsonFailed(message);
+            }
+        });
+    }
+
+    /**
+     * Maps and indexes a local GeoJSON file on the background thread, then keeps the
+     * features around the viewport in the store, at most {@code maxFeatures} of them.
+     * Replaces a dataset previously added from the same path. Dataset features stay
+     * across annotation updates and clears until {@link #removeDataset(String)}.
+     */
+    public void addDataset(final String path, final int maxFeatures, final DatasetCallback callback) {
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                unloadDataset(path);
+                final GeoJsonDataset dataset;
+                try {
+                    dataset = GeoJsonDataset.open(path);
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not open GeoJSON dataset " + path + ": " + e.getMessage());
+                    final String message = e.getMessage();
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onDatasetFailed(message);
+                        }
+                    });
+                    return;
+                }
+                DATASET_INDEX_NANOS.record(dataset.getIndexNanos());
+                datasets.put(path, new DatasetLayer(dataset, maxFeatures));
+                datasetCount = datasets.size();
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onDatasetAdded(dataset);
+                    }
+                });
+                loadDatasets();
+            }
+        });
+    }
+
+    public void removeDataset(final String path) {
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                unloadDataset(path);
+            }
+        });
+    }
+
+    private void unloadDataset(String path) {
+        DatasetLayer layer = datasets.remove(path);
+        datasetCount = datasets.size();
+        if (layer == null) {
+            return;
+        }
+        closeDataset(layer);
+        if (layer.loaded.isEmpty()) {
+            return;
+        }
+        final List<String> removed = new ArrayList<>(layer.loaded.values());
+        datasetFeaturesLoaded -= removed.size();
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                store.remove(removed);
+                afterStoreChange();
+            }
+        });
+    }
+
+    private static void closeDataset(DatasetLayer layer) {
+        try {
+            layer.dataset.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not close GeoJSON dataset " + layer.dataset.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void submitDatasetLoad() {
+        pendingDatasetLoads.incrementAndGet();
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                // camera moves queue up while a load runs; only the last one needs doing
+                if (pendingDatasetLoads.decrementAndGet() > 0) {
+                    return;
+                }
+                loadDatasets();
+            }
+        });
+    }
+
+    private void loadDatasets() {
+        BoundingBox area = datasetArea;
+        if (area == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        final List<AnnotationSpec> added = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        int loaded = 0;
+        for (DatasetLayer layer : datasets.values()) {
+            layer.load(area, added, removed);
+            loaded += layer.loaded.size();
+        }
+        datasetFeaturesLoaded = loaded;
+        DATASET_LOAD_NANOS.record(System.nanoTime() - start);
+        DATASET_FEATURES_READ.add(added.size());
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!removed.isEmpty()) {
+                    store.remove(removed);
+                }
+                if (!added.isEmpty()) {
+                    List<String> ids = new ArrayList<>(added.size());
+                    for (AnnotationSpec spec : added) {
+                        ids.add(spec.getId());
+                    }
+                    store.pin(ids);
+                    store.update(added, false);
+                }
+                afterStoreChange();
+            }
+        });
+    }
+
+    public void submitClear() {
+        replaceGeneration.incrementAndGet();
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        store.clear();
+                        afterStoreChange();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Adds or replaces an overlay; must be called on the UI thread.
+     */
+    public void setOverlay(AnnotationSpec spec) {
+        overlays.add(spec.getId());
+        store.pin(Collections.singletonList(spec.getId()));
+        store.update(Collections.singletonList(spec), false);
+        afterStoreChange();
+    }
+
+    /**
+     * Removes an overlay; must be called on the UI thread.
+     */
+    public void removeOverlay(String id) {
+        if (overlays.remove(id)) {
+            store.remove(Collections.singletonList(id));
+            afterStoreChange();
+        }
+    }
+
+    private void droppedUpdate() {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                droppedUpdates++;
+                DROPPED.increment();
+            }
+        });
+    }
+
+    private void afterStoreChange() {
+        if (store.needsClusterIndex() && store.getClusterIndexVersion() != clusterIndexVersionBuilding) {
+            buildClusterIndex();
+        }
+        scheduleFrame();
+    }
+
+    private void buildClusterIndex() {
+        final int version = store.getClusterIndexVersion();
+        final List<AnnotationSpec> points = store.snapshotPoints();
+        final double radius = store.getClusterRadius();
+        final int maxZoom = store.getClusterMaxZoom();
+        clusterIndexVersionBuilding = version;
+
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ClusterIndex index = new ClusterIndex(points, radius, maxZoom);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        store.setClusterIndex(index, version);
+                        afterStoreChange();
+                    }
+                });
+            }
+        });
+    }
+
+    private void scheduleFrame() {
+        if (map == null || frameScheduled || !store.hasPendingWork()) {
+            return;
+        }
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (map == null) {
+            return;
+        }
+        framesUsed++;
+        long start = Metrics.start();
+        store.reconcile(map, System.nanoTime() + frameBudgetNanos);
+        APPLY_NANOS.recordSince(start);
+        if (store.hasPendingWork()) {
+            scheduleFrame();
+        } else if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "annotations applied, " + store.getMaterializedCount() + " on map");
+        }
+    }
+
+    public void release() {
+        replaceGeneration.incrementAndGet();
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        map = null;
+        overlays.clear();
+        PARSER.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (DatasetLayer layer : datasets.values()) {
+                    closeDataset(layer);
+                }
+                datasets.clear();
+                datasetCount = 0;
+                datasetFeaturesLoaded = 0;
+            }
+        });
+    }
+
+    public AnnotationStore getStore() {
+        return store;
+    }
+
+    public long getLastParseNanos() {
+        return lastParseNanos;
+    }
+
+    public int getDatasetCount() {
+        return datasetCount;
+    }
+
+    /**
+     * @return the number of dataset features currently in the store
+     */
+    public int getDatasetFeaturesLoaded() {
+        return datasetFeaturesLoaded;
+    }
+
+    public long getDroppedUpdates() {
+        return droppedUpdates;
+    }
+
+    public long getFramesUsed() {
+        return framesUsed;
+    }
+}
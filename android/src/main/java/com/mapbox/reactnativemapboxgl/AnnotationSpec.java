@@ -0,0 +1,337 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.Arrays;
+
+/**
+ * Immutable description of a single annotation as sent from JS.
+ *
+ * Coordinates are packed as [lat, lon, lat, lon, ...] so a spec can be
+ * compared and stored without holding on to bridge objects. For polygons they are
+ * the outer ring; holes are packed the same way, one array per hole.
+ */
+public final class AnnotationSpec {
+
+    public static final int TYPE_POINT = 0;
+    public static final int TYPE_POLYLINE = 1;
+    public static final int TYPE_POLYGON = 2;
+
+    public static final int NO_COLOR = 0;
+
+    private static final double[][] NO_HOLES = new double[0][];
+
+    private final String id;
+    private final int type;
+    private final double[] coordinates;
+    private final double[][] holes;
+    private final String title;
+    private final String subtitle;
+    private final String iconUrl;
+    private final int iconWidth;
+    private final int iconHeight;
+    private final float alpha;
+    private final boolean hasStrokeColor;
+    private final int strokeColor;
+    private final boolean hasFillColor;
+    private final int fillColor;
+    private final float strokeWidth;
+    private final BoundingBox bounds;
+    private final int hash;
+
+    private AnnotationSpec(Builder builder) {
+        this.id = builder.id;
+        this.type = builder.type;
+        this.coordinates = builder.coordinates;
+        this.holes = builder.holes;
+        this.title = builder.title;
+        this.subtitle = builder.subtitle;
+        this.iconUrl = builder.iconUrl;
+        this.iconWidth = builder.iconWidth;
+        this.iconHeight = builder.iconHeight;
+        this.alpha = builder.alpha;
+        this.hasStrokeColor = builder.hasStrokeColor;
+        this.strokeColor = builder.strokeColor;
+        this.hasFillColor = builder.hasFillColor;
+        this.fillColor = builder.fillColor;
+        this.strokeWidth = builder.strokeWidth;
+        this.bounds = BoundingBox.of(coordinates);
+        this.hash = computeHash();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public boolean isPoint() {
+        return type == TYPE_POINT;
+    }
+
+    /**
+     * @return packed [lat, lon, ...] coordinates, must not be modified
+     */
+    public double[] getCoordinates() {
+        return coordinates;
+    }
+
+    public int getPointCount() {
+        return coordinates.length / 2;
+    }
+
+    public double getLatitude(int index) {
+        return coordinates[index * 2];
+    }
+
+    public double getLongitude(int index) {
+        return coordinates[index * 2 + 1];
+    }
+
+    public int getHoleCount() {
+        return holes.length;
+    }
+
+    /**
+     * @return packed [lat, lon, ...] coordinates of a polygon hole, must not be modified
+     */
+    public double[] getHole(int index) {
+        return holes[index];
+    }
+
+    /**
+     * @return number of points of the geometry, holes included
+     */
+    public int getVertexCount() {
+        int count = coordinates.length / 2;
+        for (double[] hole : holes) {
+            count += hole.length / 2;
+        }
+        return count;
+    }
+
+    /**
+     * @return bounds of the geometry, computed once when the spec is built; for a
+     * polygon the bounds of its outer ring
+     */
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    public String getIconUrl() {
+        return iconUrl;
+    }
+
+    public int getIconWidth() {
+        return iconWidth;
+    }
+
+    public int getIconHeight() {
+        return iconHeight;
+    }
+
+    public boolean hasAlpha() {
+        return !Float.isNaN(alpha);
+    }
+
+    public float getAlpha() {
+        return alpha;
+    }
+
+    public boolean hasStrokeColor() {
+        return hasStrokeColor;
+    }
+
+    public int getStrokeColor() {
+        return strokeColor;
+    }
+
+    public boolean hasFillColor() {
+        return hasFillColor;
+    }
+
+    public int getFillColor() {
+        return fillColor;
+    }
+
+    public boolean hasStrokeWidth() {
+        return !Float.isNaN(strokeWidth);
+    }
+
+    public float getStrokeWidth() {
+        return strokeWidth;
+    }
+
+    private int computeHash() {
+        int result = id.hashCode();
+        result = 31 * result + type;
+        result = 31 * result + Arrays.hashCode(coordinates);
+        result = 31 * result + Arrays.deepHashCode(holes);
+        result = 31 * result + (title != null ? title.hashCode() : 0);
+        result = 31 * result + (subtitle != null ? subtitle.hashCode() : 0);
+        result = 31 * result + (iconUrl != null ? iconUrl.hashCode() : 0);
+        result = 31 * result + iconWidth;
+        result = 31 * result + iconHeight;
+        result = 31 * result + Float.floatToIntBits(alpha);
+        result = 31 * result + (hasStrokeColor ? strokeColor : 1);
+        result = 31 * result + (hasFillColor ? fillColor : 1);
+        result = 31 * result + Float.floatToIntBits(strokeWidth);
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AnnotationSpec)) {
+            return false;
+        }
+        AnnotationSpec other = (AnnotationSpec) o;
+        return hash == other.hash
+                && type == other.type
+                && id.equals(other.id)
+                && iconWidth == other.iconWidth
+                && iconHeight == other.iconHeight
+                && Float.floatToIntBits(alpha) == Float.floatToIntBits(other.alpha)
+                && hasStrokeColor == other.hasStrokeColor
+                && strokeColor == other.strokeColor
+                && hasFillColor == other.hasFillColor
+                && fillColor == other.fillColor
+                && Float.floatToIntBits(strokeWidth) == Float.floatToIntBits(other.strokeWidth)
+                && equal(title, other.title)
+                && equal(subtitle, other.subtitle)
+                && equal(iconUrl, other.iconUrl)
+                && Arrays.equals(coordinates, other.coordinates)
+                && Arrays.deepEquals(holes, other.holes);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public String toString() {
+        return "AnnotationSpec{id=" + id + ", type=" + type + ", points=" + getPointCount() + "}";
+    }
+
+    public static final class Builder {
+        private String id;
+        private int type = TYPE_POINT;
+        private double[] coordinates = new double[0];
+        private double[][] holes = NO_HOLES;
+        private String title;
+        private String subtitle;
+        private String iconUrl;
+        private int iconWidth;
+        private int iconHeight;
+        private float alpha = Float.NaN;
+        private boolean hasStrokeColor;
+        private int strokeColor = NO_COLOR;
+        private boolean hasFillColor;
+        private int fillColor = NO_COLOR;
+        private float strokeWidth = Float.NaN;
+
+        public Builder id(String id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder type(int type) {
+            this.type = type;
+            return this;
+        }
+
+        /**
+         * Takes ownership of the packed [lat, lon, ...] array.
+         */
+        public Builder coordinates(double[] coordinates) {
+            this.coordinates = coordinates;
+            return this;
+        }
+
+        /**
+         * Takes ownership of the packed [lat, lon, ...] arrays, one per polygon hole.
+         */
+        public Builder holes(double[][] holes) {
+            this.holes = holes;
+            return this;
+        }
+
+        public Builder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder subtitle(String subtitle) {
+            this.subtitle = subtitle;
+            return this;
+        }
+
+        public Builder icon(String url, int width, int height) {
+            this.iconUrl = url;
+            this.iconWidth = width;
+            this.iconHeight = height;
+            return this;
+        }
+
+        public Builder alpha(float alpha) {
+            this.alpha = alpha;
+            return this;
+        }
+
+        public Builder strokeColor(int color) {
+            this.hasStrokeColor = true;
+            this.strokeColor = color;
+            return this;
+        }
+
+        public Builder fillColor(int color) {
+            this.hasFillColor = true;
+            this.fillColor = color;
+            return this;
+        }
+
+        public Builder strokeWidth(float width) {
+            this.strokeWidth = width;
+            return this;
+        }
+
+        public AnnotationSpec build() {
+            if (id == null) {
+                throw new IllegalStateException("Annotation id is required");
+            }
+            if (coordinates.length % 2 != 0) {
+                throw new IllegalStateException("Annotation " + id + " has an odd number of coordinate values");
+            }
+            if (type == TYPE_POINT && coordinates.length != 2) {
+                throw new IllegalStateException("Point annotation " + id + " needs exactly one coordinate");
+            }
+            if (type == TYPE_POLYGON && coordinates.length < 6) {
+                throw new IllegalStateException("Polygon annotation " + id + " needs at least three coordinates");
+            }
+            if (holes.length > 0 && type != TYPE_POLYGON) {
+                throw new IllegalStateException("Annotation " + id + " has holes but is not a polygon");
+            }
+            for (double[] hole : holes) {
+                if (hole.length % 2 != 0 || hole.length < 6) {
+                    throw new IllegalStateException("Polygon annotation " + id + " has a hole with less than three coordinates");
+                }
+            }
+            return new AnnotationSpec(this);
+        }
+    }
+}
@@ -0,0 +1,838 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.util.Log;
+
+import com.mapbox.mapboxsdk.annotations.Annotation;
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.PolygonOptions;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the annotations a map is showing, keyed by annotation id, so a new
+ * annotations array only adds, removes or replaces the entries that actually changed.
+ *
+ * Updates change the target state immediately and mark the touched ids dirty;
+ * {@link #reconcile(MapboxMap, long)} then brings the map in line with the target
+ * in small batches so the work can be spread over several frames.
+ *
+ * Long polylines are drawn with a level of detail matching the camera zoom, see
+ * {@link PolylineLevels}. Polygons are drawn as one ring with their holes cut in, and
+ * when all polygons together have more vertices than the vertex budget, every polygon
+ * is simplified by the same factor; see {@link PolygonGeometry}. {@link #get(String)}
+ * always returns the original geometry.
+ *
+ * With culling enabled, only annotations intersecting the viewport plus a margin are
+ * on the map. A {@link QuadTree} of every annotation's bounds keeps the cost of a camera
+ * change proportional to what is visible rather than to the size of the data set.
+ *
+ * With clustering enabled, points are not drawn one to one; the visible part of a
+ * {@link ClusterIndex} is drawn instead, and only the cluster markers that differ from
+ * the previous camera position are added or removed.
+ *
+ * Taps are resolved with {@link #hitTest}, against the same spatial index and the
+ * geometry as drawn, so polylines and polygons can be hit as well as markers.
+ *
+ * Markers with an annotation image are added with the default icon unless the image
+ * is already decoded, and get their own icon from the {@link IconLoader} once it is.
+ *
+ * Must only be used from the UI thread.
+ */
+public class AnnotationStore {
+
+    private static final String TAG = AnnotationStore.class.getSimpleName();
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final double DEFAULT_CLUSTER_RADIUS = 60;
+    public static final int DEFAULT_CLUSTER_MAX_ZOOM = 16;
+    public static final double DEFAULT_CULLING_MARGIN = 0.5;
+
+    // prefix for cluster marker ids, chosen so it does not clash with ids coming from JS
+    private static final String CLUSTER_ID_PREFIX = "\u0001cluster:";
+
+    private final Map<String, AnnotationSpec> specs = new LinkedHashMap<>();
+    private final Map<String, Materialized> materialized = new HashMap<>();
+    private final Set<String> dirty = new LinkedHashSet<>();
+    private final Set<String> pinned = new HashSet<>();
+    private final Map<String, PolylineLevels> polylineLevels = new HashMap<>();
+    private final Map<String, double[]> polygonRings = new HashMap<>();
+    private final Map<Long, String> idsByAnnotation = new HashMap<>();
+    private final Map<String, AnnotationSpec> clusterTargets = new HashMap<>();
+    private final Map<String, ClusterIndex.Cluster> clusters = new HashMap<>();
+    private final QuadTree<String> spatialIndex = new QuadTree<>();
+    private Set<String> visible = new HashSet<>();
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private double simplificationTolerance = PolylineLevels.DEFAULT_TOLERANCE_PIXELS;
+    private int level = PolylineLevels.MAX_LEVEL;
+    private int polygonVertexBudget = PolygonGeometry.DEFAULT_VERTEX_BUDGET;
+    private long polygonVertexCount;
+    private int polygonBudgetLevel;
+    private double zoom = Double.NaN;
+    private BoundingBox viewport;
+    private BoundingBox cullingBounds;
+
+    private boolean culling = true;
+    private double cullingMargin = DEFAULT_CULLING_MARGIN;
+
+    private boolean clustering;
+    private double clusterRadius = DEFAULT_CLUSTER_RADIUS;
+    private int clusterMaxZoom = DEFAULT_CLUSTER_MAX_ZOOM;
+    private ClusterIndex clusterIndex;
+    private int clusterIndexVersion;
+    private int builtClusterIndexVersion = -1;
+
+    private IconLoader iconLoader;
+
+    private AnnotationDiff lastDiff = AnnotationDiff.removeAll(Collections.<String, AnnotationSpec>emptyMap(),
+            Collections.<String>emptySet());
+    private long totalAdded;
+    private long totalUpdated;
+    private long totalRemoved;
+    private long updateCount;
+    private long batchCount;
+    private long levelSwaps;
+    private long clusterIndexBuilds;
+    private long iconsApplied;
+
+    private static final class Materialized {
+        final AnnotationSpec spec;
+        final double[] coordinates;
+        final Annotation annotation;
+
+        Materialized(AnnotationSpec spec, double[] coordinates, Annotation annotation) {
+            this.spec = spec;
+            this.coordinates = coordinates;
+            this.annotation = annotation;
+        }
+    }
+
+    /**
+     * @param replace when true, annotations missing from {@code next} are removed, except pinned ones
+     */
+    public AnnotationDiff update(List<AnnotationSpec> next, boolean replace) {
+        return record(AnnotationDiff.compute(specs, next, replace, pinned));
+    }
+
+    /**
+     * Removes annotations, pinned ones included, and unpins them.
+     */
+    public AnnotationDiff remove(Collection<String> ids) {
+        pinned.removeAll(ids);
+        return record(AnnotationDiff.remove(specs, ids));
+    }
+
+    /**
+     * Removes every annotation that is not pinned.
+     */
+    public AnnotationDiff clear() {
+        return record(AnnotationDiff.removeAll(specs, pinned));
+    }
+
+    /**
+     * Keeps annotations owned by native code, such as dataset features and overlays,
+     * across replacing updates and clears until they are removed by id.
+     */
+    public void pin(Collection<String> ids) {
+        pinned.addAll(ids);
+    }
+
+    private AnnotationDiff record(AnnotationDiff diff) {
+        boolean pointsChanged = false;
+        for (String id : diff.getRemoved()) {
+            AnnotationSpec previous = specs.remove(id);
+            pointsChanged |= previous != null && previous.isPoint();
+            countPolygonVertices(previous, -1);
+            clusterTargets.remove(id);
+            spatialIndex.remove(id);
+            visible.remove(id);
+            polylineLevels.remove(id);
+            polygonRings.remove(id);
+            dirty.add(id);
+        }
+        for (AnnotationSpec spec : diff.getUpdated()) {
+            AnnotationSpec previous = specs.put(spec.getId(), spec);
+            pointsChanged |= spec.isPoint() || (previous != null && previous.isPoint());
+            countPolygonVertices(previous, -1);
+            countPolygonVertices(spec, 1);
+            if (clusterTargets.containsKey(spec.getId())) {
+                // keep showing the point until the rebuilt index says otherwise
+                clusterTargets.put(spec.getId(), spec);
+            }
+            polylineLevels.remove(spec.getId());
+            polygonRings.remove(spec.getId());
+            index(spec);
+            dirty.add(spec.getId());
+        }
+        for (AnnotationSpec spec : diff.getAdded()) {
+            specs.put(spec.getId(), spec);
+            pointsChanged |= spec.isPoint();
+            countPolygonVertices(spec, 1);
+            index(spec);
+            dirty.add(spec.getId());
+        }
+
+        if (pointsChanged) {
+            clusterIndexVersion++;
+        }
+        updatePolygonBudgetLevel();
+
+        lastDiff = diff;
+        totalAdded += diff.getAddedCount();
+        totalUpdated += diff.getUpdatedCount();
+        totalRemoved += diff.getRemovedCount();
+        updateCount++;
+
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "annotations " + diff + " total=" + specs.size());
+        }
+        return diff;
+    }
+
+    private void countPolygonVertices(AnnotationSpec spec, int sign) {
+        if (spec != null && spec.getType() == AnnotationSpec.TYPE_POLYGON) {
+            polygonVertexCount += sign * spec.getVertexCount();
+        }
+    }
+
+    /**
+     * Redraws every polygon when the share of vertices they may keep changes.
+     */
+    private void updatePolygonBudgetLevel() {
+        int next = PolygonGeometry.budgetLevel(polygonVertexCount, polygonVertexBudget);
+        if (next == polygonBudgetLevel) {
+            return;
+        }
+        polygonBudgetLevel = next;
+        polygonRings.clear();
+        for (Map.Entry<String, Materialized> entry : materialized.entrySet()) {
+            if (entry.getValue().spec.getType() == AnnotationSpec.TYPE_POLYGON) {
+                dirty.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * @param vertices most polygon vertices to draw before polygons are simplified, 0 for no limit
+     */
+    public boolean setPolygonVertexBudget(int vertices) {
+        if (vertices != polygonVertexBudget) {
+            polygonVertexBudget = vertices;
+            updatePolygonBudgetLevel();
+        }
+        return hasPendingWork();
+    }
+
+    private void index(AnnotationSpec spec) {
+        spatialIndex.put(spec.getId(), spec.getBounds());
+        if (cullingBounds != null && cullingBounds.intersects(spec.getBounds())) {
+            visible.add(spec.getId());
+        } else {
+            visible.remove(spec.getId());
+        }
+    }
+
+    /**
+     * Tells the store where the camera settled. Polylines whose level of detail
+     * changes are marked dirty, and clusters are recomputed for the new viewport.
+     *
+     * @return true if there is work pending
+     */
+    public boolean setCamera(double zoom, BoundingBox viewport) {
+        this.zoom = zoom;
+        this.viewport = viewport;
+        updateVisible();
+        int next = PolylineLevels.levelForZoom(zoom);
+        if (next != level) {
+            level = next;
+            markSimplifiedPolylinesDirty();
+        }
+        if (clustering) {
+            recluster();
+        }
+        return hasPendingWork();
+    }
+
+    /**
+     * @param enabled whether annotations outside the viewport are kept off the map
+     * @param margin  extra area around the viewport to keep on the map, as a fraction of its size
+     */
+    public boolean setCulling(boolean enabled, double margin) {
+        if (enabled == culling && margin == cullingMargin) {
+            return hasPendingWork();
+        }
+        culling = enabled;
+        cullingMargin = Math.max(0, margin);
+        dirty.addAll(specs.keySet());
+        updateVisible();
+        return hasPendingWork();
+    }
+
+    private void updateVisible() {
+        if (viewport == null) {
+            return;
+        }
+        cullingBounds = viewport.expandBy(cullingMargin);
+
+        Set<String> next = new HashSet<>();
+        spatialIndex.query(cullingBounds, next);
+        if (culling) {
+            for (String id : next) {
+                if (!visible.contains(id)) {
+                    dirty.add(id);
+                }
+            }
+            for (String id : visible) {
+                if (!next.contains(id)) {
+                    dirty.add(id);
+                }
+            }
+        }
+        visible = next;
+    }
+
+    /**
+     * Finds the annotation on the map nearest to a tapped point. Points and polylines
+     * are hit within {@code radiusPixels} of their geometry; a polygon is hit within the
+     * radius of its outline, or inside it when nothing else is near, the smallest one
+     * if they overlap. Cluster markers are never hit.
+     *
+     * @return the id of the annotation, or null if none is near enough
+     */
+    public String hitTest(double lat, double lon, double zoom, double radiusPixels) {
+        List<String> candidates = new ArrayList<>();
+        spatialIndex.query(HitTest.around(lat, lon, radiusPixels, zoom), candidates);
+
+        String nearest = null;
+        double nearestDistance = radiusPixels;
+        String containing = null;
+        double containingArea = Double.POSITIVE_INFINITY;
+        for (String id : candidates) {
+            // culled, clustered or not yet drawn annotations cannot be tapped
+            Materialized current = materialized.get(id);
+            if (current == null) {
+                continue;
+            }
+            int type = current.spec.getType();
+            double distance = HitTest.distance(type, current.coordinates, lat, lon, zoom);
+            if (distance == 0 && type == AnnotationSpec.TYPE_POLYGON) {
+                BoundingBox bounds = current.spec.getBounds();
+                double area = (bounds.getMaxLat() - bounds.getMinLat()) * (bounds.getMaxLon() - bounds.getMinLon());
+                if (area < containingArea) {
+                    containing = id;
+                    containingArea = area;
+                }
+            } else if (distance <= nearestDistance) {
+                nearest = id;
+                nearestDistance = distance;
+            }
+        }
+        return nearest != null ? nearest : containing;
+    }
+
+    /**
+     * Adds the ids of all annotations whose bounds intersect {@code box} to {@code out}.
+     */
+    public void query(BoundingBox box, Collection<String> out) {
+        spatialIndex.query(box, out);
+    }
+
+    /**
+     * @return the extra area kept around the viewport, as a fraction of its size
+     */
+    public double getCullingMargin() {
+        return cullingMargin;
+    }
+
+    public boolean setClustering(boolean enabled, double radiusPixels, int maxZoom) {
+        if (enabled == clustering && radiusPixels == clusterRadius && maxZoom == clusterMaxZoom) {
+            return hasPendingWork();
+        }
+        clusterRadius = radiusPixels;
+        clusterMaxZoom = maxZoom;
+        clusterIndexVersion++;
+        if (enabled != clustering) {
+            clustering = enabled;
+            // every point either leaves the map for its cluster or comes back on its own
+            for (AnnotationSpec spec : specs.values()) {
+                if (spec.isPoint()) {
+                    dirty.add(spec.getId());
+                }
+            }
+        }
+        if (clustering) {
+            recluster();
+        } else {
+            dirty.addAll(clusterTargets.keySet());
+            clusterTargets.clear();
+            clusters.clear();
+            clusterIndex = null;
+        }
+        return hasPendingWork();
+    }
+
+    /**
+     * @return true if clustering is on and the cluster index does not match the current points
+     */
+    public boolean needsClusterIndex() {
+        return clustering && builtClusterIndexVersion != clusterIndexVersion;
+    }
+
+    public int getClusterIndexVersion() {
+        return clusterIndexVersion;
+    }
+
+    /**
+     * @return a copy of the current point annotations, to build a {@link ClusterIndex} from
+     * off the UI thread
+     */
+    public List<AnnotationSpec> snapshotPoints() {
+        List<AnnotationSpec> points = new ArrayList<>();
+        for (AnnotationSpec spec : specs.values()) {
+            if (spec.isPoint()) {
+                points.add(spec);
+            }
+        }
+        return points;
+    }
+
+    public double getClusterRadius() {
+        return clusterRadius;
+    }
+
+    public int getClusterMaxZoom() {
+        return clusterMaxZoom;
+    }
+
+    /**
+     * Installs a cluster index built from {@link #snapshotPoints()}; ignored if the
+     * points or settings changed since {@code version}.
+     *
+     * @return true if there is work pending
+     */
+    public boolean setClusterIndex(ClusterIndex index, int version) {
+        if (clustering && version == clusterIndexVersion) {
+            clusterIndex = index;
+            builtClusterIndexVersion = version;
+            clusterIndexBuilds++;
+            recluster();
+        }
+        return hasPendingWork();
+    }
+
+    private void recluster() {
+        // until the first index is built, points stay off the map
+        if (viewport == null || clusterIndex == null) {
+            return;
+        }
+
+        List<ClusterIndex.Cluster> visible = new ArrayList<>();
+        clusterIndex.query(zoom, viewport.expandBy(0.25), visible);
+
+        Map<String, AnnotationSpec> targets = new HashMap<>(visible.size() * 2);
+        clusters.clear();
+        for (ClusterIndex.Cluster cluster : visible) {
+            String singleId = clusterIndex.getSingleId(cluster);
+            if (singleId != null) {
+                // the index may lag behind removals until it is rebuilt
+                AnnotationSpec spec = specs.get(singleId);
+                if (spec != null) {
+                    targets.put(singleId, spec);
+                }
+            } else {
+                String id = CLUSTER_ID_PREFIX + cluster.getZoom() + ":" + cluster.getKey();
+                targets.put(id, new AnnotationSpec.Builder()
+                        .id(id)
+                        .type(AnnotationSpec.TYPE_POINT)
+                        .coordinates(new double[]{cluster.getLatitude(), cluster.getLongitude()})
+                        .title(String.valueOf(cluster.getCount()))
+                        .build());
+                clusters.put(id, cluster);
+            }
+        }
+
+        for (Map.Entry<String, AnnotationSpec> entry : targets.entrySet()) {
+            AnnotationSpec previous = clusterTargets.get(entry.getKey());
+            if (previous == null || !previous.equals(entry.getValue())) {
+                dirty.add(entry.getKey());
+            }
+        }
+        for (String id : clusterTargets.keySet()) {
+            if (!targets.containsKey(id)) {
+                dirty.add(id);
+            }
+        }
+        clusterTargets.clear();
+        clusterTargets.putAll(targets);
+    }
+
+    /**
+     * @return what should be on the map for {@code id}, or null if nothing should
+     */
+    private AnnotationSpec targetFor(String id) {
+        AnnotationSpec spec = specs.get(id);
+        if (spec == null || (clustering && spec.isPoint())) {
+            return clusterTargets.get(id);
+        }
+        if (culling && !visible.contains(id)) {
+            return null;
+        }
+        return spec;
+    }
+
+    /**
+     * @param pixels maximum deviation of a simplified polyline on screen, 0 disables simplification
+     */
+    public boolean setSimplificationTolerance(double pixels) {
+        if (pixels != simplificationTolerance) {
+            simplificationTolerance = pixels;
+            polylineLevels.clear();
+            markSimplifiedPolylinesDirty();
+        }
+        return hasPendingWork();
+    }
+
+    private void markSimplifiedPolylinesDirty() {
+        for (Map.Entry<String, Materialized> entry : materialized.entrySet()) {
+            AnnotationSpec spec = entry.getValue().spec;
+            if (spec.getType() == AnnotationSpec.TYPE_POLYLINE && PolylineLevels.isWorthSimplifying(spec)) {
+                dirty.add(entry.getKey());
+            }
+        }
+    }
+
+    private double[] coordinatesToDraw(AnnotationSpec spec) {
+        if (spec.getType() == AnnotationSpec.TYPE_POLYGON) {
+            double[] ring = polygonRings.get(spec.getId());
+            if (ring == null) {
+                ring = PolygonGeometry.toDraw(spec, polygonBudgetLevel);
+                polygonRings.put(spec.getId(), ring);
+            }
+            return ring;
+        }
+        if (spec.getType() != AnnotationSpec.TYPE_POLYLINE || !PolylineLevels.isWorthSimplifying(spec)) {
+            return spec.getCoordinates();
+        }
+        PolylineLevels levels = polylineLevels.get(spec.getId());
+        if (levels == null) {
+            levels = new PolylineLevels(spec, simplificationTolerance);
+            polylineLevels.put(spec.getId(), levels);
+        }
+        return levels.get(level);
+    }
+
+    public boolean hasPendingWork() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Applies pending changes to the map in batches until there is nothing left to do
+     * or {@code deadlineNanos} (as given by {@link System#nanoTime()}) has passed.
+     *
+     * @return true if there is still work pending
+     */
+    public boolean reconcile(MapboxMap map, long deadlineNanos) {
+        List<Annotation> stale = new ArrayList<>();
+        List<AnnotationSpec> markerSpecs = new ArrayList<>();
+        List<MarkerOptions> markerOptions = new ArrayList<>();
+        List<AnnotationSpec> iconRequests = new ArrayList<>();
+        List<AnnotationSpec> polylineSpecs = new ArrayList<>();
+        List<double[]> polylineCoordinates = new ArrayList<>();
+        List<PolylineOptions> polylineOptions = new ArrayList<>();
+        List<AnnotationSpec> polygonSpecs = new ArrayList<>();
+        List<double[]> polygonCoordinates = new ArrayList<>();
+        List<PolygonOptions> polygonOptions = new ArrayList<>();
+
+        Iterator<String> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            stale.clear();
+            markerSpecs.clear();
+            markerOptions.clear();
+            iconRequests.clear();
+            polylineSpecs.clear();
+            polylineCoordinates.clear();
+            polylineOptions.clear();
+            polygonSpecs.clear();
+            polygonCoordinates.clear();
+            polygonOptions.clear();
+
+            for (int n = 0; n < batchSize && iterator.hasNext(); n++) {
+                String id = iterator.next();
+                iterator.remove();
+
+                AnnotationSpec target = targetFor(id);
+                double[] coordinates = target != null ? coordinatesToDraw(target) : null;
+                Materialized current = materialized.get(id);
+                if (current != null) {
+                    if (current.spec.equals(target) && current.coordinates == coordinates) {
+                        continue;
+                    }
+                    if (current.spec.equals(target)) {
+                        levelSwaps++;
+                    }
+                    materialized.remove(id);
+                    idsByAnnotation.remove(current.annotation.getId());
+                    stale.add(current.annotation);
+                }
+                if (target == null) {
+                    continue;
+                }
+                switch (target.getType()) {
+                    case AnnotationSpec.TYPE_POINT:
+                        MarkerOptions options = toMarkerOptions(target);
+                        if (target.getIconUrl() != null && iconLoader != null) {
+                            Icon icon = iconLoader.getCached(target.getIconUrl(), target.getIconWidth(), target.getIconHeight());
+                            if (icon != null) {
+                                options.icon(icon);
+                            } else {
+                                iconRequests.add(target);
+                            }
+                        }
+                        markerSpecs.add(target);
+                        markerOptions.add(options);
+                        break;
+                    case AnnotationSpec.TYPE_POLYLINE:
+                        polylineSpecs.add(target);
+                        polylineCoordinates.add(coordinates);
+                        polylineOptions.add(toPolylineOptions(target, coordinates));
+                        break;
+                    case AnnotationSpec.TYPE_POLYGON:
+                        polygonSpecs.add(target);
+                        polygonCoordinates.add(coordinates);
+                        polygonOptions.add(toPolygonOptions(target, coordinates));
+                        break;
+                    default:
+                        Log.w(TAG, "Unsupported annotation type for " + id);
+                        break;
+                }
+            }
+
+            if (!stale.isEmpty()) {
+                map.removeAnnotations(stale);
+            }
+            if (!markerOptions.isEmpty()) {
+                List<Marker> markers = map.addMarkers(markerOptions);
+                for (int i = 0; i < markers.size(); i++) {
+                    AnnotationSpec spec = markerSpecs.get(i);
+                    materialized.put(spec.getId(), new Materialized(spec, spec.getCoordinates(), markers.get(i)));
+                    idsByAnnotation.put(markers.get(i).getId(), spec.getId());
+                }
+                for (AnnotationSpec spec : iconRequests) {
+                    loadIcon(spec);
+                }
+            }
+            if (!polylineOptions.isEmpty()) {
+                List<Polyline> polylines = map.addPolylines(polylineOptions);
+                for (int i = 0; i < polylines.size(); i++) {
+                    AnnotationSpec spec = polylineSpecs.get(i);
+                    materialized.put(spec.getId(), new Materialized(spec, polylineCoordinates.get(i), polylines.get(i)));
+                    idsByAnnotation.put(polylines.get(i).getId(), spec.getId());
+                }
+            }
+            if (!polygonOptions.isEmpty()) {
+                List<Polygon> polygons = map.addPolygons(polygonOptions);
+                for (int i = 0; i < polygons.size(); i++) {
+                    AnnotationSpec spec = polygonSpecs.get(i);
+                    materialized.put(spec.getId(), new Materialized(spec, polygonCoordinates.get(i), polygons.get(i)));
+                    idsByAnnotation.put(polygons.get(i).getId(), spec.getId());
+                }
+            }
+            batchCount++;
+
+            if (System.nanoTime() >= deadlineNanos) {
+                break;
+            }
+        }
+        return !dirty.isEmpty();
+    }
+
+    private void loadIcon(final AnnotationSpec spec) {
+        iconLoader.load(spec.getIconUrl(), spec.getIconWidth(), spec.getIconHeight(), new IconLoader.Callback() {
+            @Override
+            public void onIconLoaded(Icon icon) {
+                // the marker may have been replaced or removed while the image was loading
+                Materialized current = materialized.get(spec.getId());
+                if (current != null && current.spec == spec) {
+                    ((Marker) current.annotation).setIcon(icon);
+                    iconsApplied++;
+                }
+            }
+
+            @Override
+            public void onIconFailed(String url, Exception e) {
+                // keep the default icon
+            }
+        });
+    }
+
+    static MarkerOptions toMarkerOptions(AnnotationSpec spec) {
+        MarkerOptions marker = new MarkerOptions();
+        marker.position(new LatLng(spec.getLatitude(0), spec.getLongitude(0)));
+        if (spec.getTitle() != null) {
+            marker.title(spec.getTitle());
+        }
+        if (spec.getSubtitle() != null) {
+            marker.snippet(spec.getSubtitle());
+        }
+        return marker;
+    }
+
+    static PolylineOptions toPolylineOptions(AnnotationSpec spec, double[] coordinates) {
+        PolylineOptions polyline = new PolylineOptions();
+        for (int p = 0; p + 1 < coordinates.length; p += 2) {
+            polyline.add(new LatLng(coordinates[p], coordinates[p + 1]));
+        }
+        if (spec.hasAlpha()) {
+            polyline.alpha(spec.getAlpha());
+        }
+        if (spec.hasStrokeColor()) {
+            polyline.color(spec.getStrokeColor());
+        }
+        if (spec.hasStrokeWidth()) {
+            polyline.width(spec.getStrokeWidth());
+        }
+        return polyline;
+    }
+
+    static PolygonOptions toPolygonOptions(AnnotationSpec spec, double[] coordinates) {
+        PolygonOptions polygon = new PolygonOptions();
+        for (int p = 0; p + 1 < coordinates.length; p += 2) {
+            polygon.add(new LatLng(coordinates[p], coordinates[p + 1]));
+        }
+        if (spec.hasAlpha()) {
+            polygon.alpha(spec.getAlpha());
+        }
+        if (spec.hasFillColor()) {
+            polygon.fillColor(spec.getFillColor());
+        }
+        if (spec.hasStrokeColor()) {
+            polygon.strokeColor(spec.getStrokeColor());
+        }
+        return polygon;
+    }
+
+    /**
+     * @param iconLoader loader for annotation images, or null to always use the default icon
+     */
+    public void setIconLoader(IconLoader iconLoader) {
+        this.iconLoader = iconLoader;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public AnnotationSpec get(String id) {
+        return specs.get(id);
+    }
+
+    /**
+     * @return the id of the annotation or cluster drawn as {@code annotation}, or null
+     */
+    public String getId(Annotation annotation) {
+        return idsByAnnotation.get(annotation.getId());
+    }
+
+    public boolean isCluster(String id) {
+        return clusters.containsKey(id);
+    }
+
+    /**
+     * @return the cluster shown under {@code id}, or null if it is not a cluster
+     */
+    public ClusterIndex.Cluster getCluster(String id) {
+        return clusters.get(id);
+    }
+
+    public List<String> getClusterMemberIds(ClusterIndex.Cluster cluster) {
+        return clusterIndex.getMemberIds(cluster);
+    }
+
+    public int size() {
+        return specs.size();
+    }
+
+    public int getMaterializedCount() {
+        return materialized.size();
+    }
+
+    public int getPendingCount() {
+        return dirty.size();
+    }
+
+    public AnnotationDiff getLastDiff() {
+        return lastDiff;
+    }
+
+    public long getTotalAdded() {
+        return totalAdded;
+    }
+
+    public long getTotalUpdated() {
+        return totalUpdated;
+    }
+
+    public long getTotalRemoved() {
+        return totalRemoved;
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public long getLevelSwaps() {
+        return levelSwaps;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getPolygonVertexCount() {
+        return polygonVertexCount;
+    }
+
+    /**
+     * @return the share of their vertices polygons are drawn with, 1 if they fit the budget
+     */
+    public double getPolygonVertexRatio() {
+        return 1.0 / (1 << polygonBudgetLevel);
+    }
+
+    public int getVisibleCount() {
+        return visible.size();
+    }
+
+    public int getClusterCount() {
+        return clusters.size();
+    }
+
+    public long getClusterIndexBuilds() {
+        return clusterIndexBuilds;
+    }
+
+    public long getIconsApplied() {
+        return iconsApplied;
+    }
+}
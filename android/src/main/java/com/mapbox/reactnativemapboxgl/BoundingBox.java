@@ -0,0 +1,130 @@
+package com.mapbox.reactnativemapboxgl;
+
+/**
+ * Immutable latitude/longitude bounding box. Does not handle boxes crossing the antimeridian;
+ * callers are expected to split or widen those.
+ */
+public final class BoundingBox {
+
+    public static final BoundingBox WORLD = new BoundingBox(-90, -180, 90, 180);
+
+    private final double minLat;
+    private final double minLon;
+    private final double maxLat;
+    private final double maxLon;
+
+    public BoundingBox(double minLat, double minLon, double maxLat, double maxLon) {
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.maxLat = maxLat;
+        this.maxLon = maxLon;
+    }
+
+    /**
+     * @return the bounds of packed [lat, lon, ...] coordinates
+     */
+    public static BoundingBox of(double[] packed) {
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i + 1 < packed.length; i += 2) {
+            minLat = Math.min(minLat, packed[i]);
+            maxLat = Math.max(maxLat, packed[i]);
+            minLon = Math.min(minLon, packed[i + 1]);
+            maxLon = Math.max(maxLon, packed[i + 1]);
+        }
+        return new BoundingBox(minLat, minLon, maxLat, maxLon);
+    }
+
+    /**
+     * Builds a box from the visible edges of a map. A box crossing the antimeridian
+     * ({@code west > east}) is widened to all longitudes.
+     */
+    public static BoundingBox fromEdges(double north, double south, double east, double west) {
+        if (west > east) {
+            return new BoundingBox(south, -180, north, 180);
+        }
+        return new BoundingBox(south, west, north, east);
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMinLon() {
+        return minLon;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    public double getCenterLat() {
+        return (minLat + maxLat) / 2;
+    }
+
+    public double getCenterLon() {
+        return (minLon + maxLon) / 2;
+    }
+
+    public boolean contains(double lat, double lon) {
+        return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+    }
+
+    public boolean contains(BoundingBox other) {
+        return other.minLat >= minLat && other.maxLat <= maxLat
+                && other.minLon >= minLon && other.maxLon <= maxLon;
+    }
+
+    public boolean intersects(BoundingBox other) {
+        return intersects(other.minLat, other.minLon, other.maxLat, other.maxLon);
+    }
+
+    public boolean intersects(double otherMinLat, double otherMinLon, double otherMaxLat, double otherMaxLon) {
+        return otherMinLat <= maxLat && otherMaxLat >= minLat
+                && otherMinLon <= maxLon && otherMaxLon >= minLon;
+    }
+
+    /**
+     * @return this box grown on every side by {@code fraction} of its own size
+     */
+    public BoundingBox expandBy(double fraction) {
+        double dLat = (maxLat - minLat) * fraction;
+        double dLon = (maxLon - minLon) * fraction;
+        return new BoundingBox(
+                Math.max(-90, minLat - dLat), Math.max(-180, minLon - dLon),
+                Math.min(90, maxLat + dLat), Math.min(180, maxLon + dLon));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoundingBox)) {
+            return false;
+        }
+        BoundingBox other = (BoundingBox) o;
+        return minLat == other.minLat && minLon == other.minLon
+                && maxLat == other.maxLat && maxLon == other.maxLon;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(minLat);
+        bits = 31 * bits + Double.doubleToLongBits(minLon);
+        bits = 31 * bits + Double.doubleToLongBits(maxLat);
+        bits = 31 * bits + Double.doubleToLongBits(maxLon);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" + minLat + "," + minLon + " - " + maxLat + "," + maxLon + "}";
+    }
+}
@@ -0,0 +1,107 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads UTF-8 text from a range of a byte buffer, such as a memory mapped file, without
+ * copying the bytes. Uses absolute reads only, so several readers can share a buffer.
+ * Malformed sequences decode to U+FFFD.
+ */
+final class ByteBufferReader extends Reader {
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final ByteBuffer bytes;
+    private int position;
+    private int end;
+    // low surrogate of a supplementary character that did not fit the last read
+    private int pendingLow = -1;
+
+    ByteBufferReader(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Points the reader at bytes {@code start} (inclusive) to {@code end} (exclusive).
+     */
+    ByteBufferReader reset(int start, int end) {
+        this.position = start;
+        this.end = end;
+        this.pendingLow = -1;
+        return this;
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int count = 0;
+        if (pendingLow >= 0) {
+            chars[offset + count++] = (char) pendingLow;
+            pendingLow = -1;
+        }
+        while (count < length && position < end) {
+            int b = bytes.get(position) & 0xFF;
+            if (b < 0x80) {
+                chars[offset + count++] = (char) b;
+                position++;
+                continue;
+            }
+            int extra;
+            int code;
+            if (b >= 0xF0 && b < 0xF8) {
+                extra = 3;
+                code = b & 0x07;
+            } else if (b >= 0xE0) {
+                extra = 2;
+                code = b & 0x0F;
+            } else if (b >= 0xC0) {
+                extra = 1;
+                code = b & 0x1F;
+            } else {
+                chars[offset + count++] = REPLACEMENT;
+                position++;
+                continue;
+            }
+            if (b >= 0xF8 || position + extra >= end) {
+                chars[offset + count++] = REPLACEMENT;
+                position = Math.min(end, position + 1);
+                continue;
+            }
+            int i = 1;
+            for (; i <= extra; i++) {
+                int next = bytes.get(position + i) & 0xFF;
+                if ((next & 0xC0) != 0x80) {
+                    break;
+                }
+                code = (code << 6) | (next & 0x3F);
+            }
+            if (i <= extra) {
+                chars[offset + count++] = REPLACEMENT;
+                position += i;
+                continue;
+            }
+            position += extra + 1;
+            if (code < 0x10000) {
+                chars[offset + count++] = (char) code;
+            } else {
+                code -= 0x10000;
+                chars[offset + count++] = (char) (0xD800 + (code >>> 10));
+                char low = (char) (0xDC00 + (code & 0x3FF));
+                if (count < length) {
+                    chars[offset + count++] = low;
+                } else {
+                    pendingLow = low;
+                }
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() {
+        position = end;
+    }
+}
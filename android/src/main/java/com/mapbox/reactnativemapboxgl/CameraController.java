@@ -0,0 +1,180 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+/**
+ * Collects camera changes coming from props and module methods and applies them as a
+ * single {@code moveCamera} on the next frame.
+ *
+ * Each change only overrides the fields it sets, on top of the camera position at the
+ * time the frame runs, so a center change and a zoom change made in the same render
+ * end up in one consistent {@link CameraPosition} instead of two partial ones.
+ *
+ * Setters may be called from any thread; the camera is only touched on the UI thread.
+ */
+public class CameraController implements Choreographer.FrameCallback {
+
+    private static final Metrics.Counter REQUESTS = Metrics.counter("camera.requests");
+    private static final Metrics.Counter MERGED = Metrics.counter("camera.merged");
+    private static final Metrics.Histogram MOVE_NANOS = Metrics.histogram("camera.moveNanos");
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            scheduleFrame();
+        }
+    };
+
+    // pending changes, NaN when unset
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private double zoom = Double.NaN;
+    private double bearing = Double.NaN;
+    private double tilt = Double.NaN;
+    private boolean pending;
+    private boolean frameRequested;
+
+    private MapboxMap map;
+    private boolean frameScheduled;
+
+    private long requested;
+    private long merged;
+    private long applied;
+
+    /**
+     * Call once the map is ready; pending changes are applied from then on.
+     */
+    public void setMap(MapboxMap map) {
+        this.map = map;
+        scheduleFrame();
+    }
+
+    public synchronized void setCenter(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        request();
+    }
+
+    public synchronized void setZoom(double zoom) {
+        this.zoom = zoom;
+        request();
+    }
+
+    public synchronized void setCenterAndZoom(double latitude, double longitude, double zoom) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.zoom = zoom;
+        request();
+    }
+
+    public synchronized void setBearing(double bearing) {
+        this.bearing = bearing;
+        request();
+    }
+
+    public synchronized void setTilt(double tilt) {
+        this.tilt = tilt;
+        request();
+    }
+
+    private void request() {
+        requested++;
+        REQUESTS.increment();
+        if (pending) {
+            merged++;
+            MERGED.increment();
+            return;
+        }
+        pending = true;
+        if (!frameRequested) {
+            frameRequested = true;
+            mainHandler.post(scheduleFrame);
+        }
+    }
+
+    private void scheduleFrame() {
+        synchronized (this) {
+            frameRequested = false;
+            if (!pending) {
+                return;
+            }
+        }
+        if (map == null || frameScheduled) {
+            return;
+        }
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (map == null) {
+            return;
+        }
+
+        CameraPosition.Builder builder = new CameraPosition.Builder(map.getCameraPosition());
+        synchronized (this) {
+            if (!pending) {
+                return;
+            }
+            if (!Double.isNaN(latitude)) {
+                builder.target(new LatLng(latitude, longitude));
+            }
+            if (!Double.isNaN(zoom)) {
+                builder.zoom(zoom);
+            }
+            if (!Double.isNaN(bearing)) {
+                builder.bearing(bearing);
+            }
+            if (!Double.isNaN(tilt)) {
+                builder.tilt(tilt);
+            }
+            latitude = longitude = zoom = bearing = tilt = Double.NaN;
+            pending = false;
+        }
+
+        long start = Metrics.start();
+        map.moveCamera(CameraUpdateFactory.newCameraPosition(builder.build()));
+        MOVE_NANOS.recordSince(start);
+        applied++;
+    }
+
+    public void release() {
+        mainHandler.removeCallbacks(scheduleFrame);
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        map = null;
+    }
+
+    /**
+     * @return number of camera changes requested
+     */
+    public synchronized long getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return number of camera changes folded into an update that was already pending
+     */
+    public synchronized long getMerged() {
+        return merged;
+    }
+
+    /**
+     * @return number of {@code moveCamera} calls made
+     */
+    public long getApplied() {
+        return applied;
+    }
+}
@@ -0,0 +1,257 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical grid of point annotations used for marker clustering.
+ *
+ * The index is built once per set of points. Each integer zoom level up to
+ * {@code maxZoom} has a grid whose cells are {@code radiusPixels} wide on screen;
+ * since cells double in size from one level to the next, every cluster is built
+ * from the (up to four) clusters below it rather than from the raw points again.
+ */
+public final class ClusterIndex {
+
+    private final String[] ids;
+    private final double[] xs;
+    private final double[] ys;
+    private final int maxZoom;
+    private final double radiusPixels;
+    private final List<Map<Long, Cluster>> levels;
+
+    public static final class Cluster {
+        private final int zoom;
+        private final long key;
+        private int count;
+        private double sumX;
+        private double sumY;
+        private int[] members;
+        private int memberCount;
+        private final List<Cluster> children;
+
+        Cluster(int zoom, long key, boolean leaf) {
+            this.zoom = zoom;
+            this.key = key;
+            this.members = leaf ? new int[2] : null;
+            this.children = leaf ? null : new ArrayList<Cluster>(4);
+        }
+
+        void addMember(int index, double x, double y) {
+            if (memberCount == members.length) {
+                int[] grown = new int[members.length * 2];
+                System.arraycopy(members, 0, grown, 0, memberCount);
+                members = grown;
+            }
+            members[memberCount++] = index;
+            count++;
+            sumX += x;
+            sumY += y;
+        }
+
+        void addChild(Cluster child) {
+            children.add(child);
+            count += child.count;
+            sumX += child.sumX;
+            sumY += child.sumY;
+        }
+
+        public int getZoom() {
+            return zoom;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getLatitude() {
+            return WebMercator.yToLat(sumY / count);
+        }
+
+        public double getLongitude() {
+            return WebMercator.xToLon(sumX / count);
+        }
+
+        void collectMembers(List<Integer> out) {
+            if (members != null) {
+                for (int i = 0; i < memberCount; i++) {
+                    out.add(members[i]);
+                }
+            } else {
+                for (Cluster child : children) {
+                    child.collectMembers(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param points point annotations to cluster, non point specs are ignored
+     */
+    public ClusterIndex(Collection<AnnotationSpec> points, double radiusPixels, int maxZoom) {
+        List<AnnotationSpec> filtered = new ArrayList<>(points.size());
+        for (AnnotationSpec spec : points) {
+            if (spec.isPoint()) {
+                filtered.add(spec);
+            }
+        }
+
+        int size = filtered.size();
+        this.ids = new String[size];
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.maxZoom = maxZoom;
+        this.radiusPixels = radiusPixels;
+
+        for (int i = 0; i < size; i++) {
+            AnnotationSpec spec = filtered.get(i);
+            ids[i] = spec.getId();
+            xs[i] = WebMercator.lonToX(spec.getLongitude(0));
+            ys[i] = WebMercator.latToY(spec.getLatitude(0));
+        }
+
+        List<Map<Long, Cluster>> built = new ArrayList<>(maxZoom + 1);
+        for (int z = 0; z <= maxZoom; z++) {
+            built.add(null);
+        }
+
+        double cellSize = cellSize(maxZoom);
+        Map<Long, Cluster> leaves = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            long key = key((long) Math.floor(xs[i] / cellSize), (long) Math.floor(ys[i] / cellSize));
+            Cluster cluster = leaves.get(key);
+            if (cluster == null) {
+                cluster = new Cluster(maxZoom, key, true);
+                leaves.put(key, cluster);
+            }
+            cluster.addMember(i, xs[i], ys[i]);
+        }
+        built.set(maxZoom, leaves);
+
+        for (int z = maxZoom - 1; z >= 0; z--) {
+            Map<Long, Cluster> parents = new HashMap<>();
+            for (Cluster child : built.get(z + 1).values()) {
+                long key = key(cellX(child.key) >> 1, cellY(child.key) >> 1);
+                Cluster parent = parents.get(key);
+                if (parent == null) {
+                    parent = new Cluster(z, key, false);
+                    parents.put(key, parent);
+                }
+                parent.addChild(child);
+            }
+            built.set(z, parents);
+        }
+        this.levels = built;
+    }
+
+    private double cellSize(int zoom) {
+        return radiusPixels / WebMercator.worldSize(zoom);
+    }
+
+    private static long key(long cellX, long cellY) {
+        return (cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    private static long cellX(long key) {
+        return key >>> 32;
+    }
+
+    private static long cellY(long key) {
+        return key & 0xffffffffL;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Collects the clusters intersecting {@code bounds} at {@code zoom}. Above
+     * {@code maxZoom} every point is returned as a cluster of one.
+     */
+    public void query(double zoom, BoundingBox bounds, List<Cluster> out) {
+        if (ids.length == 0) {
+            return;
+        }
+        int z = (int) Math.max(0, Math.min(maxZoom, Math.floor(zoom)));
+        Map<Long, Cluster> level = levels.get(z);
+        double cellSize = cellSize(z);
+
+        long minX = (long) Math.floor(WebMercator.lonToX(bounds.getMinLon()) / cellSize);
+        long maxX = (long) Math.floor(WebMercator.lonToX(bounds.getMaxLon()) / cellSize);
+        long minY = (long) Math.floor(WebMercator.latToY(bounds.getMaxLat()) / cellSize);
+        long maxY = (long) Math.floor(WebMercator.latToY(bounds.getMinLat()) / cellSize);
+
+        boolean expand = Math.floor(zoom) > maxZoom;
+        long cells = (maxX - minX + 1) * (maxY - minY + 1);
+        if (cells < level.size()) {
+            for (long x = minX; x <= maxX; x++) {
+                for (long y = minY; y <= maxY; y++) {
+                    Cluster cluster = level.get(key(x, y));
+                    if (cluster != null) {
+                        add(cluster, expand, bounds, out);
+                    }
+                }
+            }
+        } else {
+            for (Cluster cluster : level.values()) {
+                long x = cellX(cluster.key);
+                long y = cellY(cluster.key);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    add(cluster, expand, bounds, out);
+                }
+            }
+        }
+    }
+
+    private void add(Cluster cluster, boolean expand, BoundingBox bounds, List<Cluster> out) {
+        if (!expand || cluster.count == 1) {
+            out.add(cluster);
+            return;
+        }
+        for (int i = 0; i < cluster.memberCount; i++) {
+            int index = cluster.members[i];
+            if (bounds.contains(WebMercator.yToLat(ys[index]), WebMercator.xToLon(xs[index]))) {
+                Cluster single = new Cluster(maxZoom + 1, index, true);
+                single.addMember(index, xs[index], ys[index]);
+                out.add(single);
+            }
+        }
+    }
+
+    /**
+     * @return id of the only point in {@code cluster}, or null if it holds several
+     */
+    public String getSingleId(Cluster cluster) {
+        if (cluster.count != 1) {
+            return null;
+        }
+        List<Integer> members = new ArrayList<>(1);
+        cluster.collectMembers(members);
+        return ids[members.get(0)];
+    }
+
+    public List<String> getMemberIds(Cluster cluster) {
+        List<Integer> members = new ArrayList<>(cluster.count);
+        cluster.collectMembers(members);
+        List<String> result = new ArrayList<>(members.size());
+        for (Integer index : members) {
+            result.add(ids[index]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,335 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A large local GeoJSON file, memory mapped and indexed so its features can be read by
+ * area, on demand, rather than all at once.
+ *
+ * Accepts a FeatureCollection, a single Feature, or line delimited GeoJSON with one
+ * Feature per line (optionally separated by RFC 8142 record separators). Opening scans
+ * the mapped bytes once to find where each feature starts, and parses every feature
+ * once for its bounds. The file is never copied onto the Java heap: the page cache backs
+ * the mapping, and the feature offsets and the {@link PackedRTree} live in direct
+ * buffers, so an open dataset costs a constant amount of heap whatever its size.
+ *
+ * Features read from a dataset follow {@link GeoJsonReader}, with ids made unique to the
+ * dataset: the path the dataset was opened with, then {@value #ID_SEPARATOR} and the
+ * feature's id, or '#' and the position of the feature in the file for features
+ * without one. Datasets exported with ids 1 to n thus never replace each other's
+ * features, nor annotations from JS, in a map's store.
+ *
+ * The file stays open until {@link #close()}, which also lets go of the mapping and the
+ * index rather than leaving them to the garbage collector.
+ *
+ * Not thread safe; the annotation pipeline only uses it from its parser thread.
+ */
+public final class GeoJsonDataset implements Closeable {
+
+    private static final byte[] FEATURES = {'f', 'e', 'a', 't', 'u', 'r', 'e', 's'};
+    private static final byte RECORD_SEPARATOR = 0x1E;
+
+    public static final String ID_SEPARATOR = ":";
+
+    private final String name;
+    private final RandomAccessFile file;
+    private final int length;
+    private final GeoJsonReader parser;
+    private MappedByteBuffer data;
+    private ByteBufferReader reader;
+
+    private IntBuffer starts = PackedRTree.allocateInts(1024);
+    private int featureCount;
+    private int skippedCount;
+    private PackedRTree index;
+    private int indexedCount;
+    private long indexNanos;
+
+    /**
+     * Maps and indexes a file; takes about as long as parsing it once.
+     *
+     * @param path a file path, optionally with a file:// scheme
+     * @throws IOException if the file cannot be read or its structure is not GeoJSON
+     */
+    public static GeoJsonDataset open(String path) throws IOException {
+        File file = new File(path.startsWith("file://") ? path.substring("file://".length()) : path);
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            long size = input.length();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Datasets over 2 GB are not supported");
+            }
+            MappedByteBuffer data = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            GeoJsonDataset dataset = new GeoJsonDataset(file.getName(), path, input, data);
+            dataset.buildIndex();
+            return dataset;
+        } catch (IOException | RuntimeException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    private GeoJsonDataset(String name, String path, RandomAccessFile file, MappedByteBuffer data) {
+        this.name = name;
+        this.file = file;
+        this.data = data;
+        this.length = data.limit();
+        this.reader = new ByteBufferReader(data);
+        this.parser = new GeoJsonReader(null, path + ID_SEPARATOR, path + AnnotationParser.ID_PREFIX_POSITIONAL);
+    }
+
+    private void buildIndex() throws IOException {
+        long start = System.nanoTime();
+        int position = 0;
+        while (true) {
+            position = skipWhitespace(position);
+            if (position >= length) {
+                break;
+            }
+            if (data.get(position) != '{') {
+                throw syntaxError("Expected an object", position);
+            }
+            position = scanTopLevelObject(position);
+        }
+
+        PackedRTree.Builder builder = new PackedRTree.Builder();
+        for (int feature = 0; feature < featureCount; feature++) {
+            AnnotationSpec spec = parse(feature);
+            if (spec == null) {
+                skippedCount++;
+                continue;
+            }
+            BoundingBox bounds = spec.getBounds();
+            builder.add(feature, bounds.getMinLat(), bounds.getMinLon(), bounds.getMaxLat(), bounds.getMaxLon());
+        }
+        index = builder.build();
+        indexedCount = index.size();
+        indexNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Scans one top level object. The elements of a "features" array become features;
+     * an object without one is a feature itself.
+     *
+     * @return the position after the object
+     */
+    private int scanTopLevelObject(int start) throws IOException {
+        int position = start + 1;
+        boolean collection = false;
+        while (true) {
+            position = skipWhitespace(position);
+            if (position >= length) {
+                throw syntaxError("Unexpected end of file", position);
+            }
+            byte b = data.get(position);
+            if (b == '}') {
+                position++;
+                break;
+            }
+            if (b == ',') {
+                position++;
+                continue;
+            }
+            if (b != '"') {
+                throw syntaxError("Expected a member name", position);
+            }
+            int keyStart = position + 1;
+            position = skipString(position);
+            boolean features = matches(keyStart, position - 1, FEATURES);
+            position = skipWhitespace(position);
+            if (position >= length || data.get(position) != ':') {
+                throw syntaxError("Expected ':'", position);
+            }
+            position = skipWhitespace(position + 1);
+            if (features && position < length && data.get(position) == '[') {
+                collection = true;
+                position = scanFeatureArray(position);
+            } else {
+                position = skipValue(position);
+            }
+        }
+        if (!collection) {
+            addFeature(start);
+        }
+        return position;
+    }
+
+    private int scanFeatureArray(int start) throws IOException {
+        int position = start + 1;
+        while (true) {
+            position = skipWhitespace(position);
+            if (position >= length) {
+                throw syntaxError("Unexpected end of file", position);
+            }
+            byte b = data.get(position);
+            if (b == ']') {
+                return position + 1;
+            }
+            if (b == ',') {
+                position++;
+                continue;
+            }
+            if (b == '{') {
+                addFeature(position);
+            }
+            position = skipValue(position);
+        }
+    }
+
+    private void addFeature(int start) {
+        if (featureCount == starts.capacity()) {
+            starts = PackedRTree.growInts(starts, starts.capacity() * 2);
+        }
+        starts.put(featureCount++, start);
+    }
+
+    private int skipValue(int position) throws IOException {
+        byte b = data.get(position);
+        if (b == '"') {
+            return skipString(position);
+        }
+        if (b == '{' || b == '[') {
+            int depth = 0;
+            while (position < length) {
+                b = data.get(position);
+                if (b == '"') {
+                    position = skipString(position);
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0) {
+                        return position + 1;
+                    }
+                }
+                position++;
+            }
+            throw syntaxError("Unexpected end of file", position);
+        }
+        while (position < length) {
+            b = data.get(position);
+            if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private int skipString(int position) throws IOException {
+        position++;
+        while (position < length) {
+            byte b = data.get(position);
+            if (b == '\\') {
+                position += 2;
+            } else if (b == '"') {
+                return position + 1;
+            } else {
+                position++;
+            }
+        }
+        throw syntaxError("Unterminated string", position);
+    }
+
+    private int skipWhitespace(int position) {
+        while (position < length && isWhitespace(data.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == RECORD_SEPARATOR;
+    }
+
+    private boolean matches(int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (data.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IOException syntaxError(String message, int position) {
+        return new IOException(message + " at offset " + position + " of " + name);
+    }
+
+    /**
+     * Adds the features whose bounds intersect {@code box} to {@code out}.
+     */
+    public void query(BoundingBox box, PackedRTree.Results out) {
+        if (index != null) {
+            index.query(box, out);
+        }
+    }
+
+    /**
+     * Parses a feature from the mapped file.
+     *
+     * @param feature position of the feature in the file, as returned by {@link #query}
+     * @return the feature, or null if it cannot be read or the dataset is closed
+     */
+    public AnnotationSpec read(int feature) {
+        return data != null ? parse(feature) : null;
+    }
+
+    private AnnotationSpec parse(int feature) {
+        // a feature ends at the latest where the next one starts; the parser stops at its end
+        int start = starts.get(feature);
+        int end = feature + 1 < featureCount ? starts.get(feature + 1) : length;
+        try {
+            return parser.readFeature(reader.reset(start, end), feature);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Closes the file and drops the mapping and the index; queries find nothing from then on.
+     */
+    @Override
+    public void close() throws IOException {
+        data = null;
+        reader = null;
+        starts = null;
+        index = null;
+        file.close();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of features that can be queried
+     */
+    public int getFeatureCount() {
+        return indexedCount;
+    }
+
+    /**
+     * @return the number of features left out because they could not be read
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    public long getByteCount() {
+        return length;
+    }
+
+    public long getIndexNanos() {
+        return indexNanos;
+    }
+}
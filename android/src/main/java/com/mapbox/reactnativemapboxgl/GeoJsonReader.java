@@ -0,0 +1,738 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.graphics.Color;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming reader turning a GeoJSON FeatureCollection, or a single Feature, into
+ * {@link AnnotationSpec}s without building a tree of the document.
+ *
+ * The input is tokenized from a fixed size buffer. Coordinates go straight into a
+ * reused buffer and end up in the packed array of the spec; properties other than the
+ * ones annotations use are skipped without being decoded. Apart from the specs
+ * themselves, memory use does not grow with the size of the input.
+ *
+ * Point, LineString and Polygon geometries are read, polygons with their holes.
+ * Features with other or invalid geometries are counted as skipped. The annotation id
+ * is the feature's {@code id}, else {@code properties.id}, else its position in the
+ * collection after a prefix. A reader can also prefix every id, to keep the ids of
+ * several sources apart. Of the properties, {@code title}, {@code subtitle},
+ * {@code alpha}, {@code strokeColor}, {@code fillColor} and {@code strokeWidth} are
+ * used like the annotation fields of the same name.
+ *
+ * Syntax errors abort the read with an {@link IOException}; features handed to the
+ * sink before that stay handed over.
+ */
+public final class GeoJsonReader {
+
+    private static final String TAG = GeoJsonReader.class.getSimpleName();
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+    private static final String FILE_SCHEME = "file://";
+
+    private static final int GEOMETRY_NONE = -1;
+    private static final int GEOMETRY_UNSUPPORTED = -2;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Opens the input; called on the thread that reads it.
+     */
+    public interface Source {
+        Reader open() throws IOException;
+    }
+
+    public interface Sink {
+        /**
+         * @param features a batch of features in document order, owned by the sink
+         */
+        void onFeatures(List<AnnotationSpec> features);
+    }
+
+    public static Source fromString(final String geoJson) {
+        return new Source() {
+            @Override
+            public Reader open() {
+                return new StringReader(geoJson);
+            }
+        };
+    }
+
+    /**
+     * @param path a file path, optionally with a file:// scheme
+     */
+    public static Source fromFile(final String path) {
+        return new Source() {
+            @Override
+            public Reader open() throws IOException {
+                String file = path.startsWith(FILE_SCHEME) ? path.substring(FILE_SCHEME.length()) : path;
+                return new InputStreamReader(new FileInputStream(new File(file)), UTF_8);
+            }
+        };
+    }
+
+    private final String idPrefix;
+    private final String positionalIdPrefix;
+    private Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long offset;
+
+    // reused for keys, string values and the slow path of number parsing
+    private final StringBuilder text = new StringBuilder();
+
+    // the feature being read
+    private int geometryType;
+    private double[] coordinates = new double[256];
+    private int coordinateCount;
+    private int[] ringEnds = new int[8];
+    private int ringCount;
+    private int positionDepth;
+    private String id;
+    private String propertyId;
+    private String title;
+    private String subtitle;
+    private float alpha;
+    private String strokeColor;
+    private String fillColor;
+    private float strokeWidth;
+
+    private Sink sink;
+    private int batchSize;
+    private List<AnnotationSpec> batch;
+    private int featureIndex;
+    private int featureCount;
+    private int skippedCount;
+
+    public GeoJsonReader(Reader in) {
+        this(in, "", AnnotationParser.ID_PREFIX_POSITIONAL);
+    }
+
+    /**
+     * @param in                 the input, or null when only {@link #readFeature(Reader, int)} is used
+     * @param idPrefix           prefix of the ids features have
+     * @param positionalIdPrefix prefix of the ids of features without one
+     */
+    public GeoJsonReader(Reader in, String idPrefix, String positionalIdPrefix) {
+        this.in = in;
+        this.idPrefix = idPrefix;
+        this.positionalIdPrefix = positionalIdPrefix;
+    }
+
+    /**
+     * Reads the whole input and closes it.
+     *
+     * @throws IOException if the input cannot be read or is not valid JSON
+     */
+    public void read(Sink sink, int batchSize) throws IOException {
+        this.sink = sink;
+        this.batchSize = Math.max(1, batchSize);
+        this.batch = new ArrayList<>(this.batchSize);
+        try {
+            resetFeature();
+            readFeatureObject(true);
+            if (peek() != -1) {
+                throw syntaxError("Unexpected content after the document");
+            }
+            flush();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads a single Feature object, ignoring whatever follows it. The buffers of this
+     * reader are reused from one call to the next. Does not close {@code in}.
+     *
+     * @param index position of the feature in its collection, for the positional id
+     * @return the feature, or null if it is skipped
+     */
+    public AnnotationSpec readFeature(Reader in, int index) throws IOException {
+        this.in = in;
+        position = 0;
+        limit = 0;
+        offset = 0;
+        featureIndex = index;
+        batchSize = Integer.MAX_VALUE;
+        if (batch == null) {
+            batch = new ArrayList<>(1);
+        }
+        resetFeature();
+        readFeatureObject(false);
+        return batch.isEmpty() ? null : batch.remove(0);
+    }
+
+    /**
+     * @return the number of features handed to the sink
+     */
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+    /**
+     * @return the number of features left out because of their geometry or properties
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Reads a FeatureCollection or Feature object. Members may come in any order, so the
+     * parts of a feature are collected until the object ends and its type is known.
+     */
+    private void readFeatureObject(boolean topLevel) throws IOException {
+        expect('{');
+        boolean feature = false;
+        if (!consume('}')) {
+            do {
+                readKey();
+                if (topLevel && equal(text, "features")) {
+                    readFeatures();
+                } else if (equal(text, "type")) {
+                    readString();
+                    feature = equal(text, "Feature");
+                } else if (equal(text, "geometry")) {
+                    readGeometry();
+                } else if (equal(text, "properties")) {
+                    readProperties();
+                } else if (equal(text, "id")) {
+                    id = readScalar();
+                } else {
+                    skipValue();
+                }
+            } while (consume(','));
+            expect('}');
+        }
+        if (feature) {
+            finishFeature();
+        }
+        resetFeature();
+    }
+
+    private void readFeatures() throws IOException {
+        expect('[');
+        if (consume(']')) {
+            return;
+        }
+        do {
+            resetFeature();
+            readFeatureObject(false);
+        } while (consume(','));
+        expect(']');
+    }
+
+    private void readGeometry() throws IOException {
+        if (peek() == 'n') {
+            readLiteral();
+            return;
+        }
+        expect('{');
+        if (consume('}')) {
+            return;
+        }
+        do {
+            readKey();
+            if (equal(text, "type")) {
+                readString();
+                if (equal(text, "Point")) {
+                    geometryType = AnnotationSpec.TYPE_POINT;
+                } else if (equal(text, "LineString")) {
+                    geometryType = AnnotationSpec.TYPE_POLYLINE;
+                } else if (equal(text, "Polygon")) {
+                    geometryType = AnnotationSpec.TYPE_POLYGON;
+                } else {
+                    geometryType = GEOMETRY_UNSUPPORTED;
+                }
+            } else if (equal(text, "coordinates")) {
+                coordinateCount = 0;
+                ringCount = 0;
+                positionDepth = 0;
+                readPositions(1);
+            } else {
+                skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+    }
+
+    /**
+     * Reads nested coordinate arrays of any depth. Positions are [lon, lat, ...] and are
+     * packed as [lat, lon]; the end of every array directly holding positions is recorded
+     * as a ring end.
+     */
+    private void readPositions(int depth) throws IOException {
+        expect('[');
+        int c = peek();
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            if (positionDepth != 0 && positionDepth != depth) {
+                positionDepth = -1;
+            } else {
+                positionDepth = depth;
+            }
+            double lon = readNumber();
+            expect(',');
+            double lat = readNumber();
+            while (consume(',')) {
+                readNumber();
+            }
+            expect(']');
+            appendCoordinate(lat, lon);
+            return;
+        }
+        if (!consume(']')) {
+            do {
+                readPositions(depth + 1);
+            } while (consume(','));
+            expect(']');
+        }
+        if (depth == positionDepth - 1) {
+            appendRingEnd(coordinateCount);
+        }
+    }
+
+    private void appendCoordinate(double lat, double lon) {
+        if (coordinateCount + 2 > coordinates.length) {
+            double[] grown = new double[coordinates.length * 2];
+            System.arraycopy(coordinates, 0, grown, 0, coordinateCount);
+            coordinates = grown;
+        }
+        coordinates[coordinateCount++] = lat;
+        coordinates[coordinateCount++] = lon;
+    }
+
+    private void appendRingEnd(int end) {
+        if (ringCount == ringEnds.length) {
+            int[] grown = new int[ringEnds.length * 2];
+            System.arraycopy(ringEnds, 0, grown, 0, ringCount);
+            ringEnds = grown;
+        }
+        ringEnds[ringCount++] = end;
+    }
+
+    private void readProperties() throws IOException {
+        if (peek() == 'n') {
+            readLiteral();
+            return;
+        }
+        expect('{');
+        if (consume('}')) {
+            return;
+        }
+        do {
+            readKey();
+            if (equal(text, "title")) {
+                title = readScalar();
+            } else if (equal(text, "subtitle")) {
+                subtitle = readScalar();
+            } else if (equal(text, "id")) {
+                propertyId = readScalar();
+            } else if (equal(text, "strokeColor")) {
+                strokeColor = readScalar();
+            } else if (equal(text, "fillColor")) {
+                fillColor = readScalar();
+            } else if (equal(text, "alpha")) {
+                alpha = readFloat();
+            } else if (equal(text, "strokeWidth")) {
+                strokeWidth = readFloat();
+            } else {
+                skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+    }
+
+    private void finishFeature() {
+        int index = featureIndex++;
+        AnnotationSpec spec;
+        try {
+            spec = buildFeature(index);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Skipping invalid feature at index " + index + ": " + e.getMessage());
+            spec = null;
+        }
+        if (spec == null) {
+            skippedCount++;
+            return;
+        }
+        batch.add(spec);
+        featureCount++;
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private AnnotationSpec buildFeature(int index) {
+        int length;
+        switch (geometryType) {
+            case AnnotationSpec.TYPE_POINT:
+                if (positionDepth != 1) {
+                    return null;
+                }
+                length = 2;
+                break;
+            case AnnotationSpec.TYPE_POLYLINE:
+                if (positionDepth != 2 || coordinateCount < 4) {
+                    return null;
+                }
+                length = coordinateCount;
+                break;
+            case AnnotationSpec.TYPE_POLYGON:
+                if (positionDepth != 3 || ringCount == 0 || ringEnds[0] < 6) {
+                    return null;
+                }
+                length = ringEnds[0];
+                break;
+            default:
+                return null;
+        }
+        double[] packed = new double[length];
+        System.arraycopy(coordinates, 0, packed, 0, length);
+        double[][] holes = null;
+        if (geometryType == AnnotationSpec.TYPE_POLYGON && ringCount > 1) {
+            holes = new double[ringCount - 1][];
+            for (int r = 1; r < ringCount; r++) {
+                holes[r - 1] = Arrays.copyOfRange(coordinates, ringEnds[r - 1], ringEnds[r]);
+            }
+        }
+
+        String annotationId = id != null ? id : propertyId;
+        AnnotationSpec.Builder builder = new AnnotationSpec.Builder()
+                .id(annotationId != null ? idPrefix + annotationId : positionalIdPrefix + index)
+                .type(geometryType)
+                .coordinates(packed)
+                .title(title)
+                .subtitle(subtitle)
+                .alpha(alpha)
+                .strokeWidth(strokeWidth);
+        if (holes != null) {
+            builder.holes(holes);
+        }
+        if (strokeColor != null) {
+            builder.strokeColor(Color.parseColor(strokeColor));
+        }
+        if (fillColor != null) {
+            builder.fillColor(Color.parseColor(fillColor));
+        }
+        return builder.build();
+    }
+
+    private void resetFeature() {
+        geometryType = GEOMETRY_NONE;
+        coordinateCount = 0;
+        ringCount = 0;
+        positionDepth = 0;
+        id = null;
+        propertyId = null;
+        title = null;
+        subtitle = null;
+        alpha = Float.NaN;
+        strokeColor = null;
+        fillColor = null;
+        strokeWidth = Float.NaN;
+    }
+
+    private void flush() {
+        if (!batch.isEmpty()) {
+            sink.onFeatures(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    // tokenizer
+
+    private int peek() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\uFEFF') {
+                position++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    private char next() throws IOException {
+        if (position == limit && !fill()) {
+            throw syntaxError("Unexpected end of input");
+        }
+        return buffer[position++];
+    }
+
+    private boolean consume(char expected) throws IOException {
+        if (peek() == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (!consume(expected)) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    private void readKey() throws IOException {
+        readString();
+        expect(':');
+    }
+
+    /**
+     * Reads a string into {@link #text}.
+     */
+    private void readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return;
+            }
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            c = next();
+            switch (c) {
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw syntaxError("Invalid unicode escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                    break;
+                default:
+                    text.append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads a string or number as text. Integral numbers are written without a fraction,
+     * the way {@link AnnotationParser} writes numeric ids.
+     *
+     * @return the value, or null for null and for values that are neither
+     */
+    private String readScalar() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+            return text.toString();
+        }
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            double value = readNumber();
+            return value == Math.rint(value) && !Double.isInfinite(value)
+                    ? Long.toString((long) value) : Double.toString(value);
+        }
+        skipValue();
+        return null;
+    }
+
+    private float readFloat() throws IOException {
+        int c = peek();
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            return (float) readNumber();
+        }
+        skipValue();
+        return Float.NaN;
+    }
+
+    /**
+     * Parses a number without allocating when its significand has at most 15 digits and
+     * its decimal exponent is small, which covers coordinates. Both factors are then
+     * exact doubles, so a single multiplication or division rounds correctly.
+     */
+    private double readNumber() throws IOException {
+        text.setLength(0);
+        boolean negative = false;
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+
+        int c = peek();
+        if (c == '-') {
+            negative = true;
+            text.append('-');
+            position++;
+        }
+        boolean fraction = false;
+        while (true) {
+            c = peekRaw();
+            if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                if (significand != 0 || c != '0') {
+                    if (digits < 18) {
+                        significand = significand * 10 + (c - '0');
+                        if (fraction) {
+                            exponent--;
+                        }
+                    } else if (!fraction) {
+                        exponent++;
+                    }
+                    digits++;
+                } else if (fraction) {
+                    exponent--;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            text.append((char) c);
+            position++;
+        }
+        if (!sawDigit) {
+            throw syntaxError("Invalid number");
+        }
+        if (c == 'e' || c == 'E') {
+            text.append((char) c);
+            position++;
+            c = peekRaw();
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') {
+                text.append((char) c);
+                position++;
+            }
+            int explicit = 0;
+            boolean sawExponentDigit = false;
+            while ((c = peekRaw()) >= '0' && c <= '9') {
+                sawExponentDigit = true;
+                explicit = Math.min(explicit * 10 + (c - '0'), 100000);
+                text.append((char) c);
+                position++;
+            }
+            if (!sawExponentDigit) {
+                throw syntaxError("Invalid number");
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+
+        double value;
+        if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+            value = exponent >= 0 ? significand * POWERS_OF_TEN[exponent] : significand / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(text.toString());
+    }
+
+    /**
+     * @return the next character without skipping whitespace, or -1 at the end
+     */
+    private int peekRaw() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private void readLiteral() throws IOException {
+        text.setLength(0);
+        int c;
+        while ((c = peekRaw()) >= 'a' && c <= 'z') {
+            text.append((char) c);
+            position++;
+        }
+        if (!equal(text, "null") && !equal(text, "true") && !equal(text, "false")) {
+            throw syntaxError("Invalid literal");
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c == '{') {
+            position++;
+            if (!consume('}')) {
+                do {
+                    readKey();
+                    skipValue();
+                } while (consume(','));
+                expect('}');
+            }
+        } else if (c == '[') {
+            position++;
+            if (!consume(']')) {
+                do {
+                    skipValue();
+                } while (consume(','));
+                expect(']');
+            }
+        } else if (c == '"') {
+            readString();
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            readNumber();
+        } else {
+            readLiteral();
+        }
+    }
+
+    private static boolean equal(StringBuilder text, String value) {
+        int length = value.length();
+        if (text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at offset " + (offset + position));
+    }
+}
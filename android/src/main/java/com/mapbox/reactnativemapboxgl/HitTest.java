@@ -0,0 +1,62 @@
+package com.mapbox.reactnativemapboxgl;
+
+/**
+ * Distances between a tapped point and annotation geometry, in screen pixels at a
+ * given zoom. Distances are measured in web mercator space, so they match what the map
+ * draws whatever the latitude; camera tilt is not taken into account.
+ */
+public final class HitTest {
+
+    public static final double DEFAULT_RADIUS_PIXELS = 22;
+
+    private HitTest() {
+    }
+
+    /**
+     * @return a box around a point covering {@code pixels} in every direction at {@code zoom}
+     */
+    public static BoundingBox around(double lat, double lon, double pixels, double zoom) {
+        double radius = pixels / WebMercator.worldSize(zoom);
+        double x = WebMercator.lonToX(lon);
+        double y = WebMercator.latToY(lat);
+        return new BoundingBox(WebMercator.yToLat(y + radius), WebMercator.xToLon(x - radius),
+                WebMercator.yToLat(y - radius), WebMercator.xToLon(x + radius));
+    }
+
+    /**
+     * @param coordinates packed [lat, lon, ...] coordinates as drawn; for a polygon the
+     *                    single ring with its holes cut in, see {@link PolygonGeometry}
+     * @return distance in pixels from (lat, lon) to the geometry, 0 inside a polygon
+     */
+    public static double distance(int type, double[] coordinates, double lat, double lon, double zoom) {
+        double worldSize = WebMercator.worldSize(zoom);
+        double x = WebMercator.lonToX(lon);
+        double y = WebMercator.latToY(lat);
+        int count = coordinates.length / 2;
+        if (type == AnnotationSpec.TYPE_POINT || count == 1) {
+            double dx = WebMercator.lonToX(coordinates[1]) - x;
+            double dy = WebMercator.latToY(coordinates[0]) - y;
+            return Math.sqrt(dx * dx + dy * dy) * worldSize;
+        }
+
+        boolean polygon = type == AnnotationSpec.TYPE_POLYGON;
+        boolean inside = false;
+        double minSqDist = Double.POSITIVE_INFINITY;
+        // a polygon ring is closed whether or not its last vertex repeats the first
+        int first = polygon ? count - 1 : 0;
+        double ax = WebMercator.lonToX(coordinates[first * 2 + 1]);
+        double ay = WebMercator.latToY(coordinates[first * 2]);
+        for (int i = polygon ? 0 : 1; i < count; i++) {
+            double bx = WebMercator.lonToX(coordinates[i * 2 + 1]);
+            double by = WebMercator.latToY(coordinates[i * 2]);
+            minSqDist = Math.min(minSqDist, PolylineSimplifier.sqSegmentDistance(x, y, ax, ay, bx, by));
+            // even-odd crossing test; bridge edges of cut in holes cancel out
+            if (polygon && (ay > y) != (by > y) && x < (bx - ax) * (y - ay) / (by - ay) + ax) {
+                inside = !inside;
+            }
+            ax = bx;
+            ay = by;
+        }
+        return inside ? 0 : Math.sqrt(minSqDist) * worldSize;
+    }
+}
@@ -0,0 +1,372 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads annotation images off the UI thread.
+ *
+ * Requests for the same image are coalesced while in flight. Decoded icons are kept
+ * in a memory LRU bounded by bitmap bytes, downloaded files in a size bounded disk
+ * cache evicted by last use. Callbacks are always delivered on the main thread.
+ */
+public class IconLoader {
+
+    private static final String TAG = IconLoader.class.getSimpleName();
+
+    public static final int DEFAULT_MEMORY_CACHE_BYTES = 4 * 1024 * 1024;
+    public static final long DEFAULT_DISK_CACHE_BYTES = 16 * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 15000;
+
+    private static IconLoader instance;
+
+    public interface Callback {
+        void onIconLoaded(Icon icon);
+
+        void onIconFailed(String url, Exception e);
+    }
+
+    /**
+     * Opens the raw bytes of an image url. Swap in a different implementation to
+     * serve images from somewhere else, e.g. a local HTTP stand-in.
+     */
+    public interface Fetcher {
+        InputStream open(String url) throws IOException;
+    }
+
+    public static class UrlFetcher implements Fetcher {
+        @Override
+        public InputStream open(String url) throws IOException {
+            URLConnection connection = new URL(url).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            if (connection instanceof HttpURLConnection) {
+                int code = ((HttpURLConnection) connection).getResponseCode();
+                if (code < 200 || code >= 300) {
+                    ((HttpURLConnection) connection).disconnect();
+                    throw new IOException("HTTP " + code + " for " + url);
+                }
+            }
+            return connection.getInputStream();
+        }
+    }
+
+    private final IconFactory iconFactory;
+    private final Fetcher fetcher;
+    private final File diskDir;
+    private final long diskCacheBytes;
+    private final float density;
+    private final LruCache<String, Icon> memoryCache;
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "mapbox-icons");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private long memoryHits;
+    private long coalesced;
+    private volatile long diskHits;
+    private volatile long fetches;
+    private volatile long failures;
+
+    public static synchronized IconLoader getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new IconLoader(app, new UrlFetcher(), new File(app.getCacheDir(), "mapbox-icons"),
+                    DEFAULT_MEMORY_CACHE_BYTES, DEFAULT_DISK_CACHE_BYTES);
+        }
+        return instance;
+    }
+
+    public IconLoader(Context context, Fetcher fetcher, File diskDir, int memoryCacheBytes, long diskCacheBytes) {
+        this.iconFactory = IconFactory.getInstance(context);
+        this.fetcher = fetcher;
+        this.diskDir = diskDir;
+        this.diskCacheBytes = diskCacheBytes;
+        this.density = context.getResources().getDisplayMetrics().density;
+        this.memoryCache = new LruCache<String, Icon>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Icon icon) {
+                return icon.getBitmap().getByteCount();
+            }
+        };
+    }
+
+    private static String key(String url, int width, int height) {
+        return url + "@" + width + "x" + height;
+    }
+
+    /**
+     * @return the icon if it is already decoded in memory, null otherwise
+     */
+    public Icon getCached(String url, int width, int height) {
+        Icon icon = memoryCache.get(key(url, width, height));
+        if (icon != null) {
+            memoryHits++;
+        }
+        return icon;
+    }
+
+    /**
+     * Loads {@code url} scaled to {@code width} x {@code height} dp (0 keeps the image size).
+     * Must be called on the main thread.
+     */
+    public void load(final String url, final int width, final int height, Callback callback) {
+        final String key = key(url, width, height);
+        Icon icon = memoryCache.get(key);
+        if (icon != null) {
+            memoryHits++;
+            callback.onIconLoaded(icon);
+            return;
+        }
+
+        List<Callback> waiting = inFlight.get(key);
+        if (waiting != null) {
+            coalesced++;
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<>(2);
+        waiting.add(callback);
+        inFlight.put(key, waiting);
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap bitmap = null;
+                Exception error = null;
+                try {
+                    bitmap = decode(readBytes(url), width, height);
+                    if (bitmap == null) {
+                        error = new IOException("Could not decode " + url);
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+                final Bitmap result = bitmap;
+                final Exception failure = error;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(key, url, result, failure);
+                    }
+                });
+            }
+        });
+    }
+
+    private void deliver(String key, String url, Bitmap bitmap, Exception error) {
+        List<Callback> waiting = inFlight.remove(key);
+        if (bitmap == null) {
+            failures++;
+            Log.w(TAG, "Failed to load icon " + url + ": " + error.getMessage());
+            for (Callback callback : waiting) {
+                callback.onIconFailed(url, error);
+            }
+            return;
+        }
+        Icon icon = iconFactory.fromBitmap(bitmap);
+        memoryCache.put(key, icon);
+        for (Callback callback : waiting) {
+            callback.onIconLoaded(icon);
+        }
+    }
+
+    private byte[] readBytes(String url) throws IOException {
+        File cached = diskDir != null ? new File(diskDir, hash(url)) : null;
+        if (cached != null && cached.isFile()) {
+            diskHits++;
+            cached.setLastModified(System.currentTimeMillis());
+            return readFully(new FileInputStream(cached));
+        }
+
+        fetches++;
+        byte[] bytes = readFully(fetcher.open(url));
+        if (cached != null) {
+            writeToDisk(cached, bytes);
+        }
+        return bytes;
+    }
+
+    private synchronized void writeToDisk(File file, byte[] bytes) {
+        if (!diskDir.isDirectory() && !diskDir.mkdirs()) {
+            return;
+        }
+        File temp = new File(diskDir, file.getName() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(bytes);
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to cache icon on disk: " + e.getMessage());
+            temp.delete();
+        } finally {
+            closeQuietly(out);
+        }
+        trimDisk();
+    }
+
+    private void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= diskCacheBytes) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long diff = a.lastModified() - b.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for (File file : files) {
+            if (total <= diskCacheBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Decodes {@code bytes} for a {@code width} x {@code height} dp target, subsampling
+     * large images while decoding rather than after.
+     */
+    private Bitmap decode(byte[] bytes, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, null);
+        }
+        int targetWidth = Math.round(width * density);
+        int targetHeight = Math.round(height * density);
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= targetWidth
+                && options.outHeight / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (bitmap == null || (bitmap.getWidth() == targetWidth && bitmap.getHeight() == targetHeight)) {
+            return bitmap;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, targetWidth, targetHeight, true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // nothing left to do
+            }
+        }
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public long getDiskHits() {
+        return diskHits;
+    }
+
+    public long getFetches() {
+        return fetches;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public int getMemoryCacheBytes() {
+        return memoryCache.size();
+    }
+}
@@ -0,0 +1,317 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which user location fixes are reported to JS, and how many at a time.
+ *
+ * The location provider delivers fixes far more often than a screen needs them, many
+ * of them too inaccurate or too close to the previous one to matter. Fixes less
+ * accurate than a maximum are dropped first; the rest can be smoothed with a Kalman
+ * filter weighing every fix by its accuracy; then fixes closer than a minimum distance
+ * to the last accepted one are dropped. Accepted fixes are buffered and reported
+ * together once there are {@code batchSize} of them, or once the oldest has waited
+ * {@code maxLatencyMillis}, whichever comes first. Every report carries the number of
+ * fixes dropped since the previous one.
+ *
+ * Must only be used from the UI thread.
+ */
+public class LocationEmitter {
+
+    public static final double DEFAULT_MAX_ACCURACY_METERS = 50;
+    public static final double DEFAULT_MIN_DISPLACEMENT_METERS = 5;
+    public static final int DEFAULT_BATCH_SIZE = 1;
+    public static final int DEFAULT_MAX_LATENCY_MILLIS = 1000;
+
+    // how fast the smoothed position may drift from the last fix, in meters per second
+    private static final double SMOOTHING_SPEED = 3;
+    private static final double MIN_ACCURACY_METERS = 1;
+
+    public interface Listener {
+        /**
+         * @param fixes                oldest first, at least one
+         * @param accuracyFiltered     fixes dropped for their accuracy since the last call
+         * @param displacementFiltered fixes dropped as too close since the last call
+         */
+        void onLocations(List<Fix> fixes, int accuracyFiltered, int displacementFiltered);
+    }
+
+    /**
+     * One accepted fix, smoothed if smoothing is on.
+     */
+    public static final class Fix {
+        private final long time;
+        private final double latitude;
+        private final double longitude;
+        private final double accuracy;
+        private final double altitude;
+        private final double bearing;
+        private final double speed;
+
+        public Fix(long time, double latitude, double longitude, double accuracy, double altitude, double bearing, double speed) {
+            this.time = time;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.accuracy = accuracy;
+            this.altitude = altitude;
+            this.bearing = bearing;
+            this.speed = speed;
+        }
+
+        /**
+         * @return milliseconds since the epoch, as reported by the provider
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        /**
+         * @return estimated error in meters; for a smoothed fix the error of the estimate
+         */
+        public double getAccuracy() {
+            return accuracy;
+        }
+
+        public double getAltitude() {
+            return altitude;
+        }
+
+        public double getBearing() {
+            return bearing;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+    }
+
+    private static final Metrics.Counter RECEIVED = Metrics.counter("location.received");
+    private static final Metrics.Counter ACCURACY_FILTERED = Metrics.counter("location.accuracyFiltered");
+    private static final Metrics.Counter DISPLACEMENT_FILTERED = Metrics.counter("location.displacementFiltered");
+    private static final Metrics.Counter EVENTS = Metrics.counter("location.events");
+
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private boolean enabled = true;
+    private double maxAccuracyMeters = DEFAULT_MAX_ACCURACY_METERS;
+    private double minDisplacementMeters = DEFAULT_MIN_DISPLACEMENT_METERS;
+    private boolean smoothing;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long maxLatencyMillis = DEFAULT_MAX_LATENCY_MILLIS;
+
+    private List<Fix> pending = new ArrayList<>();
+    private boolean hasLast;
+    private double lastLatitude;
+    private double lastLongitude;
+    private int pendingAccuracyFiltered;
+    private int pendingDisplacementFiltered;
+
+    // Kalman filter state; variance is in square meters
+    private boolean hasEstimate;
+    private long estimateTime;
+    private double estimateLatitude;
+    private double estimateLongitude;
+    private double estimateVariance;
+
+    private long received;
+    private long accuracyFiltered;
+    private long displacementFiltered;
+    private long fixesEmitted;
+    private long events;
+
+    public LocationEmitter(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param enabled false drops every fix, as when JS does not listen
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            reset();
+        }
+    }
+
+    /**
+     * @param meters fixes with a larger accuracy radius are dropped, 0 keeps all
+     */
+    public void setMaxAccuracyMeters(double meters) {
+        this.maxAccuracyMeters = Math.max(0, meters);
+    }
+
+    /**
+     * @param meters fixes closer than this to the last accepted fix are dropped, 0 keeps all
+     */
+    public void setMinDisplacementMeters(double meters) {
+        this.minDisplacementMeters = Math.max(0, meters);
+    }
+
+    public void setSmoothing(boolean smoothing) {
+        if (smoothing != this.smoothing) {
+            this.smoothing = smoothing;
+            hasEstimate = false;
+        }
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        if (pending.size() >= this.batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * @param millis longest a fix waits for its batch to fill, 0 to always wait for a full batch
+     */
+    public void setMaxLatencyMillis(long millis) {
+        this.maxLatencyMillis = Math.max(0, millis);
+        if (!pending.isEmpty()) {
+            handler.removeCallbacks(flushTask);
+            if (maxLatencyMillis > 0) {
+                handler.postDelayed(flushTask, maxLatencyMillis);
+            }
+        }
+    }
+
+    /**
+     * Call for every fix the location provider delivers.
+     */
+    public void offer(long time, double latitude, double longitude, double accuracy,
+                      double altitude, double bearing, double speed) {
+        if (!enabled) {
+            return;
+        }
+        received++;
+        RECEIVED.increment();
+        if (maxAccuracyMeters > 0 && (accuracy <= 0 || accuracy > maxAccuracyMeters)) {
+            // an accuracy of 0 means the provider does not know it
+            pendingAccuracyFiltered++;
+            accuracyFiltered++;
+            ACCURACY_FILTERED.increment();
+            return;
+        }
+
+        if (smoothing) {
+            smooth(time, latitude, longitude, accuracy);
+            latitude = estimateLatitude;
+            longitude = estimateLongitude;
+            accuracy = Math.sqrt(estimateVariance);
+        }
+
+        if (hasLast && minDisplacementMeters > 0
+                && RegionChangeEmitter.distanceMeters(lastLatitude, lastLongitude, latitude, longitude) < minDisplacementMeters) {
+            pendingDisplacementFiltered++;
+            displacementFiltered++;
+            DISPLACEMENT_FILTERED.increment();
+            return;
+        }
+        hasLast = true;
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+
+        pending.add(new Fix(time, latitude, longitude, accuracy, altitude, bearing, speed));
+        if (pending.size() >= batchSize) {
+            flush();
+        } else if (pending.size() == 1 && maxLatencyMillis > 0) {
+            handler.postDelayed(flushTask, maxLatencyMillis);
+        }
+    }
+
+    /**
+     * Kalman filter with a constant position model; uncertainty grows with the time
+     * since the last fix, so after a pause a new fix is trusted almost fully.
+     */
+    private void smooth(long time, double latitude, double longitude, double accuracy) {
+        double variance = Math.max(accuracy, MIN_ACCURACY_METERS);
+        variance *= variance;
+        if (!hasEstimate) {
+            hasEstimate = true;
+            estimateTime = time;
+            estimateLatitude = latitude;
+            estimateLongitude = longitude;
+            estimateVariance = variance;
+            return;
+        }
+        long elapsed = time - estimateTime;
+        if (elapsed > 0) {
+            estimateVariance += elapsed / 1000.0 * SMOOTHING_SPEED * SMOOTHING_SPEED;
+            estimateTime = time;
+        }
+        double gain = estimateVariance / (estimateVariance + variance);
+        estimateLatitude += gain * (latitude - estimateLatitude);
+        estimateLongitude += gain * (longitude - estimateLongitude);
+        estimateVariance *= 1 - gain;
+    }
+
+    /**
+     * Reports the buffered fixes now, if there are any.
+     */
+    public void flush() {
+        handler.removeCallbacks(flushTask);
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Fix> fixes = pending;
+        int accuracy = pendingAccuracyFiltered;
+        int displacement = pendingDisplacementFiltered;
+        pending = new ArrayList<>(batchSize);
+        pendingAccuracyFiltered = 0;
+        pendingDisplacementFiltered = 0;
+        fixesEmitted += fixes.size();
+        events++;
+        EVENTS.increment();
+        listener.onLocations(fixes, accuracy, displacement);
+    }
+
+    /**
+     * Drops buffered fixes and the smoothing state, e.g. when location updates stop.
+     */
+    public void reset() {
+        handler.removeCallbacks(flushTask);
+        pending.clear();
+        pendingAccuracyFiltered = 0;
+        pendingDisplacementFiltered = 0;
+        hasLast = false;
+        hasEstimate = false;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getAccuracyFiltered() {
+        return accuracyFiltered;
+    }
+
+    public long getDisplacementFiltered() {
+        return displacementFiltered;
+    }
+
+    public long getFixesEmitted() {
+        return fixesEmitted;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,146 @@
+package com.mapbox.reactnativemapboxgl;
+
+import com.mapbox.mapboxsdk.maps.MapView;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+/**
+ * Everything that belongs to one rendered map: the view, its map once ready, the
+ * settings received as props, the annotation state, the user location events and the
+ * track it records.
+ */
+public class MapInstance {
+
+    private final MapView mapView;
+    private final ReactNativeMapboxGLManager.MapSettings settings;
+    private final AnnotationStore annotationStore;
+    private final AnnotationPipeline annotationPipeline;
+    private final CameraController cameraController = new CameraController();
+    private RegionChangeEmitter regionChangeEmitter;
+    private LocationEmitter locationEmitter;
+    private String recordingTrack;
+    private AnnotationSpec.Builder trackOverlay;
+    private MapboxMap map;
+    private MapView.OnMapChangedListener mapChangedListener;
+    private boolean released;
+
+    MapInstance(MapView mapView, ReactNativeMapboxGLManager.MapSettings settings, AnnotationStore annotationStore) {
+        this.mapView = mapView;
+        this.settings = settings;
+        this.annotationStore = annotationStore;
+        this.annotationPipeline = new AnnotationPipeline(annotationStore);
+    }
+
+    public MapView getMapView() {
+        return mapView;
+    }
+
+    /**
+     * @return the React tag of the view, or {@link android.view.View#NO_ID} before it is assigned
+     */
+    public int getTag() {
+        return mapView.getId();
+    }
+
+    ReactNativeMapboxGLManager.MapSettings getSettings() {
+        return settings;
+    }
+
+    public AnnotationStore getAnnotationStore() {
+        return annotationStore;
+    }
+
+    public AnnotationPipeline getAnnotationPipeline() {
+        return annotationPipeline;
+    }
+
+    public CameraController getCameraController() {
+        return cameraController;
+    }
+
+    public RegionChangeEmitter getRegionChangeEmitter() {
+        return regionChangeEmitter;
+    }
+
+    void setRegionChangeEmitter(RegionChangeEmitter regionChangeEmitter) {
+        this.regionChangeEmitter = regionChangeEmitter;
+    }
+
+    public LocationEmitter getLocationEmitter() {
+        return locationEmitter;
+    }
+
+    void setLocationEmitter(LocationEmitter locationEmitter) {
+        this.locationEmitter = locationEmitter;
+    }
+
+    /**
+     * @return name of the track this map records its user location to, or null
+     */
+    public String getRecordingTrack() {
+        return recordingTrack;
+    }
+
+    /**
+     * @return the style of the line drawn for the recorded track, to be completed with
+     * its coordinates
+     */
+    AnnotationSpec.Builder getTrackOverlay() {
+        return trackOverlay;
+    }
+
+    void setRecordingTrack(String name, AnnotationSpec.Builder overlay) {
+        this.recordingTrack = name;
+        this.trackOverlay = overlay;
+    }
+
+    /**
+     * @return the map, or null until it is ready
+     */
+    public MapboxMap getMap() {
+        return map;
+    }
+
+    void setMap(MapboxMap map) {
+        this.map = map;
+        annotationPipeline.setMap(map);
+        cameraController.setMap(map);
+    }
+
+    void setMapChangedListener(MapView.OnMapChangedListener listener) {
+        this.mapChangedListener = listener;
+        mapView.addOnMapChangedListener(listener);
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Stops pending annotation work, detaches listeners and destroys the view.
+     */
+    void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        annotationPipeline.release();
+        cameraController.release();
+        if (locationEmitter != null) {
+            locationEmitter.reset();
+        }
+        if (mapChangedListener != null) {
+            mapView.removeOnMapChangedListener(mapChangedListener);
+            mapChangedListener = null;
+        }
+        if (map != null) {
+            map.setOnMarkerClickListener(null);
+            map.setOnMapClickListener(null);
+            map.setOnMapLongClickListener(null);
+            map.setOnMyLocationChangeListener(null);
+            map.setMyLocationEnabled(false);
+            map = null;
+        }
+        mapView.onPause();
+        mapView.onDestroy();
+    }
+}
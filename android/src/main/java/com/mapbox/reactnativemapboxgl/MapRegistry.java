@@ -0,0 +1,85 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.util.SparseArray;
+import android.view.View;
+
+import com.mapbox.mapboxsdk.maps.MapView;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Live {@link MapInstance}s keyed by the React tag of their view.
+ *
+ * React assigns the tag after {@code createViewInstance} returns, so new instances
+ * wait in a small pending set until the first lookup that can see the tag moves them
+ * over. Prop setters run on the UI thread while module methods run on the native
+ * modules thread, hence the locking.
+ */
+public class MapRegistry {
+
+    private final SparseArray<MapInstance> instances = new SparseArray<>();
+    private final Map<MapView, MapInstance> pending = new IdentityHashMap<>();
+
+    public synchronized void add(MapInstance instance) {
+        pending.put(instance.getMapView(), instance);
+    }
+
+    /**
+     * @return the instance owning {@code view}, or null if it was released
+     */
+    public synchronized MapInstance get(MapView view) {
+        int tag = view.getId();
+        if (tag != View.NO_ID) {
+            MapInstance instance = instances.get(tag);
+            if (instance != null && instance.getMapView() == view) {
+                return instance;
+            }
+        }
+        MapInstance instance = pending.get(view);
+        if (instance != null && tag != View.NO_ID) {
+            pending.remove(view);
+            instances.put(tag, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * @return the instance rendered under React tag {@code tag}, or null if there is none
+     */
+    public synchronized MapInstance get(int tag) {
+        MapInstance instance = instances.get(tag);
+        if (instance != null || pending.isEmpty()) {
+            return instance;
+        }
+        Iterator<MapInstance> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            MapInstance candidate = iterator.next();
+            if (candidate.getTag() == tag) {
+                iterator.remove();
+                instances.put(tag, candidate);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public synchronized MapInstance remove(MapView view) {
+        MapInstance instance = pending.remove(view);
+        if (instance != null) {
+            return instance;
+        }
+        int tag = view.getId();
+        instance = instances.get(tag);
+        if (instance != null && instance.getMapView() == view) {
+            instances.remove(tag);
+            return instance;
+        }
+        return null;
+    }
+
+    public synchronized int size() {
+        return instances.size() + pending.size();
+    }
+}
@@ -0,0 +1,246 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which offline packs download at any time.
+ *
+ * At most {@link #setMaxActive(int) maxActive} packs are active; the others wait in a
+ * queue ordered by priority (higher first) and then by the order they were added in.
+ * Paused packs keep their place but are skipped until resumed. Whenever the set of
+ * unfinished packs changes, {@link Control#onQueueChanged()} is called so the queue can
+ * be persisted and restored with {@link #restore(Entry)} after a restart.
+ *
+ * Not thread safe; the offline pack manager only uses it from the UI thread.
+ */
+public class OfflineDownloadScheduler {
+
+    public static final int DEFAULT_MAX_ACTIVE = 2;
+
+    public static final int STATE_QUEUED = 0;
+    public static final int STATE_ACTIVE = 1;
+    public static final int STATE_PAUSED = 2;
+
+    public interface Control {
+        /**
+         * Starts or stops the download of a pack.
+         *
+         * @return false if the pack is not available (yet), it then stays queued
+         */
+        boolean setActive(String uuid, boolean active);
+
+        void onQueueChanged();
+    }
+
+    public static final class Entry {
+        private final String uuid;
+        private final long sequence;
+        private int priority;
+        private int state;
+
+        public Entry(String uuid, int priority, long sequence, int state) {
+            this.uuid = uuid;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.state = state;
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getState() {
+            return state;
+        }
+
+        public boolean isPaused() {
+            return state == STATE_PAUSED;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            if (a.priority != b.priority) {
+                return a.priority > b.priority ? -1 : 1;
+            }
+            return a.sequence < b.sequence ? -1 : (a.sequence > b.sequence ? 1 : 0);
+        }
+    };
+
+    private final Control control;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private int maxActive = DEFAULT_MAX_ACTIVE;
+    private int active;
+    private long nextSequence;
+
+    public OfflineDownloadScheduler(Control control) {
+        this.control = control;
+    }
+
+    public void setMaxActive(int maxActive) {
+        this.maxActive = Math.max(1, maxActive);
+        rebalance();
+    }
+
+    public int getMaxActive() {
+        return maxActive;
+    }
+
+    /**
+     * Queues a new pack, or changes the priority of one already known.
+     */
+    public void enqueue(String uuid, int priority) {
+        Entry entry = entries.get(uuid);
+        if (entry != null) {
+            entry.priority = priority;
+        } else {
+            entries.put(uuid, new Entry(uuid, priority, nextSequence++, STATE_QUEUED));
+        }
+        control.onQueueChanged();
+        rebalance();
+    }
+
+    /**
+     * Puts back an entry read from the persisted queue. Active entries are queued again.
+     */
+    public void restore(Entry saved) {
+        if (entries.containsKey(saved.uuid)) {
+            return;
+        }
+        int state = saved.state == STATE_PAUSED ? STATE_PAUSED : STATE_QUEUED;
+        entries.put(saved.uuid, new Entry(saved.uuid, saved.priority, saved.sequence, state));
+        nextSequence = Math.max(nextSequence, saved.sequence + 1);
+        rebalance();
+    }
+
+    public boolean setPriority(String uuid, int priority) {
+        Entry entry = entries.get(uuid);
+        if (entry == null) {
+            return false;
+        }
+        entry.priority = priority;
+        control.onQueueChanged();
+        rebalance();
+        return true;
+    }
+
+    public boolean pause(String uuid) {
+        Entry entry = entries.get(uuid);
+        if (entry == null || entry.state == STATE_PAUSED) {
+            return false;
+        }
+        if (entry.state == STATE_ACTIVE) {
+            control.setActive(uuid, false);
+            active--;
+        }
+        entry.state = STATE_PAUSED;
+        control.onQueueChanged();
+        rebalance();
+        return true;
+    }
+
+    public boolean resume(String uuid) {
+        Entry entry = entries.get(uuid);
+        if (entry == null || entry.state != STATE_PAUSED) {
+            return false;
+        }
+        entry.state = STATE_QUEUED;
+        control.onQueueChanged();
+        rebalance();
+        return true;
+    }
+
+    /**
+     * Call when a pack completed, failed for good or was removed.
+     */
+    public void finish(String uuid) {
+        Entry entry = entries.remove(uuid);
+        if (entry == null) {
+            return;
+        }
+        if (entry.state == STATE_ACTIVE) {
+            active--;
+        }
+        control.onQueueChanged();
+        rebalance();
+    }
+
+    /**
+     * Call when a pack that could not be started earlier became available.
+     */
+    public void retry() {
+        rebalance();
+    }
+
+    /**
+     * Walks the queue in order, keeping or starting packs while there is room and
+     * stopping active ones once there is none. Packs that cannot be started yet are
+     * skipped so they do not hold up the rest of the queue.
+     */
+    private void rebalance() {
+        List<Entry> ordered = new ArrayList<>(entries.values());
+        Collections.sort(ordered, ORDER);
+
+        int slots = maxActive;
+        for (Entry entry : ordered) {
+            if (entry.state == STATE_PAUSED) {
+                continue;
+            }
+            if (slots == 0) {
+                if (entry.state == STATE_ACTIVE) {
+                    control.setActive(entry.uuid, false);
+                    entry.state = STATE_QUEUED;
+                    active--;
+                }
+                continue;
+            }
+            if (entry.state == STATE_ACTIVE) {
+                slots--;
+            } else if (control.setActive(entry.uuid, true)) {
+                entry.state = STATE_ACTIVE;
+                active++;
+                slots--;
+            }
+        }
+    }
+
+    public int getState(String uuid) {
+        Entry entry = entries.get(uuid);
+        return entry != null ? entry.state : -1;
+    }
+
+    public boolean contains(String uuid) {
+        return entries.containsKey(uuid);
+    }
+
+    public int getActiveCount() {
+        return active;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the unfinished packs, in queue order
+     */
+    public List<Entry> snapshot() {
+        List<Entry> ordered = new ArrayList<>(entries.values());
+        Collections.sort(ordered, ORDER);
+        return ordered;
+    }
+}
@@ -0,0 +1,198 @@
+package com.mapbox.reactnativemapboxgl;
+
+import org.json.JSONObject;
+
+import java.nio.charset.Charset;
+
+import javax.annotation.Nullable;
+
+/**
+ * The uuid and name stored as the metadata of an offline region.
+ *
+ * Packs are written in a compact binary form: a zero byte, {@code 'M'}, a version byte
+ * and then the uuid and the name as UTF-8, each preceded by its length as a varint.
+ * Regions that are part of a partitioned pack append the uuid of that pack the same way.
+ * Regions created by earlier versions hold a JSON object instead; it always starts
+ * with {@code '{'}, so the first byte tells the two apart and both keep decoding.
+ */
+public final class OfflineMetadata {
+
+    public static final String JSON_FIELD_REGION_NAME = "FIELD_REGION_NAME";
+    public static final String JSON_FIELD_REGION_UUID = "uuid";
+    public static final String JSON_FIELD_PACK_UUID = "pack";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte MAGIC_0 = 0;
+    private static final byte MAGIC_1 = 'M';
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 3;
+
+    private final String uuid;
+    private final String name;
+    private final String pack;
+
+    public OfflineMetadata(String uuid, String name) {
+        this(uuid, name, null);
+    }
+
+    /**
+     * @param pack the uuid of the partitioned pack this region is part of, or null
+     */
+    public OfflineMetadata(String uuid, String name, @Nullable String pack) {
+        this.uuid = uuid;
+        this.name = name;
+        this.pack = pack;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the uuid of the partitioned pack this region is part of, or null
+     */
+    public @Nullable String getPack() {
+        return pack;
+    }
+
+    /**
+     * @return the uuid of the pack as JS knows it
+     */
+    public String getPackUuid() {
+        return pack != null ? pack : uuid;
+    }
+
+    public byte[] encode() {
+        byte[] uuidBytes = uuid.getBytes(UTF_8);
+        byte[] nameBytes = name.getBytes(UTF_8);
+        byte[] packBytes = pack != null ? pack.getBytes(UTF_8) : null;
+        byte[] out = new byte[HEADER_LENGTH + varintLength(uuidBytes.length) + uuidBytes.length
+                + varintLength(nameBytes.length) + nameBytes.length
+                + (packBytes != null ? varintLength(packBytes.length) + packBytes.length : 0)];
+        out[0] = MAGIC_0;
+        out[1] = MAGIC_1;
+        out[2] = VERSION;
+        int pos = HEADER_LENGTH;
+        pos = writeVarint(out, pos, uuidBytes.length);
+        System.arraycopy(uuidBytes, 0, out, pos, uuidBytes.length);
+        pos += uuidBytes.length;
+        pos = writeVarint(out, pos, nameBytes.length);
+        System.arraycopy(nameBytes, 0, out, pos, nameBytes.length);
+        pos += nameBytes.length;
+        if (packBytes != null) {
+            pos = writeVarint(out, pos, packBytes.length);
+            System.arraycopy(packBytes, 0, out, pos, packBytes.length);
+        }
+        return out;
+    }
+
+    /**
+     * The format written before the compact one, kept for comparison and for tools that
+     * still expect it.
+     */
+    public byte[] encodeJson() {
+        try {
+            JSONObject json = new JSONObject();
+            json.put(JSON_FIELD_REGION_NAME, name);
+            json.put(JSON_FIELD_REGION_UUID, uuid);
+            if (pack != null) {
+                json.put(JSON_FIELD_PACK_UUID, pack);
+            }
+            return json.toString().getBytes(UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the decoded metadata, or null if {@code bytes} is empty or in neither format
+     */
+    public static @Nullable OfflineMetadata decode(@Nullable byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (isCompact(bytes)) {
+            return decodeCompact(bytes);
+        }
+        return decodeJson(bytes);
+    }
+
+    static boolean isCompact(byte[] bytes) {
+        return bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    private static @Nullable OfflineMetadata decodeCompact(byte[] bytes) {
+        if (bytes[2] != VERSION) {
+            return null;
+        }
+        int[] pos = {HEADER_LENGTH};
+        String uuid = readString(bytes, pos);
+        String name = uuid != null ? readString(bytes, pos) : null;
+        if (name == null) {
+            return null;
+        }
+        String pack = null;
+        if (pos[0] < bytes.length) {
+            pack = readString(bytes, pos);
+            if (pack == null) {
+                return null;
+            }
+        }
+        return new OfflineMetadata(uuid, name, pack);
+    }
+
+    private static @Nullable OfflineMetadata decodeJson(byte[] bytes) {
+        try {
+            JSONObject json = new JSONObject(new String(bytes, UTF_8));
+            String uuid = json.getString(JSON_FIELD_REGION_UUID);
+            String name = json.optString(JSON_FIELD_REGION_NAME, uuid);
+            String pack = json.has(JSON_FIELD_PACK_UUID) ? json.getString(JSON_FIELD_PACK_UUID) : null;
+            return new OfflineMetadata(uuid, name, pack);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static @Nullable String readString(byte[] bytes, int[] pos) {
+        int length = 0;
+        int shift = 0;
+        int p = pos[0];
+        while (true) {
+            if (p >= bytes.length || shift > 28) {
+                return null;
+            }
+            int b = bytes[p++];
+            length |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        if (length < 0 || length > bytes.length - p) {
+            return null;
+        }
+        pos[0] = p + length;
+        return new String(bytes, p, length, UTF_8);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            out[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+}
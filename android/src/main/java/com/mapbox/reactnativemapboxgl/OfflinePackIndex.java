@@ -0,0 +1,115 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The latest known state of every offline pack, readable from any thread.
+ *
+ * The offline pack manager replaces an entry whenever the state of its pack changes on
+ * the UI thread. Entries are immutable, so a reader always sees every field of a pack
+ * as of the same moment, and listing packs from the bridge never waits for the UI
+ * thread.
+ */
+public class OfflinePackIndex {
+
+    public static final String STATE_QUEUED = "queued";
+    public static final String STATE_ACTIVE = "active";
+    public static final String STATE_PAUSED = "paused";
+    public static final String STATE_COMPLETE = "complete";
+    public static final String STATE_FAILED = "failed";
+    public static final String STATE_INACTIVE = "inactive";
+
+    public static final class Entry {
+        private final String uuid;
+        private final String name;
+        private final int parts;
+        private final String state;
+        private final boolean statusKnown;
+        private final long completedResourceCount;
+        private final long requiredResourceCount;
+        private final long completedResourceSize;
+        private final boolean requiredResourceCountIsPrecise;
+
+        public Entry(String uuid, String name, int parts, String state, boolean statusKnown,
+                     long completedResourceCount, long requiredResourceCount,
+                     long completedResourceSize, boolean requiredResourceCountIsPrecise) {
+            this.uuid = uuid;
+            this.name = name;
+            this.parts = parts;
+            this.state = state;
+            this.statusKnown = statusKnown;
+            this.completedResourceCount = completedResourceCount;
+            this.requiredResourceCount = requiredResourceCount;
+            this.completedResourceSize = completedResourceSize;
+            this.requiredResourceCountIsPrecise = requiredResourceCountIsPrecise;
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getParts() {
+            return parts;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        /**
+         * @return false while the status of some region of the pack was not read yet;
+         * the resource counts then only cover the other regions
+         */
+        public boolean isStatusKnown() {
+            return statusKnown;
+        }
+
+        public long getCompletedResourceCount() {
+            return completedResourceCount;
+        }
+
+        public long getRequiredResourceCount() {
+            return requiredResourceCount;
+        }
+
+        public long getCompletedResourceSize() {
+            return completedResourceSize;
+        }
+
+        public boolean isRequiredResourceCountPrecise() {
+            return requiredResourceCountIsPrecise;
+        }
+
+        public double getPercentage() {
+            return requiredResourceCount > 0 ? 100.0 * completedResourceCount / requiredResourceCount : 0.0;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public void put(Entry entry) {
+        entries.put(entry.uuid, entry);
+    }
+
+    public void remove(String uuid) {
+        entries.remove(uuid);
+    }
+
+    public Entry get(String uuid) {
+        return entries.get(uuid);
+    }
+
+    public List<Entry> snapshot() {
+        return new ArrayList<>(entries.values());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
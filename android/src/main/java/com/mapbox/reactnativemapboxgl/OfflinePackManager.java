@@ -0,0 +1,983 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.mapbox.mapboxsdk.constants.Style;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+import com.mapbox.mapboxsdk.offline.OfflineManager;
+import com.mapbox.mapboxsdk.offline.OfflineRegion;
+import com.mapbox.mapboxsdk.offline.OfflineRegionDefinition;
+import com.mapbox.mapboxsdk.offline.OfflineRegionError;
+import com.mapbox.mapboxsdk.offline.OfflineRegionStatus;
+import com.mapbox.mapboxsdk.offline.OfflineTilePyramidRegionDefinition;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * Creates, lists and removes offline packs and reports their download progress to JS.
+ *
+ * Progress is sent as {@value #EVENT_PROGRESS} device events, throttled per pack to one
+ * every {@link #DEFAULT_PROGRESS_INTERVAL_MILLIS} milliseconds, followed by a single
+ * {@value #EVENT_COMPLETE} or {@value #EVENT_ERROR} event.
+ *
+ * Downloads go through an {@link OfflineDownloadScheduler}: only a few packs download
+ * at once, by priority, and the queue is saved so unfinished packs carry on after a
+ * restart once the regions are listed again.
+ *
+ * A pack is normally one offline region. Packs created with the {@code partition}
+ * option are split by {@link RegionPartitioner} into regions that each stay under the
+ * tile count limit; the regions download side by side and are reported, paused and
+ * removed as the one pack. Regions, the queue and the scheduler are keyed by region
+ * uuid, which is the pack uuid for packs of a single region.
+ *
+ * With a storage quota set, the least recently used packs that are not pinned are
+ * removed once the packs outgrow it, each reported by an {@value #EVENT_EVICTED} event.
+ *
+ * Apart from {@link #getIndex()} and {@link #estimatePack}, everything here must be
+ * called on the UI thread, where the SDK delivers its offline callbacks.
+ */
+public class OfflinePackManager {
+
+    private static final String TAG = OfflinePackManager.class.getSimpleName();
+
+    public static final String EVENT_PROGRESS = "onOfflinePackProgress";
+    public static final String EVENT_COMPLETE = "onOfflinePackComplete";
+    public static final String EVENT_ERROR = "onOfflinePackError";
+    public static final String EVENT_EVICTED = "onOfflinePackEvicted";
+
+    public static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 500;
+
+    private static final String PART_SEPARATOR = "/";
+
+    private static final Metrics.Counter PROGRESS_EVENTS = Metrics.counter("offline.progressEvents");
+    private static final Metrics.Counter PROGRESS_DROPPED = Metrics.counter("offline.progressDropped");
+    private static final Metrics.Counter COMPLETED = Metrics.counter("offline.completed");
+    private static final Metrics.Counter ERRORS = Metrics.counter("offline.errors");
+    private static final Metrics.Counter EVICTED = Metrics.counter("offline.evicted");
+
+    private static final String PREFS_NAME = "mapbox-offline-queue";
+    private static final String PREFS_KEY_QUEUE = "queue";
+    private static final String USAGE_PREFS_NAME = "mapbox-offline-usage";
+    private static final String USAGE_PREFS_KEY_PACKS = "packs";
+    private static final String USAGE_PREFS_KEY_QUOTA = "quota";
+
+    private final ReactContext context;
+    private final OfflineManager offlineManager;
+    private final Map<String, OfflineRegion> offlineRegionMap = new HashMap<>();
+    private final Map<String, Pack> packs = new HashMap<>();
+    private final Map<String, Pack> packsByRegion = new HashMap<>();
+    private final OfflinePackIndex index = new OfflinePackIndex();
+    private final OfflineRegionCatalog catalog = new OfflineRegionCatalog();
+    private final Set<String> observedUuids = new HashSet<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SharedPreferences queuePrefs;
+    private final SharedPreferences usagePrefs;
+    private final OfflineStorageQuota quota = new OfflineStorageQuota();
+    private final OfflineDownloadScheduler scheduler;
+    private boolean stateRestored;
+
+    private final long progressIntervalNanos = DEFAULT_PROGRESS_INTERVAL_MILLIS * 1000000L;
+    private long progressEventsSent;
+    private long progressEventsDropped;
+
+    public OfflinePackManager(ReactContext context) {
+        this.context = context;
+        this.offlineManager = OfflineManager.getInstance(context);
+        this.queuePrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.usagePrefs = context.getSharedPreferences(USAGE_PREFS_NAME, Context.MODE_PRIVATE);
+        quota.setQuota(usagePrefs.getLong(USAGE_PREFS_KEY_QUOTA, 0));
+        this.scheduler = new OfflineDownloadScheduler(new OfflineDownloadScheduler.Control() {
+            @Override
+            public boolean setActive(String uuid, boolean active) {
+                OfflineRegion region = offlineRegionMap.get(uuid);
+                if (region == null) {
+                    return false;
+                }
+                if (active) {
+                    observe(uuid, region);
+                }
+                region.setDownloadState(active ? OfflineRegion.STATE_ACTIVE : OfflineRegion.STATE_INACTIVE);
+                return true;
+            }
+
+            @Override
+            public void onQueueChanged() {
+                saveQueue();
+            }
+        });
+    }
+
+    /**
+     * Creates a pack and queues it for download with the optional {@code priority}
+     * option (default 0, higher first). With {@code partition: true} the pack is split
+     * into regions of at most {@code maxTilesPerPart} tiles (default
+     * {@link TilePyramid#MAPBOX_TILE_COUNT_LIMIT}), and refused if that takes more than
+     * {@link RegionPartitioner#MAX_PARTS} regions. Packs created with {@code pinned: true}
+     * are never evicted to meet the storage quota. {@code callback} is invoked once with
+     * {@code {uuid, name, parts}} when all regions were created, or with an error message.
+     */
+    public void addPack(ReadableMap options, @Nullable final Callback callback) {
+
+        BoundingBox bounds = boundsOf(options.getArray("boundary"));
+        int minZoom = options.getInt("minZoomLevel");
+        int maxZoom = options.getInt("maxZoomLevel");
+        float pixelRatio = options.hasKey("pixelRatio") ? (float) options.getDouble("pixelRatio") : 1;
+
+        final String name = options.getMap("metadata").getString("name");
+        final String uuid = options.getMap("metadata").getString("uuid");
+        final int priority = options.hasKey("priority") ? options.getInt("priority") : 0;
+        boolean pinned = options.hasKey("pinned") && options.getBoolean("pinned");
+
+        List<BoundingBox> partBounds;
+        if (options.hasKey("partition") && options.getBoolean("partition")) {
+            try {
+                partBounds = RegionPartitioner.partition(pyramidOf(options), maxTilesPerPart(options));
+            } catch (IllegalArgumentException e) {
+                if (callback != null) {
+                    callback.invoke(e.getMessage());
+                }
+                return;
+            }
+        } else {
+            partBounds = Collections.singletonList(bounds);
+        }
+
+        final Pack pack = new Pack(uuid, name, partBounds.size());
+        pack.bounds.addAll(partBounds);
+        packs.put(uuid, pack);
+        quota.track(uuid, System.currentTimeMillis(), pinned);
+        saveUsage();
+        final boolean partitioned = partBounds.size() > 1;
+
+        for (int i = 0; i < partBounds.size(); i++) {
+            BoundingBox part = partBounds.get(i);
+
+            // Define the offline region
+            OfflineTilePyramidRegionDefinition definition = new OfflineTilePyramidRegionDefinition(
+                    Style.MAPBOX_STREETS,
+                    new LatLngBounds.Builder()
+                            .include(new LatLng(part.getMaxLat(), part.getMaxLon())) // Northeast
+                            .include(new LatLng(part.getMinLat(), part.getMinLon())) // Southwest
+                            .build(),
+                    minZoom,
+                    maxZoom,
+                    pixelRatio);
+
+            // Set the metadata
+            final String regionUuid = partitioned ? uuid + PART_SEPARATOR + i : uuid;
+            final OfflineMetadata metadata = new OfflineMetadata(regionUuid, name, partitioned ? uuid : null);
+
+            // Create the region asynchronously
+            offlineManager.createOfflineRegion(definition, metadata.encode(), new OfflineManager.CreateOfflineRegionCallback() {
+                @Override
+                public void onCreate(OfflineRegion offlineRegion) {
+                    if (pack.removed) {
+                        // removed, or another region of the pack failed, while this one was created
+                        offlineRegion.delete(new LoggingDeleteCallback());
+                        return;
+                    }
+                    offlineRegionMap.put(regionUuid, offlineRegion);
+                    catalog.put(offlineRegion, metadata);
+                    pack.regions.add(regionUuid);
+                    packsByRegion.put(regionUuid, pack);
+                    observe(regionUuid, offlineRegion);
+                    scheduler.enqueue(regionUuid, priority);
+                    pack.publish();
+
+                    if (pack.regions.size() == pack.expectedRegions && callback != null) {
+                        WritableMap created = Arguments.createMap();
+                        created.putString("uuid", uuid);
+                        created.putString("name", name);
+                        created.putInt("parts", pack.expectedRegions);
+                        callback.invoke(null, created);
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "Error: " + error);
+                    if (pack.removed) {
+                        return;
+                    }
+                    removePacks(Collections.singletonList(uuid), null);
+                    if (callback != null) {
+                        callback.invoke(error);
+                    }
+                }
+            });
+        }
+    }
+
+    private static long maxTilesPerPart(ReadableMap options) {
+        return options.hasKey("maxTilesPerPart")
+                ? (long) options.getDouble("maxTilesPerPart")
+                : TilePyramid.MAPBOX_TILE_COUNT_LIMIT;
+    }
+
+    /**
+     * The pyramid both {@link #addPack} and {@link #estimatePack} count tiles with, so an
+     * estimate always matches how the pack is split.
+     */
+    private static TilePyramid pyramidOf(ReadableMap options) {
+        return new TilePyramid(
+                boundsOf(options.getArray("boundary")),
+                options.getInt("minZoomLevel"),
+                options.getInt("maxZoomLevel"),
+                options.hasKey("pixelRatio") ? (float) options.getDouble("pixelRatio") : 1);
+    }
+
+    private static BoundingBox boundsOf(ReadableArray boundary) {
+        return BoundingBox.of(new double[]{
+                boundary.getMap(0).getDouble("latitude"), boundary.getMap(0).getDouble("longitude"),
+                boundary.getMap(1).getDouble("latitude"), boundary.getMap(1).getDouble("longitude")});
+    }
+
+    /**
+     * Counts the tiles of the pack {@link #addPack} would create for {@code options} and
+     * estimates its size, without creating it. {@code options.pixelRatio} defaults to 1;
+     * {@code options.averageTileSize} is a number of bytes, or an array of them indexed by
+     * zoom level, and defaults to {@link TilePyramid#DEFAULT_AVERAGE_TILE_BYTES}. Also
+     * counts the regions the pack would be split into with {@code partition: true}.
+     */
+    public static WritableMap estimatePack(ReadableMap options) {
+        TilePyramid pyramid = pyramidOf(options);
+
+        long[] averageTileBytes = null;
+        if (options.hasKey("averageTileSize")) {
+            if (options.getType("averageTileSize") == ReadableType.Array) {
+                ReadableArray sizes = options.getArray("averageTileSize");
+                averageTileBytes = new long[sizes.size()];
+                for (int i = 0; i < averageTileBytes.length; i++) {
+                    averageTileBytes[i] = (long) sizes.getDouble(i);
+                }
+            } else {
+                averageTileBytes = new long[]{(long) options.getDouble("averageTileSize")};
+            }
+        }
+
+        WritableArray zoomLevels = Arguments.createArray();
+        for (int zoom = pyramid.getMinZoom(); zoom <= pyramid.getMaxZoom(); zoom++) {
+            WritableMap level = Arguments.createMap();
+            level.putInt("zoom", zoom);
+            level.putDouble("tileCount", pyramid.tileCount(zoom));
+            level.putDouble("estimatedSize", pyramid.estimateBytes(zoom, averageTileBytes));
+            zoomLevels.pushMap(level);
+        }
+
+        WritableMap estimate = Arguments.createMap();
+        estimate.putDouble("tileCount", pyramid.tileCount());
+        estimate.putDouble("estimatedSize", pyramid.estimateBytes(averageTileBytes));
+        estimate.putDouble("tileCountLimit", TilePyramid.MAPBOX_TILE_COUNT_LIMIT);
+        estimate.putBoolean("exceedsTileCountLimit", pyramid.exceedsTileCountLimit());
+        int parts = RegionPartitioner.countParts(pyramid, maxTilesPerPart(options));
+        estimate.putInt("parts", Math.min(parts, RegionPartitioner.MAX_PARTS));
+        estimate.putInt("maxParts", RegionPartitioner.MAX_PARTS);
+        estimate.putBoolean("exceedsMaxParts", parts > RegionPartitioner.MAX_PARTS);
+        estimate.putArray("zoomLevels", zoomLevels);
+        return estimate;
+    }
+
+    /**
+     * A pack as JS sees it: one region, or all regions of a partitioned pack. Reports the
+     * summed status of its regions at most once per progress interval, and its completion
+     * or failure exactly once.
+     */
+    private class Pack {
+        final String uuid;
+        final String name;
+        final List<String> regions = new ArrayList<>();
+        final List<BoundingBox> bounds = new ArrayList<>();
+        private final Map<String, OfflineRegionStatus> statuses = new HashMap<>();
+        int expectedRegions;
+        boolean removed;
+        private boolean failed;
+        private long lastSentNanos;
+        private boolean sentAny;
+        private boolean finished;
+
+        Pack(String uuid, String name, int expectedRegions) {
+            this.uuid = uuid;
+            this.name = name;
+            this.expectedRegions = expectedRegions;
+        }
+
+        void onStatusChanged(String region, OfflineRegionStatus status) {
+            if (finished) {
+                return;
+            }
+            statuses.put(region, status);
+            if (status.isComplete()) {
+                scheduler.finish(region);
+            }
+            publish();
+            if (isComplete()) {
+                finished = true;
+                COMPLETED.increment();
+                emit(EVENT_COMPLETE, statusEvent());
+                enforceQuota();
+                return;
+            }
+            long now = System.nanoTime();
+            if (sentAny && now - lastSentNanos < progressIntervalNanos) {
+                progressEventsDropped++;
+                PROGRESS_DROPPED.increment();
+                return;
+            }
+            sentAny = true;
+            lastSentNanos = now;
+            progressEventsSent++;
+            PROGRESS_EVENTS.increment();
+            emit(EVENT_PROGRESS, statusEvent());
+        }
+
+        void onError(OfflineRegionError error) {
+            Log.e(TAG, "onError reason: " + error.getReason());
+            Log.e(TAG, "onError message: " + error.getMessage());
+            if (finished) {
+                return;
+            }
+            // the download keeps retrying after these
+            WritableMap src = packEvent();
+            src.putString("reason", error.getReason());
+            src.putString("message", error.getMessage());
+            src.putBoolean("fatal", false);
+            ERRORS.increment();
+            emit(EVENT_ERROR, src);
+        }
+
+        void onTileCountLimitExceeded(long limit) {
+            Log.e(TAG, "Mapbox tile count limit exceeded: " + limit);
+            if (finished) {
+                return;
+            }
+            finished = true;
+            failed = true;
+            // the pack cannot complete anymore, so its other regions stop as well
+            for (String region : regions) {
+                if (scheduler.getState(region) == OfflineDownloadScheduler.STATE_ACTIVE) {
+                    offlineRegionMap.get(region).setDownloadState(OfflineRegion.STATE_INACTIVE);
+                }
+                scheduler.finish(region);
+            }
+            publish();
+            WritableMap src = packEvent();
+            src.putString("reason", "tileCountLimitExceeded");
+            src.putString("message", "Mapbox tile count limit exceeded: " + limit);
+            src.putDouble("limit", limit);
+            src.putBoolean("fatal", true);
+            ERRORS.increment();
+            emit(EVENT_ERROR, src);
+        }
+
+        /**
+         * Records a status read on request, without reporting it.
+         */
+        void setStatus(String region, OfflineRegionStatus status) {
+            statuses.put(region, status);
+        }
+
+        boolean hasStatus(String region) {
+            return statuses.containsKey(region);
+        }
+
+        void publish() {
+            long completed = 0;
+            long required = 0;
+            long size = 0;
+            boolean precise = true;
+            for (OfflineRegionStatus status : statuses.values()) {
+                completed += status.getCompletedResourceCount();
+                required += status.getRequiredResourceCount();
+                size += status.getCompletedResourceSize();
+                precise &= status.isRequiredResourceCountPrecise();
+            }
+            boolean known = statuses.size() >= expectedRegions;
+            quota.setSize(uuid, size);
+            index.put(new OfflinePackIndex.Entry(uuid, name, expectedRegions, state(), known,
+                    completed, required, size, precise && known));
+        }
+
+        private String state() {
+            if (failed) {
+                return OfflinePackIndex.STATE_FAILED;
+            }
+            if (isComplete()) {
+                return OfflinePackIndex.STATE_COMPLETE;
+            }
+            boolean queued = false;
+            boolean paused = false;
+            for (String region : regions) {
+                int state = scheduler.getState(region);
+                if (state == OfflineDownloadScheduler.STATE_ACTIVE) {
+                    return OfflinePackIndex.STATE_ACTIVE;
+                }
+                queued |= state == OfflineDownloadScheduler.STATE_QUEUED;
+                paused |= state == OfflineDownloadScheduler.STATE_PAUSED;
+            }
+            if (queued) {
+                return OfflinePackIndex.STATE_QUEUED;
+            }
+            return paused ? OfflinePackIndex.STATE_PAUSED : OfflinePackIndex.STATE_INACTIVE;
+        }
+
+        private boolean isComplete() {
+            if (statuses.size() < expectedRegions) {
+                return false;
+            }
+            for (OfflineRegionStatus status : statuses.values()) {
+                if (!status.isComplete()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private WritableMap packEvent() {
+            WritableMap src = Arguments.createMap();
+            src.putString("uuid", uuid);
+            src.putString("name", name);
+            return src;
+        }
+
+        private WritableMap statusEvent() {
+            long completed = 0;
+            long required = 0;
+            long size = 0;
+            boolean precise = statuses.size() >= expectedRegions;
+            for (OfflineRegionStatus status : statuses.values()) {
+                completed += status.getCompletedResourceCount();
+                required += status.getRequiredResourceCount();
+                size += status.getCompletedResourceSize();
+                precise &= status.isRequiredResourceCountPrecise();
+            }
+            WritableMap src = packEvent();
+            src.putDouble("completedResourceCount", completed);
+            src.putDouble("requiredResourceCount", required);
+            src.putDouble("completedResourceSize", size);
+            src.putBoolean("requiredResourceCountIsPrecise", precise);
+            src.putDouble("percentage", required > 0 ? 100.0 * completed / required : 0.0);
+            return src;
+        }
+    }
+
+    private class ProgressObserver implements OfflineRegion.OfflineRegionObserver {
+        private final Pack pack;
+        private final String region;
+
+        ProgressObserver(Pack pack, String region) {
+            this.pack = pack;
+            this.region = region;
+        }
+
+        @Override
+        public void onStatusChanged(OfflineRegionStatus status) {
+            pack.onStatusChanged(region, status);
+        }
+
+        @Override
+        public void onError(OfflineRegionError error) {
+            pack.onError(error);
+        }
+
+        @Override
+        public void mapboxTileCountLimitExceeded(long limit) {
+            pack.onTileCountLimitExceeded(limit);
+        }
+    }
+
+    private static class LoggingDeleteCallback implements OfflineRegion.OfflineRegionDeleteCallback {
+        @Override
+        public void onDelete() {
+        }
+
+        @Override
+        public void onError(String error) {
+            Log.e(TAG, "Error: " + error);
+        }
+    }
+
+    private void emit(String name, WritableMap src) {
+        WritableMap event = Arguments.createMap();
+        event.putMap("src", src);
+        context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(name, event);
+    }
+
+    /**
+     * Lists the regions in the offline database and reads the status of those not seen
+     * yet, then invokes {@code callback} once with every pack as
+     * {@code {uuid, name, parts, state, statusKnown, completedResourceCount,
+     * requiredResourceCount, completedResourceSize, requiredResourceCountIsPrecise,
+     * percentage}}, or with an error message. The result is built on the native
+     * modules thread from {@link #getIndex()}.
+     */
+    public void getPacks(@Nullable final Callback callback) {
+        offlineManager.listOfflineRegions(new OfflineManager.ListOfflineRegionsCallback() {
+            @Override
+            public void onList(final OfflineRegion[] offlineRegions) {
+
+                catalog.rebuild(offlineRegions);
+
+                for (OfflineRegion offlineRegion : offlineRegions) {
+                    OfflineMetadata metadata = catalog.get(offlineRegion);
+                    String regionUuid = metadata.getUuid();
+                    if (offlineRegionMap.containsKey(regionUuid)) {
+                        // keep the instance that already has an observer
+                        continue;
+                    }
+                    offlineRegionMap.put(regionUuid, offlineRegion);
+
+                    Pack pack = packs.get(metadata.getPackUuid());
+                    if (pack == null) {
+                        pack = new Pack(metadata.getPackUuid(), metadata.getName(), 0);
+                        packs.put(pack.uuid, pack);
+                    }
+                    pack.regions.add(regionUuid);
+                    pack.expectedRegions = Math.max(pack.expectedRegions, pack.regions.size());
+                    packsByRegion.put(regionUuid, pack);
+
+                    OfflineRegionDefinition definition = offlineRegion.getDefinition();
+                    if (definition instanceof OfflineTilePyramidRegionDefinition) {
+                        LatLngBounds bounds = ((OfflineTilePyramidRegionDefinition) definition).getBounds();
+                        pack.bounds.add(new BoundingBox(
+                                bounds.getLatSouth(), bounds.getLonWest(), bounds.getLatNorth(), bounds.getLonEast()));
+                    }
+                }
+
+                if (!stateRestored) {
+                    stateRestored = true;
+                    restoreQueue();
+                    restoreUsage();
+                }
+                long now = System.currentTimeMillis();
+                for (Pack pack : packs.values()) {
+                    quota.track(pack.uuid, now, false);
+                }
+                saveUsage();
+                scheduler.retry();
+
+                readStatuses(callback);
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error: " + error);
+                if (callback != null) {
+                    callback.invoke(error);
+                }
+            }
+
+        });
+    }
+
+    private void readStatuses(@Nullable final Callback callback) {
+        final List<Pack> unknown = new ArrayList<>();
+        final List<String> unknownRegions = new ArrayList<>();
+        for (Pack pack : packs.values()) {
+            for (String region : pack.regions) {
+                if (!pack.hasStatus(region)) {
+                    unknown.add(pack);
+                    unknownRegions.add(region);
+                }
+            }
+        }
+
+        final int[] pending = {unknownRegions.size()};
+        if (pending[0] == 0) {
+            publishPacks(callback);
+            return;
+        }
+        for (int i = 0; i < unknownRegions.size(); i++) {
+            final Pack pack = unknown.get(i);
+            final String regionUuid = unknownRegions.get(i);
+            offlineRegionMap.get(regionUuid).getStatus(new OfflineRegion.OfflineRegionStatusCallback() {
+                @Override
+                public void onStatus(OfflineRegionStatus status) {
+                    if (!pack.hasStatus(regionUuid)) {
+                        pack.setStatus(regionUuid, status);
+                    }
+                    if (--pending[0] == 0) {
+                        publishPacks(callback);
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "Error: " + error);
+                    if (--pending[0] == 0) {
+                        publishPacks(callback);
+                    }
+                }
+            });
+        }
+    }
+
+    private void publishPacks(@Nullable final Callback callback) {
+        for (Pack pack : packs.values()) {
+            pack.publish();
+        }
+        enforceQuota();
+        if (callback == null) {
+            return;
+        }
+        context.runOnNativeModulesQueueThread(new Runnable() {
+            @Override
+            public void run() {
+                WritableArray result = Arguments.createArray();
+                for (OfflinePackIndex.Entry entry : index.snapshot()) {
+                    result.pushMap(toMap(entry));
+                }
+                callback.invoke(null, result);
+            }
+        });
+    }
+
+    static WritableMap toMap(OfflinePackIndex.Entry entry) {
+        WritableMap pack = Arguments.createMap();
+        pack.putString("uuid", entry.getUuid());
+        pack.putString("name", entry.getName());
+        pack.putInt("parts", entry.getParts());
+        pack.putString("state", entry.getState());
+        pack.putBoolean("statusKnown", entry.isStatusKnown());
+        pack.putDouble("completedResourceCount", entry.getCompletedResourceCount());
+        pack.putDouble("requiredResourceCount", entry.getRequiredResourceCount());
+        pack.putDouble("completedResourceSize", entry.getCompletedResourceSize());
+        pack.putBoolean("requiredResourceCountIsPrecise", entry.isRequiredResourceCountPrecise());
+        pack.putDouble("percentage", entry.getPercentage());
+        return pack;
+    }
+
+    /**
+     * Stops and deletes all regions of the given packs, then invokes {@code callback}
+     * once with {@code {removed, notFound, failed}}: the uuids of the packs removed, the
+     * uuids not matching any pack, and {@code {uuid, message}} for packs of which some
+     * region could not be deleted.
+     */
+    public void removePacks(List<String> packUuids, @Nullable final Callback callback) {
+        final WritableArray removed = Arguments.createArray();
+        final WritableArray notFound = Arguments.createArray();
+        final WritableArray failed = Arguments.createArray();
+        final int[] pending = {1};
+
+        final Runnable done = new Runnable() {
+            @Override
+            public void run() {
+                if (--pending[0] > 0 || callback == null) {
+                    return;
+                }
+                WritableMap result = Arguments.createMap();
+                result.putArray("removed", removed);
+                result.putArray("notFound", notFound);
+                result.putArray("failed", failed);
+                callback.invoke(null, result);
+            }
+        };
+
+        for (final String packUuid : packUuids) {
+            Pack pack = packs.remove(packUuid);
+            if (pack == null) {
+                notFound.pushString(packUuid);
+                continue;
+            }
+            pack.removed = true;
+            pack.finished = true;
+            index.remove(packUuid);
+            quota.remove(packUuid);
+
+            final int[] regionsLeft = {pack.regions.size()};
+            final String[] error = {null};
+            pending[0]++;
+            if (regionsLeft[0] == 0) {
+                removed.pushString(packUuid);
+                done.run();
+            }
+
+            for (String regionUuid : pack.regions) {
+                scheduler.finish(regionUuid);
+                observedUuids.remove(regionUuid);
+                packsByRegion.remove(regionUuid);
+
+                // Begin the deletion process
+                final OfflineRegion region = offlineRegionMap.remove(regionUuid);
+                region.delete(new OfflineRegion.OfflineRegionDeleteCallback() {
+                    @Override
+                    public void onDelete() {
+                        catalog.remove(region);
+                        regionDone();
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        Log.e(TAG, "Error: " + message);
+                        error[0] = message;
+                        regionDone();
+                    }
+
+                    private void regionDone() {
+                        if (--regionsLeft[0] > 0) {
+                            return;
+                        }
+                        if (error[0] == null) {
+                            removed.pushString(packUuid);
+                        } else {
+                            WritableMap failure = Arguments.createMap();
+                            failure.putString("uuid", packUuid);
+                            failure.putString("message", error[0]);
+                            failed.pushMap(failure);
+                        }
+                        done.run();
+                    }
+                });
+            }
+        }
+        saveUsage();
+        done.run();
+    }
+
+    /**
+     * Marks the packs whose bounds contain the given camera target as used.
+     */
+    public void markUsed(double latitude, double longitude) {
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+        for (Pack pack : packs.values()) {
+            for (BoundingBox bounds : pack.bounds) {
+                if (bounds.contains(latitude, longitude)) {
+                    changed |= quota.markUsed(pack.uuid, now);
+                    break;
+                }
+            }
+        }
+        if (changed) {
+            saveUsage();
+        }
+    }
+
+    /**
+     * @param bytes the most the packs may use together, or 0 for no limit
+     */
+    public void setStorageQuota(long bytes) {
+        quota.setQuota(bytes);
+        usagePrefs.edit().putLong(USAGE_PREFS_KEY_QUOTA, quota.getQuota()).apply();
+        enforceQuota();
+    }
+
+    public void setPackPinned(String uuid, boolean pinned) {
+        if (quota.setPinned(uuid, pinned)) {
+            saveUsage();
+            enforceQuota();
+        }
+    }
+
+    public WritableMap getStorageStats() {
+        WritableMap stats = Arguments.createMap();
+        stats.putDouble("quota", quota.getQuota());
+        stats.putDouble("usedSize", quota.getUsedBytes());
+        stats.putInt("packCount", quota.size());
+        stats.putInt("pinnedCount", quota.getPinnedCount());
+        stats.putDouble("pinnedSize", quota.getPinnedBytes());
+        stats.putDouble("evictedCount", quota.getEvictedCount());
+        stats.putDouble("evictedSize", quota.getEvictedBytes());
+        return stats;
+    }
+
+    private void enforceQuota() {
+        List<String> evictions = quota.selectEvictions();
+        if (evictions.isEmpty()) {
+            return;
+        }
+        for (String uuid : evictions) {
+            Pack pack = packs.get(uuid);
+            OfflineStorageQuota.Usage usage = quota.get(uuid);
+            WritableMap src = Arguments.createMap();
+            src.putString("uuid", uuid);
+            src.putString("name", pack != null ? pack.name : uuid);
+            src.putDouble("size", usage.getSize());
+            src.putDouble("lastUsed", usage.getLastUsed());
+            EVICTED.increment();
+            emit(EVENT_EVICTED, src);
+            quota.recordEviction(uuid);
+        }
+        removePacks(evictions, null);
+    }
+
+    public void pausePack(String uuid) {
+        for (String region : regionsOf(uuid)) {
+            scheduler.pause(region);
+        }
+    }
+
+    public void resumePack(String uuid) {
+        for (String region : regionsOf(uuid)) {
+            scheduler.resume(region);
+        }
+    }
+
+    public void setPackPriority(String uuid, int priority) {
+        for (String region : regionsOf(uuid)) {
+            scheduler.setPriority(region, priority);
+        }
+    }
+
+    public void setMaxConcurrentPacks(int maxActive) {
+        scheduler.setMaxActive(maxActive);
+    }
+
+    private List<String> regionsOf(String packUuid) {
+        Pack pack = packs.get(packUuid);
+        return pack != null ? pack.regions : Collections.<String>emptyList();
+    }
+
+    /**
+     * @return the state of every pack, as of the last change seen on the UI thread
+     */
+    public OfflinePackIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Runs {@code action} on the UI thread, where the regions and the scheduler live.
+     */
+    public void post(Runnable action) {
+        mainHandler.post(action);
+    }
+
+    private void observe(String uuid, OfflineRegion region) {
+        Pack pack = packsByRegion.get(uuid);
+        if (pack != null && observedUuids.add(uuid)) {
+            region.setObserver(new ProgressObserver(pack, uuid));
+        }
+    }
+
+    private void saveQueue() {
+        if (!stateRestored) {
+            // packs added before the regions were listed are saved with the restored queue
+            return;
+        }
+        JSONArray queue = new JSONArray();
+        try {
+            for (OfflineDownloadScheduler.Entry entry : scheduler.snapshot()) {
+                JSONObject item = new JSONObject();
+                item.put("uuid", entry.getUuid());
+                item.put("priority", entry.getPriority());
+                item.put("sequence", entry.getSequence());
+                item.put("paused", entry.isPaused());
+                queue.put(item);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to encode download queue: " + e.getMessage());
+            return;
+        }
+        queuePrefs.edit().putString(PREFS_KEY_QUEUE, queue.toString()).apply();
+    }
+
+    /**
+     * Puts back the packs that were still downloading or paused when the queue was last
+     * saved, dropping those whose region no longer exists.
+     */
+    private void restoreQueue() {
+        String saved = queuePrefs.getString(PREFS_KEY_QUEUE, null);
+        if (saved == null) {
+            return;
+        }
+        try {
+            JSONArray queue = new JSONArray(saved);
+            for (int i = 0; i < queue.length(); i++) {
+                JSONObject item = queue.getJSONObject(i);
+                String uuid = item.getString("uuid");
+                if (!offlineRegionMap.containsKey(uuid)) {
+                    continue;
+                }
+                int state = item.optBoolean("paused", false)
+                        ? OfflineDownloadScheduler.STATE_PAUSED
+                        : OfflineDownloadScheduler.STATE_QUEUED;
+                scheduler.restore(new OfflineDownloadScheduler.Entry(
+                        uuid, item.optInt("priority", 0), item.optLong("sequence", i), state));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to decode download queue: " + e.getMessage());
+        }
+        saveQueue();
+    }
+
+    private void saveUsage() {
+        if (!stateRestored) {
+            // packs added before the regions were listed are saved with the restored usage
+            return;
+        }
+        JSONArray usages = new JSONArray();
+        try {
+            for (OfflineStorageQuota.Usage usage : quota.getUsages()) {
+                JSONObject item = new JSONObject();
+                item.put("uuid", usage.getUuid());
+                item.put("lastUsed", usage.getLastUsed());
+                item.put("pinned", usage.isPinned());
+                usages.put(item);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to encode pack usage: " + e.getMessage());
+            return;
+        }
+        usagePrefs.edit().putString(USAGE_PREFS_KEY_PACKS, usages.toString()).apply();
+    }
+
+    private void restoreUsage() {
+        String saved = usagePrefs.getString(USAGE_PREFS_KEY_PACKS, null);
+        if (saved == null) {
+            return;
+        }
+        try {
+            JSONArray usages = new JSONArray(saved);
+            for (int i = 0; i < usages.length(); i++) {
+                JSONObject item = usages.getJSONObject(i);
+                String uuid = item.getString("uuid");
+                if (packs.containsKey(uuid)) {
+                    quota.remove(uuid);
+                    quota.track(uuid, item.optLong("lastUsed", 0), item.optBoolean("pinned", false));
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to decode pack usage: " + e.getMessage());
+        }
+    }
+
+    String getRegionName(OfflineRegion offlineRegion) {
+        return catalog.getName(offlineRegion);
+    }
+
+    String getRegionUuid(OfflineRegion offlineRegion) {
+        return catalog.getUuid(offlineRegion);
+    }
+
+    public long getProgressEventsSent() {
+        return progressEventsSent;
+    }
+
+    public long getProgressEventsDropped() {
+        return progressEventsDropped;
+    }
+}
@@ -0,0 +1,77 @@
+package com.mapbox.reactnativemapboxgl;
+
+import com.mapbox.mapboxsdk.offline.OfflineRegion;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decoded metadata of every offline region, keyed by region id.
+ *
+ * Metadata is decoded once when the regions are listed or a region is created, so
+ * looking up the uuid or name of a pack no longer parses its metadata bytes. Regions
+ * whose metadata cannot be decoded are named after their id.
+ *
+ * Must only be used from the UI thread, where the SDK delivers its offline callbacks.
+ */
+public class OfflineRegionCatalog {
+
+    private final Map<Long, OfflineMetadata> byId = new HashMap<>();
+    private long decodeFailures;
+
+    /**
+     * Replaces the catalog with the given regions.
+     */
+    public void rebuild(OfflineRegion[] regions) {
+        byId.clear();
+        for (OfflineRegion region : regions) {
+            put(region);
+        }
+    }
+
+    public OfflineMetadata put(OfflineRegion region) {
+        OfflineMetadata metadata = OfflineMetadata.decode(region.getMetadata());
+        if (metadata == null) {
+            decodeFailures++;
+            String fallback = "Region " + region.getID();
+            metadata = new OfflineMetadata(fallback, fallback);
+        }
+        byId.put(region.getID(), metadata);
+        return metadata;
+    }
+
+    /**
+     * Adds a region created with already known metadata, without decoding it again.
+     */
+    public void put(OfflineRegion region, OfflineMetadata metadata) {
+        byId.put(region.getID(), metadata);
+    }
+
+    public void remove(OfflineRegion region) {
+        byId.remove(region.getID());
+    }
+
+    public @Nullable OfflineMetadata get(OfflineRegion region) {
+        return byId.get(region.getID());
+    }
+
+    public String getUuid(OfflineRegion region) {
+        OfflineMetadata metadata = byId.get(region.getID());
+        return metadata != null ? metadata.getUuid() : put(region).getUuid();
+    }
+
+    public String getName(OfflineRegion region) {
+        OfflineMetadata metadata = byId.get(region.getID());
+        return metadata != null ? metadata.getName() : put(region).getName();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public long getDecodeFailures() {
+        return decodeFailures;
+    }
+}
@@ -0,0 +1,214 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps offline packs within a storage quota by picking the least recently used ones
+ * to evict.
+ *
+ * A pack counts as used when it is created and whenever the camera settles inside its
+ * bounds. Pinned packs are never evicted but still count towards the quota. Sizes are
+ * the downloaded resource sizes of the packs, so resources shared between packs count
+ * once per pack.
+ */
+public class OfflineStorageQuota {
+
+    /**
+     * Last-used times closer together than this are not worth persisting.
+     */
+    public static final long USE_RESOLUTION_MILLIS = 60 * 1000;
+
+    public static final class Usage {
+        private final String uuid;
+        private long size;
+        private long lastUsed;
+        private boolean pinned;
+
+        Usage(String uuid, long lastUsed, boolean pinned) {
+            this.uuid = uuid;
+            this.lastUsed = lastUsed;
+            this.pinned = pinned;
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastUsed() {
+            return lastUsed;
+        }
+
+        public boolean isPinned() {
+            return pinned;
+        }
+    }
+
+    private static final Comparator<Usage> LEAST_RECENTLY_USED = new Comparator<Usage>() {
+        @Override
+        public int compare(Usage a, Usage b) {
+            return a.lastUsed < b.lastUsed ? -1 : (a.lastUsed > b.lastUsed ? 1 : 0);
+        }
+    };
+
+    private final Map<String, Usage> usages = new HashMap<>();
+    private long quotaBytes;
+    private long evictedCount;
+    private long evictedBytes;
+
+    /**
+     * @param quotaBytes the most the packs may use together, or 0 for no limit
+     */
+    public void setQuota(long quotaBytes) {
+        this.quotaBytes = Math.max(0, quotaBytes);
+    }
+
+    public long getQuota() {
+        return quotaBytes;
+    }
+
+    /**
+     * Starts tracking a pack, unless it already is.
+     */
+    public void track(String uuid, long lastUsed, boolean pinned) {
+        if (!usages.containsKey(uuid)) {
+            usages.put(uuid, new Usage(uuid, lastUsed, pinned));
+        }
+    }
+
+    public void remove(String uuid) {
+        usages.remove(uuid);
+    }
+
+    public boolean contains(String uuid) {
+        return usages.containsKey(uuid);
+    }
+
+    public void setSize(String uuid, long size) {
+        Usage usage = usages.get(uuid);
+        if (usage != null) {
+            usage.size = size;
+        }
+    }
+
+    /**
+     * @return true if the last-used time moved by at least {@link #USE_RESOLUTION_MILLIS}
+     * and should be persisted
+     */
+    public boolean markUsed(String uuid, long now) {
+        Usage usage = usages.get(uuid);
+        if (usage == null || now - usage.lastUsed < USE_RESOLUTION_MILLIS) {
+            return false;
+        }
+        usage.lastUsed = now;
+        return true;
+    }
+
+    /**
+     * @return false if the pack is not tracked
+     */
+    public boolean setPinned(String uuid, boolean pinned) {
+        Usage usage = usages.get(uuid);
+        if (usage == null) {
+            return false;
+        }
+        usage.pinned = pinned;
+        return true;
+    }
+
+    /**
+     * @return the packs to evict, least recently used first, for the others to fit the
+     * quota; empty if they already fit or there is no quota
+     */
+    public List<String> selectEvictions() {
+        long used = getUsedBytes();
+        if (quotaBytes == 0 || used <= quotaBytes) {
+            return Collections.emptyList();
+        }
+        List<Usage> candidates = new ArrayList<>();
+        for (Usage usage : usages.values()) {
+            if (!usage.pinned) {
+                candidates.add(usage);
+            }
+        }
+        Collections.sort(candidates, LEAST_RECENTLY_USED);
+
+        List<String> evictions = new ArrayList<>();
+        for (Usage usage : candidates) {
+            if (used <= quotaBytes) {
+                break;
+            }
+            evictions.add(usage.uuid);
+            used -= usage.size;
+        }
+        return evictions;
+    }
+
+    /**
+     * Stops tracking an evicted pack and counts it.
+     */
+    public void recordEviction(String uuid) {
+        Usage usage = usages.remove(uuid);
+        if (usage != null) {
+            evictedCount++;
+            evictedBytes += usage.size;
+        }
+    }
+
+    public Usage get(String uuid) {
+        return usages.get(uuid);
+    }
+
+    public Collection<Usage> getUsages() {
+        return usages.values();
+    }
+
+    public long getUsedBytes() {
+        long used = 0;
+        for (Usage usage : usages.values()) {
+            used += usage.size;
+        }
+        return used;
+    }
+
+    public long getPinnedBytes() {
+        long pinned = 0;
+        for (Usage usage : usages.values()) {
+            if (usage.pinned) {
+                pinned += usage.size;
+            }
+        }
+        return pinned;
+    }
+
+    public int getPinnedCount() {
+        int count = 0;
+        for (Usage usage : usages.values()) {
+            if (usage.pinned) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return usages.size();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getEvictedBytes() {
+        return evictedBytes;
+    }
+}
@@ -0,0 +1,312 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Static R-tree over item bounds, packed bottom up from items sorted along a Hilbert
+ * curve, with {@value #NODE_SIZE} children per node.
+ *
+ * Nodes live in direct buffers, outside the Java heap, at 20 bytes per item plus about
+ * a fifteenth of that for the inner nodes. Unlike {@link QuadTree} it cannot change once
+ * built, which is what makes it this compact; it suits large data sets loaded once.
+ *
+ * Queries are thread safe; building is not.
+ */
+public final class PackedRTree {
+
+    public static final int NODE_SIZE = 16;
+
+    private static final int HILBERT_MAX = (1 << 16) - 1;
+
+    /**
+     * Growable list of item ids, reused between queries.
+     */
+    public static final class Results {
+        private int[] ids = new int[64];
+        private int size;
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return ids[index];
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * Collects items before the tree is packed; boxes are kept in direct buffers too.
+     */
+    public static final class Builder {
+        private FloatBuffer boxes = allocateFloats(4 * 1024);
+        private IntBuffer ids = allocateInts(1024);
+        private int count;
+
+        public void add(int id, double minLat, double minLon, double maxLat, double maxLon) {
+            if (count == ids.capacity()) {
+                boxes = growFloats(boxes, boxes.capacity() * 2);
+                ids = growInts(ids, ids.capacity() * 2);
+            }
+            int b = count * 4;
+            boxes.put(b, (float) minLon);
+            boxes.put(b + 1, (float) minLat);
+            boxes.put(b + 2, (float) maxLon);
+            boxes.put(b + 3, (float) maxLat);
+            ids.put(count, id);
+            count++;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public PackedRTree build() {
+            return new PackedRTree(boxes, ids, count);
+        }
+    }
+
+    private final int itemCount;
+    private final int[] levelEnds;
+    // per node: minLon, minLat, maxLon, maxLat; rounding to float keeps the order of
+    // coordinates, so a box that intersects the query in doubles still does in floats
+    private final FloatBuffer boxes;
+    // per leaf the item id, per inner node the position of its first child
+    private final IntBuffer indices;
+
+    private PackedRTree(FloatBuffer itemBoxes, IntBuffer itemIds, int count) {
+        itemCount = count;
+
+        int nodes = count;
+        int levels = 1;
+        for (int n = count; n > 1; levels++) {
+            n = (n + NODE_SIZE - 1) / NODE_SIZE;
+            nodes += n;
+        }
+        levelEnds = new int[levels];
+        int end = count;
+        int n = count;
+        levelEnds[0] = count;
+        for (int level = 1; level < levels; level++) {
+            n = (n + NODE_SIZE - 1) / NODE_SIZE;
+            end += n;
+            levelEnds[level] = end;
+        }
+
+        boxes = allocateFloats(Math.max(1, nodes) * 4);
+        indices = allocateInts(Math.max(1, nodes));
+        if (count == 0) {
+            return;
+        }
+
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, itemBoxes.get(i * 4));
+            minY = Math.min(minY, itemBoxes.get(i * 4 + 1));
+            maxX = Math.max(maxX, itemBoxes.get(i * 4 + 2));
+            maxY = Math.max(maxY, itemBoxes.get(i * 4 + 3));
+        }
+        double width = Math.max(maxX - minX, Float.MIN_VALUE);
+        double height = Math.max(maxY - minY, Float.MIN_VALUE);
+
+        // sort by Hilbert value of the box centers, item position in the low 31 bits
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            double cx = (itemBoxes.get(i * 4) + itemBoxes.get(i * 4 + 2)) / 2.0;
+            double cy = (itemBoxes.get(i * 4 + 1) + itemBoxes.get(i * 4 + 3)) / 2.0;
+            int x = (int) (HILBERT_MAX * (cx - minX) / width);
+            int y = (int) (HILBERT_MAX * (cy - minY) / height);
+            order[i] = ((hilbert(x, y) & 0xFFFFFFFFL) << 31) | i;
+        }
+        Arrays.sort(order);
+        for (int i = 0; i < count; i++) {
+            int item = (int) (order[i] & Integer.MAX_VALUE);
+            for (int k = 0; k < 4; k++) {
+                boxes.put(i * 4 + k, itemBoxes.get(item * 4 + k));
+            }
+            indices.put(i, itemIds.get(item));
+        }
+
+        int position = 0;
+        int parent = count;
+        for (int level = 0; level < levels - 1; level++) {
+            int levelEnd = levelEnds[level];
+            while (position < levelEnd) {
+                int first = position;
+                float nodeMinX = Float.POSITIVE_INFINITY;
+                float nodeMinY = Float.POSITIVE_INFINITY;
+                float nodeMaxX = Float.NEGATIVE_INFINITY;
+                float nodeMaxY = Float.NEGATIVE_INFINITY;
+                for (int c = 0; c < NODE_SIZE && position < levelEnd; c++, position++) {
+                    nodeMinX = Math.min(nodeMinX, boxes.get(position * 4));
+                    nodeMinY = Math.min(nodeMinY, boxes.get(position * 4 + 1));
+                    nodeMaxX = Math.max(nodeMaxX, boxes.get(position * 4 + 2));
+                    nodeMaxY = Math.max(nodeMaxY, boxes.get(position * 4 + 3));
+                }
+                boxes.put(parent * 4, nodeMinX);
+                boxes.put(parent * 4 + 1, nodeMinY);
+                boxes.put(parent * 4 + 2, nodeMaxX);
+                boxes.put(parent * 4 + 3, nodeMaxY);
+                indices.put(parent, first);
+                parent++;
+            }
+        }
+    }
+
+    public int size() {
+        return itemCount;
+    }
+
+    /**
+     * Adds the ids of all items whose bounds intersect the given box to {@code out}.
+     */
+    public void query(BoundingBox box, Results out) {
+        if (itemCount == 0) {
+            return;
+        }
+        float minX = (float) box.getMinLon();
+        float minY = (float) box.getMinLat();
+        float maxX = (float) box.getMaxLon();
+        float maxY = (float) box.getMaxLat();
+
+        int[] stack = new int[levelEnds.length * NODE_SIZE];
+        int depth = 0;
+        stack[depth++] = levelEnds[levelEnds.length - 1] - 1;
+        while (depth > 0) {
+            int node = stack[--depth];
+            int first;
+            int end;
+            boolean leaves;
+            if (node < itemCount) {
+                // only reached when the whole tree is a single item
+                first = node;
+                end = node + 1;
+                leaves = true;
+            } else {
+                first = indices.get(node);
+                leaves = first < itemCount;
+                end = Math.min(first + NODE_SIZE, upperBound(first));
+            }
+            for (int position = first; position < end; position++) {
+                if (boxes.get(position * 4 + 2) < minX || boxes.get(position * 4 + 3) < minY
+                        || boxes.get(position * 4) > maxX || boxes.get(position * 4 + 1) > maxY) {
+                    continue;
+                }
+                if (leaves) {
+                    out.add(indices.get(position));
+                } else {
+                    stack[depth++] = position;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the end of the level holding {@code position}
+     */
+    private int upperBound(int position) {
+        for (int levelEnd : levelEnds) {
+            if (position < levelEnd) {
+                return levelEnd;
+            }
+        }
+        return levelEnds[levelEnds.length - 1];
+    }
+
+    /**
+     * Position of (x, y) along a Hilbert curve filling a 2^16 by 2^16 grid.
+     */
+    static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >>> 1);
+        int B = (a >>> 1) ^ a;
+        int C = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+        int D = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = (a & (a >>> 2)) ^ (b & (b >>> 2));
+        B = (a & (b >>> 2)) ^ (b & ((a ^ b) >>> 2));
+        C ^= (a & (c >>> 2)) ^ (b & (d >>> 2));
+        D ^= (b & (c >>> 2)) ^ ((a ^ b) & (d >>> 2));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = (a & (a >>> 4)) ^ (b & (b >>> 4));
+        B = (a & (b >>> 4)) ^ (b & ((a ^ b) >>> 4));
+        C ^= (a & (c >>> 4)) ^ (b & (d >>> 4));
+        D ^= (b & (c >>> 4)) ^ ((a ^ b) & (d >>> 4));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= (a & (c >>> 8)) ^ (b & (d >>> 8));
+        D ^= (b & (c >>> 8)) ^ ((a ^ b) & (d >>> 8));
+
+        a = C ^ (C >>> 1);
+        b = D ^ (D >>> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        i0 = (i0 | (i0 << 8)) & 0x00FF00FF;
+        i0 = (i0 | (i0 << 4)) & 0x0F0F0F0F;
+        i0 = (i0 | (i0 << 2)) & 0x33333333;
+        i0 = (i0 | (i0 << 1)) & 0x55555555;
+
+        i1 = (i1 | (i1 << 8)) & 0x00FF00FF;
+        i1 = (i1 | (i1 << 4)) & 0x0F0F0F0F;
+        i1 = (i1 | (i1 << 2)) & 0x33333333;
+        i1 = (i1 | (i1 << 1)) & 0x55555555;
+
+        return (i1 << 1) | i0;
+    }
+
+    static FloatBuffer allocateFloats(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    static IntBuffer allocateInts(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    static FloatBuffer growFloats(FloatBuffer buffer, int capacity) {
+        FloatBuffer grown = allocateFloats(capacity);
+        buffer.rewind();
+        grown.put(buffer);
+        return grown;
+    }
+
+    static IntBuffer growInts(IntBuffer buffer, int capacity) {
+        IntBuffer grown = allocateInts(capacity);
+        buffer.rewind();
+        grown.put(buffer);
+        return grown;
+    }
+}
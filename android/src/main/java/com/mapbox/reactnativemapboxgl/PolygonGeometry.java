@@ -0,0 +1,259 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Turns a polygon {@link AnnotationSpec} into the single ring the map draws.
+ *
+ * The SDK draws a polygon from one ring and has no holes, so holes are cut in by a
+ * keyhole: every hole is joined to the outer ring by a bridge edge travelled once in
+ * each direction, which the fill tessellation treats as a zero width slit. Holes are
+ * wound against the outer ring so their area is left out. The stroke follows the
+ * bridges too.
+ *
+ * With a vertex budget, every ring keeps only a share of its vertices, see
+ * {@link #budgetLevel(long, int)}.
+ */
+public final class PolygonGeometry {
+
+    public static final int DEFAULT_VERTEX_BUDGET = 50000;
+    public static final int MAX_BUDGET_LEVEL = 12;
+
+    // smallest ring that still encloses an area, closing vertex included
+    private static final int MIN_RING_POINTS = 4;
+    // bridge candidates tried per hole before falling back to the nearest vertex
+    private static final int MAX_BRIDGE_CANDIDATES = 64;
+
+    private PolygonGeometry() {
+    }
+
+    /**
+     * @param vertexCount number of polygon vertices on the map, holes included
+     * @param budget      vertex budget, 0 or less for none
+     * @return 0 if the polygons fit the budget, else the smallest level so that keeping
+     * 1 / 2^level of the vertices of every ring fits it
+     */
+    public static int budgetLevel(long vertexCount, int budget) {
+        int level = 0;
+        if (budget > 0) {
+            while (level < MAX_BUDGET_LEVEL && vertexCount > ((long) budget << level)) {
+                level++;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * @return packed [lat, lon, ...] coordinates of the ring to draw for {@code spec},
+     * the outer ring itself when there is nothing to simplify or cut out
+     */
+    public static double[] toDraw(AnnotationSpec spec, int budgetLevel) {
+        double[] outer = simplify(spec.getCoordinates(), budgetLevel);
+        if (spec.getHoleCount() == 0) {
+            return outer;
+        }
+        List<double[]> holes = new ArrayList<>(spec.getHoleCount());
+        for (int h = 0; h < spec.getHoleCount(); h++) {
+            double[] hole = simplify(spec.getHole(h), budgetLevel);
+            // a hole simplified down to a line would not be visible anyway
+            if (open(hole).length >= 6) {
+                holes.add(hole);
+            }
+        }
+        return holes.isEmpty() ? outer : bridgeHoles(outer, holes);
+    }
+
+    private static double[] simplify(double[] ring, int budgetLevel) {
+        int count = ring.length / 2;
+        int maxPoints = Math.max(MIN_RING_POINTS, (count + (1 << budgetLevel) - 1) >> budgetLevel);
+        return PolylineSimplifier.simplifyToCount(ring, maxPoints);
+    }
+
+    /**
+     * Joins {@code holes} into {@code outer}, left to right, each at a vertex of the
+     * outer ring, or of a hole joined before, that it can see.
+     */
+    static double[] bridgeHoles(double[] outer, List<double[]> holes) {
+        double[] ring = open(outer);
+        boolean clockwise = signedArea(ring) < 0;
+
+        List<double[]> pending = new ArrayList<>(holes.size());
+        for (double[] hole : holes) {
+            double[] open = open(hole);
+            pending.add((signedArea(open) < 0) == clockwise ? reverse(open) : open);
+        }
+        Collections.sort(pending, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] a, double[] b) {
+                return Double.compare(a[westmost(a) * 2 + 1], b[westmost(b) * 2 + 1]);
+            }
+        });
+
+        while (!pending.isEmpty()) {
+            double[] hole = pending.remove(0);
+            int start = westmost(hole);
+            int target = findBridge(ring, hole, start, pending);
+
+            int ringCount = ring.length / 2;
+            int holeCount = hole.length / 2;
+            double[] merged = new double[(ringCount + holeCount + 2) * 2];
+            int out = 0;
+            System.arraycopy(ring, 0, merged, 0, (target + 1) * 2);
+            out += (target + 1) * 2;
+            for (int i = 0; i <= holeCount; i++) {
+                int p = (start + i) % holeCount;
+                merged[out++] = hole[p * 2];
+                merged[out++] = hole[p * 2 + 1];
+            }
+            merged[out++] = ring[target * 2];
+            merged[out++] = ring[target * 2 + 1];
+            System.arraycopy(ring, (target + 1) * 2, merged, out, (ringCount - target - 1) * 2);
+            ring = merged;
+        }
+        return ring;
+    }
+
+    /**
+     * @return the vertex of {@code ring} nearest to the hole vertex {@code start} whose
+     * bridge crosses no edge, or the nearest vertex if none of the candidates qualifies
+     */
+    private static int findBridge(final double[] ring, double[] hole, int start, List<double[]> pending) {
+        final double lat = hole[start * 2];
+        final double lon = hole[start * 2 + 1];
+        int count = ring.length / 2;
+        Integer[] candidates = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            candidates[i] = i;
+        }
+        Arrays.sort(candidates, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(sqDistance(ring, a, lat, lon), sqDistance(ring, b, lat, lon));
+            }
+        });
+
+        for (int c = 0; c < Math.min(count, MAX_BRIDGE_CANDIDATES); c++) {
+            int target = candidates[c];
+            double targetLat = ring[target * 2];
+            double targetLon = ring[target * 2 + 1];
+            if (!crossesRing(ring, lat, lon, targetLat, targetLon)
+                    && !crossesRing(hole, lat, lon, targetLat, targetLon)
+                    && !crossesAny(pending, lat, lon, targetLat, targetLon)) {
+                return target;
+            }
+        }
+        return candidates[0];
+    }
+
+    private static double sqDistance(double[] ring, int index, double lat, double lon) {
+        double dLat = ring[index * 2] - lat;
+        double dLon = ring[index * 2 + 1] - lon;
+        return dLat * dLat + dLon * dLon;
+    }
+
+    private static boolean crossesAny(List<double[]> rings, double aLat, double aLon, double bLat, double bLon) {
+        for (double[] ring : rings) {
+            if (crossesRing(ring, aLat, aLon, bLat, bLon)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if segment a-b touches an edge of the closed {@code ring} anywhere
+     * but at a or b themselves
+     */
+    private static boolean crossesRing(double[] ring, double aLat, double aLon, double bLat, double bLon) {
+        int count = ring.length / 2;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            double cLat = ring[i * 2];
+            double cLon = ring[i * 2 + 1];
+            double dLat = ring[j * 2];
+            double dLon = ring[j * 2 + 1];
+            if (isEndpoint(cLat, cLon, aLat, aLon, bLat, bLon) || isEndpoint(dLat, dLon, aLat, aLon, bLat, bLon)) {
+                continue;
+            }
+            if (intersects(aLon, aLat, bLon, bLat, cLon, cLat, dLon, dLat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEndpoint(double lat, double lon, double aLat, double aLon, double bLat, double bLon) {
+        return (lat == aLat && lon == aLon) || (lat == bLat && lon == bLon);
+    }
+
+    private static boolean intersects(double ax, double ay, double bx, double by,
+                                      double cx, double cy, double dx, double dy) {
+        int o1 = orientation(ax, ay, bx, by, cx, cy);
+        int o2 = orientation(ax, ay, bx, by, dx, dy);
+        int o3 = orientation(cx, cy, dx, dy, ax, ay);
+        int o4 = orientation(cx, cy, dx, dy, bx, by);
+        if (o1 != o2 && o3 != o4) {
+            return true;
+        }
+        return (o1 == 0 && onSegment(ax, ay, bx, by, cx, cy))
+                || (o2 == 0 && onSegment(ax, ay, bx, by, dx, dy))
+                || (o3 == 0 && onSegment(cx, cy, dx, dy, ax, ay))
+                || (o4 == 0 && onSegment(cx, cy, dx, dy, bx, by));
+    }
+
+    private static int orientation(double ax, double ay, double bx, double by, double px, double py) {
+        double cross = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+        return cross > 0 ? 1 : cross < 0 ? -1 : 0;
+    }
+
+    private static boolean onSegment(double ax, double ay, double bx, double by, double px, double py) {
+        return px >= Math.min(ax, bx) && px <= Math.max(ax, bx) && py >= Math.min(ay, by) && py <= Math.max(ay, by);
+    }
+
+    /**
+     * @return twice the area of a ring in lon/lat space, positive if counter clockwise
+     */
+    static double signedArea(double[] ring) {
+        int count = ring.length / 2;
+        double sum = 0;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            sum += ring[j * 2 + 1] * ring[i * 2] - ring[i * 2 + 1] * ring[j * 2];
+        }
+        return sum;
+    }
+
+    private static int westmost(double[] ring) {
+        int west = 0;
+        for (int i = 1; i < ring.length / 2; i++) {
+            if (ring[i * 2 + 1] < ring[west * 2 + 1]) {
+                west = i;
+            }
+        }
+        return west;
+    }
+
+    /**
+     * @return the ring without a closing vertex repeating the first one
+     */
+    private static double[] open(double[] ring) {
+        int n = ring.length;
+        if (n >= 4 && ring[0] == ring[n - 2] && ring[1] == ring[n - 1]) {
+            return Arrays.copyOf(ring, n - 2);
+        }
+        return ring;
+    }
+
+    private static double[] reverse(double[] ring) {
+        int count = ring.length / 2;
+        double[] reversed = new double[ring.length];
+        for (int i = 0; i < count; i++) {
+            reversed[i * 2] = ring[(count - 1 - i) * 2];
+            reversed[i * 2 + 1] = ring[(count - 1 - i) * 2 + 1];
+        }
+        return reversed;
+    }
+}
@@ -0,0 +1,90 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.Arrays;
+
+/**
+ * Encoded polyline format (as used by Google and OSRM) to and from packed
+ * [lat, lon, lat, lon, ...] arrays.
+ */
+public final class PolylineCodec {
+
+    public static final int DEFAULT_PRECISION = 5;
+
+    private PolylineCodec() {
+    }
+
+    public static double[] decode(String encoded) {
+        return decode(encoded, DEFAULT_PRECISION);
+    }
+
+    public static double[] decode(String encoded, int precision) {
+        int length = encoded.length();
+        double factor = Math.pow(10, precision);
+        // every value takes at least one character, so length is an upper bound
+        double[] packed = new double[length + (length & 1)];
+        int count = 0;
+        int index = 0;
+        long lat = 0;
+        long lon = 0;
+
+        while (index < length) {
+            long result = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (index >= length) {
+                    throw new IllegalArgumentException("Truncated encoded polyline at index " + index);
+                }
+                b = encoded.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lat += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            result = 0;
+            shift = 0;
+            do {
+                if (index >= length) {
+                    throw new IllegalArgumentException("Truncated encoded polyline at index " + index);
+                }
+                b = encoded.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lon += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            packed[count++] = lat / factor;
+            packed[count++] = lon / factor;
+        }
+        return count == packed.length ? packed : Arrays.copyOf(packed, count);
+    }
+
+    public static String encode(double[] packed) {
+        return encode(packed, DEFAULT_PRECISION);
+    }
+
+    public static String encode(double[] packed, int precision) {
+        double factor = Math.pow(10, precision);
+        StringBuilder out = new StringBuilder(packed.length * 4);
+        long lastLat = 0;
+        long lastLon = 0;
+        for (int i = 0; i + 1 < packed.length; i += 2) {
+            long lat = Math.round(packed[i] * factor);
+            long lon = Math.round(packed[i + 1] * factor);
+            encodeValue(lat - lastLat, out);
+            encodeValue(lon - lastLon, out);
+            lastLat = lat;
+            lastLon = lon;
+        }
+        return out.toString();
+    }
+
+    private static void encodeValue(long value, StringBuilder out) {
+        value = value < 0 ? ~(value << 1) : value << 1;
+        while (value >= 0x20) {
+            out.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        out.append((char) (value + 63));
+    }
+}
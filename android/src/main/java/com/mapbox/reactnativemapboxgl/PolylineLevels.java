@@ -0,0 +1,71 @@
+package com.mapbox.reactnativemapboxgl;
+
+/**
+ * Lazily computed, cached levels of detail of one polyline, one per integer zoom level.
+ * The original geometry stays available through {@link #getSpec()}.
+ */
+public final class PolylineLevels {
+
+    public static final int MAX_LEVEL = 18;
+    public static final double DEFAULT_TOLERANCE_PIXELS = 1.0;
+    public static final int MIN_POINTS = 32;
+
+    private final AnnotationSpec spec;
+    private final double tolerancePixels;
+    private final double[][] levels = new double[MAX_LEVEL][];
+
+    public PolylineLevels(AnnotationSpec spec, double tolerancePixels) {
+        this.spec = spec;
+        this.tolerancePixels = tolerancePixels;
+    }
+
+    /**
+     * @return level index for a camera zoom, {@link #MAX_LEVEL} meaning full resolution
+     */
+    public static int levelForZoom(double zoom) {
+        if (Double.isNaN(zoom)) {
+            return MAX_LEVEL;
+        }
+        return (int) Math.max(0, Math.min(MAX_LEVEL, Math.floor(zoom)));
+    }
+
+    public static boolean isWorthSimplifying(AnnotationSpec spec) {
+        return spec.getPointCount() >= MIN_POINTS;
+    }
+
+    public AnnotationSpec getSpec() {
+        return spec;
+    }
+
+    public double getTolerancePixels() {
+        return tolerancePixels;
+    }
+
+    /**
+     * @return packed coordinates to draw at {@code level}, must not be modified
+     */
+    public double[] get(int level) {
+        if (level >= MAX_LEVEL || tolerancePixels <= 0) {
+            return spec.getCoordinates();
+        }
+        double[] coordinates = levels[level];
+        if (coordinates == null) {
+            // use the tolerance of the next zoom so the error stays under tolerancePixels
+            // for the whole [level, level + 1) zoom range
+            double tolerance = PolylineSimplifier.toleranceForZoom(tolerancePixels, level + 1);
+            coordinates = PolylineSimplifier.simplify(spec.getCoordinates(), tolerance);
+            levels[level] = coordinates;
+        }
+        return coordinates;
+    }
+
+    public int getCachedLevelCount() {
+        int count = 0;
+        for (double[] level : levels) {
+            if (level != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
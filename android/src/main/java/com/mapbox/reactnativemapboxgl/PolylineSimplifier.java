@@ -0,0 +1,200 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.PriorityQueue;
+
+/**
+ * Douglas-Peucker simplification of packed [lat, lon, ...] lines, measured in
+ * web mercator space so a tolerance maps to a constant number of screen pixels.
+ */
+public final class PolylineSimplifier {
+
+    private PolylineSimplifier() {
+    }
+
+    /**
+     * @return tolerance in normalized world units for {@code pixels} at {@code zoom}
+     */
+    public static double toleranceForZoom(double pixels, double zoom) {
+        return pixels / WebMercator.worldSize(zoom);
+    }
+
+    /**
+     * Simplifies {@code packed} keeping its first and last vertex. Returns the input
+     * array itself when no vertex can be dropped.
+     *
+     * @param tolerance maximum deviation in normalized world units
+     */
+    public static double[] simplify(double[] packed, double tolerance) {
+        int count = packed.length / 2;
+        if (count < 3 || tolerance <= 0) {
+            return packed;
+        }
+
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            y[i] = WebMercator.latToY(packed[i * 2]);
+            x[i] = WebMercator.lonToX(packed[i * 2 + 1]);
+        }
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        int kept = 2;
+
+        double sqTolerance = tolerance * tolerance;
+        // explicit stack of [first, last] index ranges, avoids recursion depth on long tracks
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            double maxSqDist = sqTolerance;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double sqDist = sqSegmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (sqDist > maxSqDist) {
+                    maxSqDist = sqDist;
+                    index = i;
+                }
+            }
+
+            if (index != -1) {
+                keep[index] = true;
+                kept++;
+                if (top + 4 > stack.length) {
+                    int[] grown = new int[stack.length * 2];
+                    System.arraycopy(stack, 0, grown, 0, top);
+                    stack = grown;
+                }
+                if (index - first > 1) {
+                    stack[top++] = first;
+                    stack[top++] = index;
+                }
+                if (last - index > 1) {
+                    stack[top++] = index;
+                    stack[top++] = last;
+                }
+            }
+        }
+
+        if (kept == count) {
+            return packed;
+        }
+        double[] simplified = new double[kept * 2];
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                simplified[out++] = packed[i * 2];
+                simplified[out++] = packed[i * 2 + 1];
+            }
+        }
+        return simplified;
+    }
+
+    /**
+     * Simplifies {@code packed} down to at most {@code maxPoints} vertices, keeping its
+     * first and last vertex. Ranges are split at their farthest vertex, farthest first,
+     * so the result is the Douglas-Peucker simplification with the smallest tolerance
+     * that fits. Returns the input array itself when it already fits.
+     */
+    public static double[] simplifyToCount(double[] packed, int maxPoints) {
+        int count = packed.length / 2;
+        if (count <= maxPoints || count < 3) {
+            return packed;
+        }
+        maxPoints = Math.max(2, maxPoints);
+
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            y[i] = WebMercator.latToY(packed[i * 2]);
+            x[i] = WebMercator.lonToX(packed[i * 2 + 1]);
+        }
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        int kept = 2;
+
+        PriorityQueue<Split> splits = new PriorityQueue<>();
+        addSplit(splits, x, y, 0, count - 1);
+        while (kept < maxPoints && !splits.isEmpty()) {
+            Split split = splits.poll();
+            keep[split.index] = true;
+            kept++;
+            addSplit(splits, x, y, split.first, split.index);
+            addSplit(splits, x, y, split.index, split.last);
+        }
+
+        double[] simplified = new double[kept * 2];
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                simplified[out++] = packed[i * 2];
+                simplified[out++] = packed[i * 2 + 1];
+            }
+        }
+        return simplified;
+    }
+
+    private static void addSplit(PriorityQueue<Split> splits, double[] x, double[] y, int first, int last) {
+        if (last - first < 2) {
+            return;
+        }
+        double maxSqDist = -1;
+        int index = -1;
+        for (int i = first + 1; i < last; i++) {
+            double sqDist = sqSegmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+            if (sqDist > maxSqDist) {
+                maxSqDist = sqDist;
+                index = i;
+            }
+        }
+        splits.add(new Split(first, last, index, maxSqDist));
+    }
+
+    private static final class Split implements Comparable<Split> {
+        final int first;
+        final int last;
+        final int index;
+        final double sqDist;
+
+        Split(int first, int last, int index, double sqDist) {
+            this.first = first;
+            this.last = last;
+            this.index = index;
+            this.sqDist = sqDist;
+        }
+
+        @Override
+        public int compareTo(Split other) {
+            return Double.compare(other.sqDist, sqDist);
+        }
+    }
+
+    /**
+     * Squared distance from point p to segment a-b.
+     */
+    public static double sqSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        if (dx != 0 || dy != 0) {
+            double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                ax = bx;
+                ay = by;
+            } else if (t > 0) {
+                ax += dx * t;
+                ay += dy * t;
+            }
+        }
+        dx = px - ax;
+        dy = py - ay;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,195 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Region quadtree over latitude/longitude bounding boxes supporting insertion,
+ * removal and box queries. Each item lives in the deepest node that fully contains
+ * its box, so large items stay near the root and points sink to the leaves.
+ *
+ * Not thread safe.
+ */
+public final class QuadTree<T> {
+
+    private static final int NODE_CAPACITY = 16;
+    private static final int MAX_DEPTH = 18;
+
+    private final Node<T> root;
+    private final Map<T, Item<T>> items = new HashMap<>();
+
+    private static final class Item<T> {
+        final T value;
+        final double minLat;
+        final double minLon;
+        final double maxLat;
+        final double maxLon;
+        Node<T> node;
+        int index;
+
+        Item(T value, BoundingBox bounds) {
+            this.value = value;
+            this.minLat = bounds.getMinLat();
+            this.minLon = bounds.getMinLon();
+            this.maxLat = bounds.getMaxLat();
+            this.maxLon = bounds.getMaxLon();
+        }
+    }
+
+    private static final class Node<T> {
+        final double minLat;
+        final double minLon;
+        final double maxLat;
+        final double maxLon;
+        final int depth;
+        final List<Item<T>> items = new ArrayList<>();
+        Node<T>[] children;
+
+        Node(double minLat, double minLon, double maxLat, double maxLon, int depth) {
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.maxLat = maxLat;
+            this.maxLon = maxLon;
+            this.depth = depth;
+        }
+
+        boolean contains(Item<T> item) {
+            return item.minLat >= minLat && item.maxLat <= maxLat
+                    && item.minLon >= minLon && item.maxLon <= maxLon;
+        }
+
+        boolean intersects(BoundingBox box) {
+            return box.intersects(minLat, minLon, maxLat, maxLon);
+        }
+
+        void add(Item<T> item) {
+            item.node = this;
+            item.index = items.size();
+            items.add(item);
+        }
+
+        void remove(Item<T> item) {
+            // swap with the last item so removal stays O(1)
+            Item<T> last = items.remove(items.size() - 1);
+            if (last != item) {
+                items.set(item.index, last);
+                last.index = item.index;
+            }
+            item.node = null;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void split() {
+            double midLat = (minLat + maxLat) / 2;
+            double midLon = (minLon + maxLon) / 2;
+            children = new Node[]{
+                    new Node<T>(minLat, minLon, midLat, midLon, depth + 1),
+                    new Node<T>(minLat, midLon, midLat, maxLon, depth + 1),
+                    new Node<T>(midLat, minLon, maxLat, midLon, depth + 1),
+                    new Node<T>(midLat, midLon, maxLat, maxLon, depth + 1)
+            };
+        }
+
+        Node<T> childContaining(Item<T> item) {
+            for (Node<T> child : children) {
+                if (child.contains(item)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+
+    public QuadTree() {
+        this(BoundingBox.WORLD);
+    }
+
+    public QuadTree(BoundingBox extent) {
+        root = new Node<>(extent.getMinLat(), extent.getMinLon(), extent.getMaxLat(), extent.getMaxLon(), 0);
+    }
+
+    /**
+     * Adds {@code value}, replacing its previous bounds if it was already present.
+     */
+    public void put(T value, BoundingBox bounds) {
+        remove(value);
+        Item<T> item = new Item<>(value, bounds);
+        items.put(value, item);
+
+        Node<T> node = root;
+        while (true) {
+            if (node.children != null) {
+                Node<T> child = node.childContaining(item);
+                if (child != null) {
+                    node = child;
+                    continue;
+                }
+            }
+            node.add(item);
+            if (node.children == null && node.items.size() > NODE_CAPACITY && node.depth < MAX_DEPTH) {
+                pushDown(node);
+            }
+            return;
+        }
+    }
+
+    private void pushDown(Node<T> node) {
+        node.split();
+        List<Item<T>> held = new ArrayList<>(node.items);
+        node.items.clear();
+        for (Item<T> item : held) {
+            Node<T> child = node.childContaining(item);
+            (child != null ? child : node).add(item);
+        }
+    }
+
+    public boolean remove(T value) {
+        Item<T> item = items.remove(value);
+        if (item == null) {
+            return false;
+        }
+        item.node.remove(item);
+        return true;
+    }
+
+    public boolean contains(T value) {
+        return items.containsKey(value);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public void clear() {
+        items.clear();
+        root.items.clear();
+        root.children = null;
+    }
+
+    /**
+     * Adds every value whose bounds intersect {@code box} to {@code out}.
+     */
+    public void query(BoundingBox box, Collection<T> out) {
+        List<Node<T>> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.remove(stack.size() - 1);
+            for (int i = 0; i < node.items.size(); i++) {
+                Item<T> item = node.items.get(i);
+                if (box.intersects(item.minLat, item.minLon, item.maxLat, item.maxLon)) {
+                    out.add(item.value);
+                }
+            }
+            if (node.children != null) {
+                for (Node<T> child : node.children) {
+                    if (child.intersects(box)) {
+                        stack.add(child);
+                    }
+                }
+            }
+        }
+    }
+}
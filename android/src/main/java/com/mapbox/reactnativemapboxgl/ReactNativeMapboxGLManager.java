@@ -1,12 +1,9 @@
 package com.mapbox.reactnativemapboxgl;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Color;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
 import android.location.Location;
-import android.os.StrictMode;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
@@ -29,6 +26,7 @@ import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
@@ -49,15 +47,13 @@ import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.maps.TrackingSettings;
 import com.mapbox.mapboxsdk.maps.UiSettings;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import javax.annotation.Nullable;
 
 import org.json.JSONObject;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -86,30 +82,46 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
     public static final String PROP_LOGO_IS_HIDDEN = "logoIsHidden";
     public static final String PROP_ATTRIBUTION_BUTTON_IS_HIDDEN = "attributionButtonIsHidden";
     public static final String PROP_ADD_PACK = "addPackForRegion";
+    public static final String PROP_POLYLINE_SIMPLIFICATION_TOLERANCE = "polylineSimplificationTolerance";
+    public static final String PROP_POLYGON_VERTEX_BUDGET = "polygonVertexBudget";
+    public static final String PROP_CLUSTER_ANNOTATIONS = "clusterAnnotations";
+    public static final String PROP_CLUSTER_RADIUS = "clusterRadius";
+    public static final String PROP_CLUSTER_MAX_ZOOM = "clusterMaxZoom";
+    public static final String PROP_CULL_ANNOTATIONS = "cullAnnotations";
+    public static final String PROP_CULLING_MARGIN = "cullingMargin";
+    public static final String PROP_HIT_TEST_RADIUS = "hitTestRadius";
+    public static final String PROP_LOCATION_MAX_ACCURACY = "locationMaxAccuracy";
+    public static final String PROP_LOCATION_MIN_DISPLACEMENT = "locationMinDisplacement";
+    public static final String PROP_LOCATION_SMOOTHING = "locationSmoothing";
+    public static final String PROP_LOCATION_BATCH_SIZE = "locationBatchSize";
+    public static final String PROP_LOCATION_MAX_LATENCY = "locationMaxLatency";
+    public static final String PROP_REGION_CHANGE_POLICY = "regionChangePolicy";
+    public static final String PROP_REGION_CHANGE_HZ = "regionChangeHz";
+    public static final String PROP_REGION_CHANGE_MIN_DISTANCE = "regionChangeMinDistance";
+    public static final String PROP_REGION_CHANGE_MIN_ZOOM_DELTA = "regionChangeMinZoomDelta";
     //public static final String PROP_GET_PACKS = "getPacks";
     //public static final String PROP_REMOVE_PACK = "removePack";
 
-    private MapView mapView;
-    private MapboxMap mapboxMap;
-    private UiSettings uiSettings;
-    private TrackingSettings trackingSettings;
-
     private ThemedReactContext ctx;
 
-    private MapSettings mapSettings;
+    private final MapRegistry registry = new MapRegistry();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    private OfflineManager offlineManager;
+    private OfflinePackManager offlinePacks;
 
-    private Map<String,OfflineRegion> offlineRegionMap;
+    private TrackRecorder tracks;
 
     private static String APPLICATION_ID;
 
     private static final String TAG = ReactNativeMapboxGLManager.class.getSimpleName();
 
-    // JSON encoding/decoding
-    public final static String JSON_CHARSET = "UTF-8";
-    public final static String JSON_FIELD_REGION_NAME = "FIELD_REGION_NAME";
-    public final static String JSON_FIELD_REGION_UUID = "uuid";
+    private static final Metrics.Histogram HIT_TEST_NANOS = Metrics.histogram("annotations.hitTestNanos");
+
+    // prefix for the ids of recorded track lines, chosen so it does not clash with ids coming from JS
+    private static final String TRACK_ID_PREFIX = "\u0001track:";
+    private static final int DEFAULT_TRACK_COLOR = Color.parseColor("#3887be");
+    private static final float DEFAULT_TRACK_WIDTH = 4;
 
     @Override
     public String getName() {
@@ -126,38 +138,108 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
 
         MapboxAccountManager.start(context, "pk.foo");
 
-        mapView = new MapView(context);
+        MapView mapView = new MapView(context);
         mapView.onCreate(null);
 
         //resume activity
         mapView.onResume();
 
-        StrictMode.ThreadPolicy policy = new StrictMode.ThreadPolicy.Builder().permitAll().build();
-        StrictMode.setThreadPolicy(policy);
+        AnnotationStore annotationStore = new AnnotationStore();
+        annotationStore.setIconLoader(IconLoader.getInstance(context));
+        final MapInstance instance = new MapInstance(mapView, new MapSettings(), annotationStore);
+        registry.add(instance);
 
-        //init map setting bean
-        mapSettings = new MapSettings();
+        //load all map packs
+        if (offlinePacks == null) {
+            offlinePacks = new OfflinePackManager(context);
+            offlinePacks.getPacks(null);
+        }
 
-        // Set up the OfflineManager
-        offlineRegionMap = new HashMap<String,OfflineRegion>();
+        instance.setRegionChangeEmitter(new RegionChangeEmitter(new RegionChangeEmitter.Listener() {
+            @Override
+            public void onRegionChange(double latitude, double longitude, double zoom, double bearing, double tilt, boolean idle) {
+                WritableMap src = Arguments.createMap();
+                src.putDouble("latitude", latitude);
+                src.putDouble("longitude", longitude);
+                src.putDouble("zoom", zoom);
+                src.putDouble("direction", bearing);
+                src.putDouble("tilt", tilt);
+                src.putBoolean("idle", idle);
+                WritableMap event = Arguments.createMap();
+                event.putMap("src", src);
+                emitEvent(instance, "onRegionChange", event);
+            }
+        }));
 
-        offlineManager = OfflineManager.getInstance(ctx);
+        instance.setMapChangedListener(new MapView.OnMapChangedListener() {
+            @Override
+            public void onMapChanged(int change) {
+                MapboxMap map = instance.getMap();
+                if (map == null) {
+                    return;
+                }
+                if (change == MapView.REGION_IS_CHANGING) {
+                    instance.getRegionChangeEmitter().onRegionChanging(map);
+                } else if (change == MapView.REGION_DID_CHANGE || change == MapView.REGION_DID_CHANGE_ANIMATED) {
+                    onCameraIdle(instance);
+                    instance.getRegionChangeEmitter().onRegionDidChange(map);
+                }
+            }
+        });
 
-        //load all map packs
-        getPacks(mapView);
+        instance.setLocationEmitter(new LocationEmitter(new LocationEmitter.Listener() {
+            @Override
+            public void onLocations(List<LocationEmitter.Fix> fixes, int accuracyFiltered, int displacementFiltered) {
+                recordTrack(instance, fixes);
+                if (instance.getSettings().isUserLocationEvents()) {
+                    emitLocations(instance, fixes, accuracyFiltered, displacementFiltered);
+                }
+            }
+        }));
 
         mapView.getMapAsync(new OnMapReadyCallback() {
             @Override
             public void onMapReady(@NonNull MapboxMap m) {
+                if (instance.isReleased()) {
+                    return;
+                }
 
                 Toast.makeText(ctx, "[MapManager] map ready: ", Toast.LENGTH_SHORT).show();
 
-                mapboxMap = m;
+                m.setStyleUrl(Style.MAPBOX_STREETS);
 
-                uiSettings = m.getUiSettings();
-                trackingSettings = m.getTrackingSettings();
+                instance.setMap(m);
+                onCameraIdle(instance);
 
-                mapboxMap.setStyleUrl(Style.MAPBOX_STREETS);
+                m.setOnMarkerClickListener(new MapboxMap.OnMarkerClickListener() {
+                    @Override
+                    public boolean onMarkerClick(@NonNull Marker marker) {
+                        return onAnnotationClick(instance, marker);
+                    }
+                });
+                m.setOnMapClickListener(new MapboxMap.OnMapClickListener() {
+                    @Override
+                    public void onMapClick(@NonNull LatLng point) {
+                        onMapTap(instance, point);
+                    }
+                });
+                m.setOnMapLongClickListener(new MapboxMap.OnMapLongClickListener() {
+                    @Override
+                    public void onMapLongClick(@NonNull LatLng point) {
+                        onMapLongPress(instance, point);
+                    }
+                });
+                m.setOnMyLocationChangeListener(new MapboxMap.OnMyLocationChangeListener() {
+                    @Override
+                    public void onMyLocationChange(@Nullable Location location) {
+                        if (location != null) {
+                            instance.getLocationEmitter().offer(location.getTime(), location.getLatitude(), location.getLongitude(),
+                                    location.hasAccuracy() ? location.getAccuracy() : 0,
+                                    location.getAltitude(), location.getBearing(), location.getSpeed());
+                        }
+                    }
+                });
+                m.setMyLocationEnabled(instance.getSettings().isShowsUserLocation());
 
                 /*
                 CameraPosition cameraPosition = new CameraPosition.Builder()
@@ -173,192 +255,408 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
         return mapView;
     }
 
-/*
-    public void onMapReady(final MapView view, Boolean value) {
-
-        Toast.makeText(ctx, "[MapManager] map ready ", Toast.LENGTH_SHORT).show();
-
-        mapView.getMapAsync(new OnMapReadyCallback() {
-            @Override
-            public void onMapReady(@NonNull MapboxMap m) {
-
-                Toast.makeText(ctx, "[MapManager] map ready: ", Toast.LENGTH_SHORT).show();
+    @Override
+    public void onDropViewInstance(MapView view) {
+        super.onDropViewInstance(view);
+        MapInstance instance = registry.remove(view);
+        if (instance != null) {
+            stopTrackRecording(instance);
+            instance.release();
+        }
+    }
 
-                mapboxMap = m;
+    /**
+     * @return the map rendered under React tag {@code mapRef}, or null if there is none
+     */
+    public MapInstance getMapInstance(int mapRef) {
+        return registry.get(mapRef);
+    }
 
-                uiSettings = mapboxMap.getUiSettings();
-                trackingSettings = mapboxMap.getTrackingSettings();
+    private MapInstance instanceFor(MapView view) {
+        return registry.get(view);
+    }
 
-                mapboxMap.setStyleUrl(Style.MAPBOX_STREETS);
+    private void onCameraIdle(MapInstance instance) {
+        MapboxMap map = instance.getMap();
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        instance.getAnnotationPipeline().onCameraIdle(map.getCameraPosition().zoom, BoundingBox.fromEdges(
+                bounds.getLatNorth(), bounds.getLatSouth(), bounds.getLonEast(), bounds.getLonWest()));
+        LatLng target = map.getCameraPosition().target;
+        offlinePacks.markUsed(target.getLatitude(), target.getLongitude());
+    }
 
+    private boolean onAnnotationClick(MapInstance instance, Marker marker) {
+        AnnotationStore annotationStore = instance.getAnnotationStore();
+        String id = annotationStore.getId(marker);
+        ClusterIndex.Cluster cluster = id != null ? annotationStore.getCluster(id) : null;
+        if (cluster == null) {
+            AnnotationSpec spec = id != null ? annotationStore.get(id) : null;
+            if (spec != null) {
+                WritableMap event = Arguments.createMap();
+                event.putMap("src", annotationEvent(spec, spec.getLatitude(0), spec.getLongitude(0)));
+                emitEvent(instance, "onOpenAnnotation", event);
             }
-        });
+            // let the map open the info window as usual
+            return false;
+        }
+
+        WritableArray members = Arguments.createArray();
+        for (String memberId : annotationStore.getClusterMemberIds(cluster)) {
+            members.pushString(memberId);
+        }
+        WritableMap src = Arguments.createMap();
+        src.putString("id", id);
+        src.putInt("count", cluster.getCount());
+        src.putDouble("latitude", cluster.getLatitude());
+        src.putDouble("longitude", cluster.getLongitude());
+        src.putArray("memberIds", members);
+        WritableMap event = Arguments.createMap();
+        event.putMap("src", src);
+        emitEvent(instance, "onClusterPress", event);
+        return true;
     }
-*/
 
-    public void addPackForRegion(MapView view, ReadableMap options, Callback progressCallback) {
-
-        // Create a bounding box for the offline region
-        LatLngBounds latLngBounds = new LatLngBounds.Builder()
-                .include(new LatLng(options.getArray("boundary").getMap(0).getDouble("latitude"), options.getArray("boundary").getMap(0).getDouble("longitude"))) // Northeast
-                .include(new LatLng(options.getArray("boundary").getMap(1).getDouble("latitude"), options.getArray("boundary").getMap(1).getDouble("longitude"))) // Southwest
-                .build();
-
-        // Define the offline region
-        OfflineTilePyramidRegionDefinition definition = new OfflineTilePyramidRegionDefinition(
-                Style.MAPBOX_STREETS,
-                latLngBounds,
-                options.getInt("minZoomLevel"),
-                options.getInt("maxZoomLevel"),
-                1);
-
-        // Set the metadata
-        byte[] metadata;
-        try {
-            JSONObject jsonObject = new JSONObject();
-            jsonObject.put(JSON_FIELD_REGION_NAME, options.getMap("metadata").getString("name"));
-            jsonObject.put(JSON_FIELD_REGION_UUID, options.getMap("metadata").getString("uuid"));
-            String json = jsonObject.toString();
-            metadata = json.getBytes(JSON_CHARSET);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to encode metadata: " + e.getMessage());
-            metadata = null;
-        }
-
-
-        // Create the region asynchronously
-        offlineManager.createOfflineRegion(definition, metadata, new OfflineManager.CreateOfflineRegionCallback() {
-            @Override
-            public void onCreate(OfflineRegion offlineRegion) {
-                offlineRegion.setDownloadState(OfflineRegion.STATE_ACTIVE);
+    /**
+     * Taps on markers are handled by the map; this resolves taps on everything else.
+     */
+    private void onMapTap(MapInstance instance, LatLng point) {
+        AnnotationSpec spec = hitTest(instance, point);
+        if (spec != null) {
+            WritableMap event = Arguments.createMap();
+            event.putMap("src", annotationEvent(spec, point.getLatitude(), point.getLongitude()));
+            emitEvent(instance, "onOpenAnnotation", event);
+        }
+    }
 
-                // Monitor the download progress using setObserver
-                offlineRegion.setObserver(new OfflineRegion.OfflineRegionObserver() {
-                    @Override
-                    public void onStatusChanged(OfflineRegionStatus status) {
+    private void onMapLongPress(MapInstance instance, LatLng point) {
+        WritableMap src = Arguments.createMap();
+        src.putDouble("latitude", point.getLatitude());
+        src.putDouble("longitude", point.getLongitude());
+        AnnotationSpec spec = hitTest(instance, point);
+        if (spec != null) {
+            src.putMap("annotation", annotationEvent(spec, point.getLatitude(), point.getLongitude()));
+        }
+        WritableMap event = Arguments.createMap();
+        event.putMap("src", src);
+        emitEvent(instance, "onLongPress", event);
+    }
 
-                        // Calculate the download percentage and update the progress bar
-                        double percentage = status.getRequiredResourceCount() >= 0 ?
-                                (100.0 * status.getCompletedResourceCount() / status.getRequiredResourceCount()) :
-                                0.0;
+    private AnnotationSpec hitTest(MapInstance instance, LatLng point) {
+        long start = Metrics.start();
+        AnnotationStore annotationStore = instance.getAnnotationStore();
+        String id = annotationStore.hitTest(point.getLatitude(), point.getLongitude(),
+                instance.getMap().getCameraPosition().zoom, instance.getSettings().getHitTestRadius());
+        HIT_TEST_NANOS.recordSince(start);
+        return id != null ? annotationStore.get(id) : null;
+    }
 
-                        //progressCallback.invoke(percentage);
+    /**
+     * @param latitude  where the annotation was tapped; for a point, the point itself
+     * @param longitude where the annotation was tapped; for a point, the point itself
+     */
+    private static WritableMap annotationEvent(AnnotationSpec spec, double latitude, double longitude) {
+        WritableMap src = Arguments.createMap();
+        src.putString("id", spec.getId());
+        src.putString("type", spec.getType() == AnnotationSpec.TYPE_POINT ? "point"
+                : spec.getType() == AnnotationSpec.TYPE_POLYLINE ? "polyline" : "polygon");
+        src.putString("title", spec.getTitle());
+        src.putString("subtitle", spec.getSubtitle());
+        src.putDouble("latitude", latitude);
+        src.putDouble("longitude", longitude);
+        if (spec.hasAlpha()) {
+            src.putDouble("alpha", spec.getAlpha());
+        }
+        if (spec.hasStrokeColor()) {
+            src.putString("strokeColor", toHexColor(spec.getStrokeColor()));
+        }
+        if (spec.hasFillColor()) {
+            src.putString("fillColor", toHexColor(spec.getFillColor()));
+        }
+        if (spec.hasStrokeWidth()) {
+            src.putDouble("strokeWidth", spec.getStrokeWidth());
+        }
+        return src;
+    }
 
-                        if (status.isComplete()) {
-                            // Download complete
-                            Toast.makeText(ctx, "Region downloaded successfully.", Toast.LENGTH_SHORT).show();
+    private static String toHexColor(int color) {
+        return String.format("#%08X", color);
+    }
 
-                        } else if (status.isRequiredResourceCountPrecise()) {
+    /**
+     * The latest fix is at the top level of the event, like a single location update;
+     * all fixes of the batch, the latest included, are in {@code fixes}.
+     */
+    private void emitLocations(MapInstance instance, List<LocationEmitter.Fix> fixes,
+                               int accuracyFiltered, int displacementFiltered) {
+        WritableArray batch = Arguments.createArray();
+        for (LocationEmitter.Fix fix : fixes) {
+            batch.pushMap(locationEvent(fix));
+        }
+        WritableMap src = locationEvent(fixes.get(fixes.size() - 1));
+        src.putArray("fixes", batch);
+        src.putInt("accuracyFiltered", accuracyFiltered);
+        src.putInt("displacementFiltered", displacementFiltered);
+        WritableMap event = Arguments.createMap();
+        event.putMap("src", src);
+        emitEvent(instance, "onUserLocationChange", event);
+    }
 
-                            Toast.makeText(ctx, "Region perc downloaded : " + percentage, Toast.LENGTH_SHORT).show();
+    /**
+     * Appends accepted fixes to the track the map records, if any, and redraws its
+     * latest part.
+     */
+    private void recordTrack(MapInstance instance, List<LocationEmitter.Fix> fixes) {
+        String name = instance.getRecordingTrack();
+        if (name == null) {
+            return;
+        }
+        boolean recorded = false;
+        for (LocationEmitter.Fix fix : fixes) {
+            recorded |= tracks.append(name, fix.getTime(), fix.getLatitude(), fix.getLongitude(), fix.getAccuracy());
+        }
+        if (!recorded) {
+            // the track file could not be opened, the callback has reported it
+            stopTrackRecording(instance);
+            return;
+        }
+        double[] tail = tracks.getTail(name);
+        if (tail != null && tail.length >= 4) {
+            instance.getAnnotationPipeline().setOverlay(instance.getTrackOverlay().coordinates(tail).build());
+        }
+    }
 
-                            // Switch to determinate state
-                            //setPercentage((int) Math.round(percentage));
+    /**
+     * Records the user location fixes accepted by the map to the track {@code name}, see
+     * {@link TrackRecorder#start}, and draws its latest fixes. A track recorded by the
+     * map before is stopped.
+     */
+    public void startTrackRecording(MapView view, final String name, @Nullable final ReadableMap options,
+                                    @Nullable final Callback callback) {
+        final MapInstance instance = instanceFor(view);
+        final TrackRecorder recorder = getTrackRecorder(ctx);
+        recorder.post(new Runnable() {
+            @Override
+            public void run() {
+                if (instance.isReleased()) {
+                    return;
+                }
+                AnnotationSpec.Builder overlay = new AnnotationSpec.Builder()
+                        .id(TRACK_ID_PREFIX + name)
+                        .type(AnnotationSpec.TYPE_POLYLINE)
+                        .title(name)
+                        .strokeColor(DEFAULT_TRACK_COLOR)
+                        .strokeWidth(DEFAULT_TRACK_WIDTH);
+                int ringSize = TrackBuffer.DEFAULT_CAPACITY;
+                int syncEvery = TrackRecorder.DEFAULT_SYNC_EVERY;
+                long syncInterval = TrackRecorder.DEFAULT_SYNC_INTERVAL_MILLIS;
+                if (options != null) {
+                    try {
+                        if (options.hasKey("strokeColor")) {
+                            overlay.strokeColor(Color.parseColor(options.getString("strokeColor")));
+                        }
+                    } catch (IllegalArgumentException e) {
+                        if (callback != null) {
+                            callback.invoke(e.getMessage());
                         }
+                        return;
                     }
-
-                    @Override
-                    public void onError(OfflineRegionError error) {
-                        // If an error occurs, print to logcat
-                        Log.e(TAG, "onError reason: " + error.getReason());
-                        Log.e(TAG, "onError message: " + error.getMessage());
+                    if (options.hasKey("strokeWidth")) {
+                        overlay.strokeWidth((float) options.getDouble("strokeWidth"));
                     }
-
-                    @Override
-                    public void mapboxTileCountLimitExceeded(long limit) {
-                        // Notify if offline region exceeds maximum tile count
-                        Log.e(TAG, "Mapbox tile count limit exceeded: " + limit);
+                    if (options.hasKey("alpha")) {
+                        overlay.alpha((float) options.getDouble("alpha"));
                     }
-                });
+                    if (options.hasKey("ringSize")) {
+                        ringSize = options.getInt("ringSize");
+                    }
+                    if (options.hasKey("syncEvery")) {
+                        syncEvery = options.getInt("syncEvery");
+                    }
+                    if (options.hasKey("syncInterval")) {
+                        syncInterval = (long) options.getDouble("syncInterval");
+                    }
+                }
+                stopTrackRecording(instance);
+                if (recorder.start(name, ringSize, syncEvery, syncInterval, callback)) {
+                    instance.setRecordingTrack(name, overlay);
+                    updateLocationEmitterEnabled(instance);
+                }
             }
+        });
+    }
 
+    public void stopTrackRecording(MapView view) {
+        final MapInstance instance = instanceFor(view);
+        getTrackRecorder(ctx).post(new Runnable() {
             @Override
-            public void onError(String error) {
-                Log.e(TAG, "Error: " + error);
+            public void run() {
+                stopTrackRecording(instance);
             }
         });
+    }
+
+    private void stopTrackRecording(MapInstance instance) {
+        String name = instance.getRecordingTrack();
+        if (name == null) {
+            return;
+        }
+        tracks.stop(name);
+        instance.getAnnotationPipeline().removeOverlay(TRACK_ID_PREFIX + name);
+        instance.setRecordingTrack(null, null);
+        updateLocationEmitterEnabled(instance);
+    }
 
+    /**
+     * Location fixes are filtered as long as JS listens for them or a track is recorded.
+     */
+    private static void updateLocationEmitterEnabled(MapInstance instance) {
+        instance.getLocationEmitter().setEnabled(
+                instance.getSettings().isUserLocationEvents() || instance.getRecordingTrack() != null);
+    }
 
+    /**
+     * @return the recorder shared by all maps, created on first use
+     */
+    public synchronized TrackRecorder getTrackRecorder(Context context) {
+        if (tracks == null) {
+            tracks = new TrackRecorder(context.getFilesDir());
+        }
+        return tracks;
     }
 
-    public void getPacks(MapView view) {
-        Toast.makeText(ctx, "[MapManager] getPacks ", Toast.LENGTH_SHORT).show();
+    private static WritableMap locationEvent(LocationEmitter.Fix fix) {
+        WritableMap location = Arguments.createMap();
+        location.putDouble("latitude", fix.getLatitude());
+        location.putDouble("longitude", fix.getLongitude());
+        location.putDouble("accuracy", fix.getAccuracy());
+        location.putDouble("altitude", fix.getAltitude());
+        location.putDouble("bearing", fix.getBearing());
+        location.putDouble("speed", fix.getSpeed());
+        location.putDouble("timestamp", fix.getTime());
+        return location;
+    }
 
-        offlineManager.listOfflineRegions(new OfflineManager.ListOfflineRegionsCallback() {
+    private void emitEvent(MapInstance instance, String name, WritableMap event) {
+        event.putInt("target", instance.getTag());
+        ctx.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(name, event);
+    }
+
+/*
+    public void onMapReady(final MapView view, Boolean value) {
+
+        Toast.makeText(ctx, "[MapManager] map ready ", Toast.LENGTH_SHORT).show();
+
+        mapView.getMapAsync(new OnMapReadyCallback() {
             @Override
-            public void onList(final OfflineRegion[] offlineRegions) {
+            public void onMapReady(@NonNull MapboxMap m) {
 
-                offlineRegionMap.clear();
+                Toast.makeText(ctx, "[MapManager] map ready: ", Toast.LENGTH_SHORT).show();
+
+                mapboxMap = m;
+
+                uiSettings = mapboxMap.getUiSettings();
+                trackingSettings = mapboxMap.getTrackingSettings();
+
+                mapboxMap.setStyleUrl(Style.MAPBOX_STREETS);
 
-                for (OfflineRegion offlineRegion : offlineRegions) {
-                    Toast.makeText(ctx, "[MapManager] pack name " + getRegionName(offlineRegion), Toast.LENGTH_SHORT).show();
-                    offlineRegionMap.put(getRegionUuid(offlineRegion), offlineRegion);
-                }
             }
+        });
+    }
+*/
 
+    public void addPackForRegion(final ReadableMap options, final Callback progressCallback) {
+        offlinePacks.post(new Runnable() {
             @Override
-            public void onError(String error) {
-                Log.e(TAG, "Error: " + error);
+            public void run() {
+                offlinePacks.addPack(options, progressCallback);
             }
-
         });
-
     }
 
-    public void removePack(MapView view, String packUuid) {
-        Toast.makeText(ctx, "[MapManager] removePack " + packUuid, Toast.LENGTH_SHORT).show();
-
-        // Begin the deletion process
+    public WritableMap estimatePackForRegion(ReadableMap options) {
+        return OfflinePackManager.estimatePack(options);
+    }
 
-        offlineRegionMap.get(packUuid).delete(new OfflineRegion.OfflineRegionDeleteCallback() {
+    public void getPacks(final Callback callback) {
+        offlinePacks.post(new Runnable() {
             @Override
-            public void onDelete() {
-                // Once the region is deleted, remove the
-                // progressBar and display a toast
-                Toast.makeText(ctx, "Region deleted", Toast.LENGTH_LONG).show();
+            public void run() {
+                offlinePacks.getPacks(callback);
             }
+        });
+    }
 
+    public void removePacks(final List<String> packUuids, final Callback callback) {
+        offlinePacks.post(new Runnable() {
             @Override
-            public void onError(String error) {
+            public void run() {
+                offlinePacks.removePacks(packUuids, callback);
+            }
+        });
+    }
 
-                Log.e(TAG, "Error: " + error);
+    public void pausePack(final String packUuid) {
+        offlinePacks.post(new Runnable() {
+            @Override
+            public void run() {
+                offlinePacks.pausePack(packUuid);
             }
         });
+    }
 
+    public void resumePack(final String packUuid) {
+        offlinePacks.post(new Runnable() {
+            @Override
+            public void run() {
+                offlinePacks.resumePack(packUuid);
+            }
+        });
     }
 
-    private String getRegionName(OfflineRegion offlineRegion) {
-        // Get the retion name from the offline region metadata
-        String regionName;
+    public void setPackPriority(final String packUuid, final int priority) {
+        offlinePacks.post(new Runnable() {
+            @Override
+            public void run() {
+                offlinePacks.setPackPriority(packUuid, priority);
+            }
+        });
+    }
 
-        try {
-            byte[] metadata = offlineRegion.getMetadata();
-            String json = new String(metadata, JSON_CHARSET);
-            JSONObject jsonObject = new JSONObject(json);
-            regionName = jsonObject.getString(JSON_FIELD_REGION_NAME);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to decode metadata: " + e.getMessage());
-            regionName = "Region " + offlineRegion.getID();
-        }
-        return regionName;
+    public void setOfflineStorageQuota(final long bytes) {
+        offlinePacks.post(new Runnable() {
+            @Override
+            public void run() {
+                offlinePacks.setStorageQuota(bytes);
+            }
+        });
     }
 
-    private String getRegionUuid(OfflineRegion offlineRegion) {
-        // Get the retion name from the offline region metadata
-        String regionName;
+    public void setPackPinned(final String packUuid, final boolean pinned) {
+        offlinePacks.post(new Runnable() {
+            @Override
+            public void run() {
+                offlinePacks.setPackPinned(packUuid, pinned);
+            }
+        });
+    }
 
-        try {
-            byte[] metadata = offlineRegion.getMetadata();
-            String json = new String(metadata, JSON_CHARSET);
-            JSONObject jsonObject = new JSONObject(json);
-            regionName = jsonObject.getString(JSON_FIELD_REGION_UUID);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to decode metadata: " + e.getMessage());
-            regionName = "Region " + offlineRegion.getID();
-        }
-        return regionName;
+    public void getOfflineStorageStats(final Callback callback) {
+        offlinePacks.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.invoke(offlinePacks.getStorageStats());
+            }
+        });
     }
 
+    public void setMaxConcurrentPacks(final int maxActive) {
+        offlinePacks.post(new Runnable() {
+            @Override
+            public void run() {
+                offlinePacks.setMaxConcurrentPacks(maxActive);
+            }
+        });
+    }
 
     @ReactProp(name = PROP_ACCESS_TOKEN)
     public void setAccessToken(MapView view, @Nullable String value) {
@@ -386,43 +684,19 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
     @ReactProp(name = PROP_SET_TILT)
     public void setTilt(MapView view, @Nullable double pitch) {
 
-        mapSettings.setPitch(pitch);
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setPitch(pitch);
 
         Toast.makeText(ctx, "[MapManager] set tilt: " + pitch, Toast.LENGTH_SHORT).show();
 
-        mapView.getMapAsync(new OnMapReadyCallback() {
-            @Override
-            public void onMapReady(@NonNull MapboxMap m) {
-
-                Toast.makeText(ctx, "[MapManager] set tilt to: " + mapSettings.getPitch(), Toast.LENGTH_SHORT).show();
-
-                mapboxMap.moveCamera(CameraUpdateFactory.newCameraPosition(
-                        new CameraPosition.Builder()
-                                .tilt(mapSettings.getPitch())
-                                .build()));
-            }
-        });
+        instance.getCameraController().setTilt(pitch);
     }
 
-    public void setTiltFn(MapboxMap map, @Nullable double pitch) {
+    public void setTiltFn(MapView view, double pitch) {
 
         Toast.makeText(ctx, "[MapManager] set tilt fn: " + pitch, Toast.LENGTH_SHORT).show();
 
-        map.moveCamera(CameraUpdateFactory.newCameraPosition(
-                new CameraPosition.Builder()
-                        .tilt(pitch)
-                        .build()));
-    }
-
-    public static Drawable drawableFromUrl(MapView view, String url) throws IOException {
-        Bitmap x;
-
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.connect();
-        InputStream input = connection.getInputStream();
-
-        x = BitmapFactory.decodeStream(input);
-        return new BitmapDrawable(view.getResources(), x);
+        instanceFor(view).getCameraController().setTilt(pitch);
     }
 
     @ReactProp(name = PROP_ANNOTATIONS)
@@ -433,110 +707,94 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
 
     public void setAnnotations(MapView view, @Nullable ReadableArray value, boolean clearMap) {
 
-        Toast.makeText(ctx, "[MapManager] add annotations ", Toast.LENGTH_SHORT).show();
+        AnnotationPipeline annotationPipeline = instanceFor(view).getAnnotationPipeline();
 
         if (value == null || value.size() < 1) {
-            Log.e(REACT_CLASS, "Error: No annotations");
-        } else {
+            if (clearMap) {
+                annotationPipeline.submitClear();
+            } else {
+                Log.w(REACT_CLASS, "No annotations to add");
+            }
+            return;
+        }
 
-            mapSettings.setAnnotations(value);
+        annotationPipeline.submit(value, clearMap);
+    }
 
-            mapView.getMapAsync(new OnMapReadyCallback() {
-                @Override
-                public void onMapReady(@NonNull MapboxMap m) {
+    @ReactProp(name = PROP_POLYLINE_SIMPLIFICATION_TOLERANCE, defaultDouble = PolylineLevels.DEFAULT_TOLERANCE_PIXELS)
+    public void setPolylineSimplificationTolerance(MapView view, double pixels) {
+        instanceFor(view).getAnnotationPipeline().setSimplificationTolerance(pixels);
+    }
 
-                    ReadableArray annotations = mapSettings.getAnnotations();
-
-
-                    //   if (clearMap) {
-                    //mapboxMap.removeAnnotations();
-                    //   }
-
-
-                    int size = annotations.size();
-                    for (int i = 0; i < size; i++) {
-                        ReadableMap annotation = annotations.getMap(i);
-                        String type = annotation.getString("type");
-
-                        Log.w(REACT_CLASS, "[MapxView] annotation type: " + type);
-
-                        if (type.equals("point")) {
-                            double latitude = annotation.getMap("coordinates").getDouble("lat");
-                            double longitude = annotation.getMap("coordinates").getDouble("lon");
-                            LatLng markerCenter = new LatLng(latitude, longitude);
-                            MarkerOptions marker = new MarkerOptions();
-                            marker.position(markerCenter);
-                            if (annotation.hasKey("title")) {
-                                String title = annotation.getString("title");
-                                marker.title(title);
-                            }
-                            if (annotation.hasKey("subtitle")) {
-                                String subtitle = annotation.getString("subtitle");
-                                marker.snippet(subtitle);
-                            }
-                            if (annotation.hasKey("annotationImage")) {
-                                ReadableMap annotationImage = annotation.getMap("annotationImage");
-                                String annotationURL = annotationImage.getString("url");
-                                try {
-                                    //                            Drawable image = drawableFromUrl(mapView, annotationURL);
-                                    //                            IconFactory iconFactory = mapboxMap.getIconFactory();
-                                    //                            Icon icon = iconFactory.fromDrawable(image);
-                                    //                            marker.icon(icon);
-                                } catch (Exception e) {
-                                    e.printStackTrace();
-                                }
-                            }
-                            mapboxMap.addMarker(marker);
-                        } else if (type.equals("polyline")) {
-                            int coordSize = annotation.getArray("coordinates").size();
-                            PolylineOptions polyline = new PolylineOptions();
-                            for (int p = 0; p < coordSize; p++) {
-                                Double latitude = annotation.getArray("coordinates").getMap(p).getDouble("lat");
-                                Double longitude = annotation.getArray("coordinates").getMap(p).getDouble("lon");
-                                polyline.add(new LatLng(latitude, longitude));
-                            }
-                            if (annotation.hasKey("alpha")) {
-                                double strokeAlpha = annotation.getDouble("alpha");
-                                polyline.alpha((float) strokeAlpha);
-                            }
-                            if (annotation.hasKey("strokeColor")) {
-                                int strokeColor = Color.parseColor(annotation.getString("strokeColor"));
-                                polyline.color(strokeColor);
-                            }
-                            if (annotation.hasKey("strokeWidth")) {
-                                float strokeWidth = annotation.getInt("strokeWidth");
-                                polyline.width(strokeWidth);
-                            }
-                            mapboxMap.addPolyline(polyline);
-                        } /*else if (type.equals("polygon")) {
-                            int coordSize = annotation.getArray("coordinates").size();
-                            PolygonOptions polygon = new PolygonOptions();
-                            for (int p = 0; p < coordSize; p++) {
-                                double latitude = annotation.getArray("coordinates").getArray(p).getDouble(0);
-                                double longitude = annotation.getArray("coordinates").getArray(p).getDouble(1);
-                                polygon.add(new LatLng(latitude, longitude));
-                            }
-                            if (annotation.hasKey("alpha")) {
-                                double fillAlpha = annotation.getDouble("alpha");
-                                polygon.alpha((float) fillAlpha);
-                            }
-                            if (annotation.hasKey("fillColor")) {
-                                int fillColor = Color.parseColor(annotation.getString("fillColor"));
-                                polygon.fillColor(fillColor);
-                            }
-                            if (annotation.hasKey("strokeColor")) {
-                                int strokeColor = Color.parseColor(annotation.getString("strokeColor"));
-                                polygon.strokeColor(strokeColor);
-                            }
-                            mapboxMap.addPolygon(polygon);
-                        }*/
-                    }
+    @ReactProp(name = PROP_POLYGON_VERTEX_BUDGET, defaultInt = PolygonGeometry.DEFAULT_VERTEX_BUDGET)
+    public void setPolygonVertexBudget(MapView view, int vertices) {
+        instanceFor(view).getAnnotationPipeline().setPolygonVertexBudget(vertices);
+    }
 
-                }
-            });
+    @ReactProp(name = PROP_CLUSTER_ANNOTATIONS, defaultBoolean = false)
+    public void setClusterAnnotations(MapView view, boolean value) {
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setClusterAnnotations(value);
+        applyClustering(instance);
+    }
 
+    @ReactProp(name = PROP_CLUSTER_RADIUS, defaultDouble = AnnotationStore.DEFAULT_CLUSTER_RADIUS)
+    public void setClusterRadius(MapView view, double value) {
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setClusterRadius(value);
+        applyClustering(instance);
+    }
 
-        }
+    @ReactProp(name = PROP_CLUSTER_MAX_ZOOM, defaultInt = AnnotationStore.DEFAULT_CLUSTER_MAX_ZOOM)
+    public void setClusterMaxZoom(MapView view, int value) {
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setClusterMaxZoom(value);
+        applyClustering(instance);
+    }
+
+    @ReactProp(name = PROP_CULL_ANNOTATIONS, defaultBoolean = true)
+    public void setCullAnnotations(MapView view, boolean value) {
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setCullAnnotations(value);
+        applyCulling(instance);
+    }
+
+    @ReactProp(name = PROP_CULLING_MARGIN, defaultDouble = AnnotationStore.DEFAULT_CULLING_MARGIN)
+    public void setCullingMargin(MapView view, double value) {
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setCullingMargin(value);
+        applyCulling(instance);
+    }
+
+    @ReactProp(name = PROP_REGION_CHANGE_POLICY)
+    public void setRegionChangePolicy(MapView view, @Nullable String value) {
+        instanceFor(view).getRegionChangeEmitter().setPolicy(value);
+    }
+
+    @ReactProp(name = PROP_REGION_CHANGE_HZ, defaultDouble = RegionChangeEmitter.DEFAULT_THROTTLE_HZ)
+    public void setRegionChangeHz(MapView view, double value) {
+        instanceFor(view).getRegionChangeEmitter().setThrottleHz(value);
+    }
+
+    @ReactProp(name = PROP_REGION_CHANGE_MIN_DISTANCE, defaultDouble = RegionChangeEmitter.DEFAULT_MIN_DISTANCE_METERS)
+    public void setRegionChangeMinDistance(MapView view, double value) {
+        instanceFor(view).getRegionChangeEmitter().setMinDistanceMeters(value);
+    }
+
+    @ReactProp(name = PROP_REGION_CHANGE_MIN_ZOOM_DELTA, defaultDouble = RegionChangeEmitter.DEFAULT_MIN_ZOOM_DELTA)
+    public void setRegionChangeMinZoomDelta(MapView view, double value) {
+        instanceFor(view).getRegionChangeEmitter().setMinZoomDelta(value);
+    }
+
+    private void applyClustering(MapInstance instance) {
+        MapSettings mapSettings = instance.getSettings();
+        instance.getAnnotationPipeline().setClustering(mapSettings.isClusterAnnotations(),
+                mapSettings.getClusterRadius(), mapSettings.getClusterMaxZoom());
+    }
+
+    private void applyCulling(MapInstance instance) {
+        MapSettings mapSettings = instance.getSettings();
+        instance.getAnnotationPipeline().setCulling(mapSettings.isCullAnnotations(), mapSettings.getCullingMargin());
     }
 
     @ReactProp(name = PROP_DEBUG_ACTIVE, defaultBoolean = false)
@@ -559,118 +817,47 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
     @ReactProp(name = PROP_DIRECTION, defaultDouble = 0)
     public void setDirection(MapView view, double value) {
 
-/*
-        mapSettings.setDirection(value);
-
-        view.getMapAsync(new OnMapReadyCallback() {
-            @Override
-            public void onMapReady(@NonNull MapboxMap m) {
-
-                Toast.makeText(ctx, "[MapManager] setDirection: ", Toast.LENGTH_SHORT).show();
-
-                Double direction = mapSettings.getDirection();
-
-                mapboxMap.moveCamera(CameraUpdateFactory.newCameraPosition(
-                        new CameraPosition.Builder()
-                                .bearing(direction)
-                                .build()));
-            }}
-        );
-*/
-    }
-/*
-    @ReactProp(name = PROP_ONREGIONCHANGE, defaultBoolean = true)
-    public void onMapChanged(final MapView view, Boolean value) {
-        view.addOnMapChangedListener(new MapView.OnMapChangedListener() {
-            @Override
-            public void onMapChanged(int change) {
-                if (change == MapView.REGION_DID_CHANGE || change == MapView.REGION_DID_CHANGE_ANIMATED) {
-                    WritableMap event = Arguments.createMap();
-                    WritableMap location = Arguments.createMap();
-//                    location.putDouble("latitude", center);
-//                    location.putDouble("longitude", mapboxMap.getCenterCoordinate().getLongitude());
-//                    location.putDouble("zoom", mapboxMap.getZoomLevel());
-                    event.putMap("src", location);
-                    ReactContext reactContext = (ReactContext) view.getContext();
-                    reactContext
-                            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                            .emit("onRegionChange", event);
-                }
-            }
-        });
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setDirection(value);
+        instance.getCameraController().setBearing(value);
     }
 
-*/
     @ReactProp(name = PROP_ONUSER_LOCATION_CHANGE, defaultBoolean = true)
     public void onMyLocationChange(final MapView view, Boolean value) {
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setUserLocationEvents(value);
+        updateLocationEmitterEnabled(instance);
+    }
 
-        Toast.makeText(ctx, "[MapManager] map ready: ", Toast.LENGTH_SHORT).show();
+    @ReactProp(name = PROP_LOCATION_MAX_ACCURACY, defaultDouble = LocationEmitter.DEFAULT_MAX_ACCURACY_METERS)
+    public void setLocationMaxAccuracy(MapView view, double meters) {
+        instanceFor(view).getLocationEmitter().setMaxAccuracyMeters(meters);
+    }
 
-/*
-        mapView.getMapAsync(new OnMapReadyCallback() {
-            @Override
-            public void onMapReady(@NonNull MapboxMap m) {
-                mapboxMap.setOnMyLocationChangeListener(new MapboxMap.OnMyLocationChangeListener() {
-                    @Override
-                    public void onMyLocationChange(@Nullable Location location) {
-                        WritableMap event = Arguments.createMap();
-                        WritableMap locationMap = Arguments.createMap();
-                        locationMap.putDouble("latitude", location.getLatitude());
-                        locationMap.putDouble("longitude", location.getLongitude());
-                        locationMap.putDouble("accuracy", location.getAccuracy());
-                        locationMap.putDouble("altitude", location.getAltitude());
-                        locationMap.putDouble("bearing", location.getBearing());
-                        locationMap.putDouble("speed", location.getSpeed());
-                        locationMap.putString("provider", location.getProvider());
-                        event.putMap("src", locationMap);
-                        ReactContext reactContext = (ReactContext) view.getContext();
-                        reactContext
-                                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                                .emit("onUserLocationChange", event);
-                    }
-                });
-            }});*/
+    @ReactProp(name = PROP_LOCATION_MIN_DISPLACEMENT, defaultDouble = LocationEmitter.DEFAULT_MIN_DISPLACEMENT_METERS)
+    public void setLocationMinDisplacement(MapView view, double meters) {
+        instanceFor(view).getLocationEmitter().setMinDisplacementMeters(meters);
     }
 
-    /*
-    @ReactProp(name = PROP_ONOPENANNOTATION, defaultBoolean = true)
-    public void onMarkerClick(final MapView view, Boolean value) {
-        mapboxMap.setOnMarkerClickListener(new MapboxMap.OnMarkerClickListener() {
-            @Override
-            public boolean onMarkerClick(@Nullable Marker marker) {
-                WritableMap event = Arguments.createMap();
-                WritableMap markerObject = Arguments.createMap();
-                markerObject.putString("title", marker.getTitle());
-                markerObject.putString("subtitle", marker.getSnippet());
-                markerObject.putDouble("latitude", marker.getPosition().getLatitude());
-                markerObject.putDouble("longitude", marker.getPosition().getLongitude());
-                event.putMap("src", markerObject);
-                ReactContext reactContext = (ReactContext) view.getContext();
-                reactContext
-                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                        .emit("onOpenAnnotation", event);
-                return false;
-            }
-        });
+    @ReactProp(name = PROP_LOCATION_SMOOTHING, defaultBoolean = false)
+    public void setLocationSmoothing(MapView view, boolean value) {
+        instanceFor(view).getLocationEmitter().setSmoothing(value);
     }
 
-    @ReactProp(name = PROP_ONLONGPRESS, defaultBoolean = true)
-    public void onMapLongClick(final MapView view, Boolean value) {
-        mapboxMap.setOnMapLongClickListener(new MapboxMap.OnMapLongClickListener() {
-            @Override
-            public void onMapLongClick(@Nullable LatLng location) {
-                WritableMap event = Arguments.createMap();
-                WritableMap loc = Arguments.createMap();
-                loc.putDouble("latitude", location.getLatitude());
-                loc.putDouble("longitude", location.getLatitude());
-                event.putMap("src", loc);
-                ReactContext reactContext = (ReactContext) view.getContext();
-                reactContext
-                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                        .emit("onLongPress", event);
-            }
-        });
-    }*/
+    @ReactProp(name = PROP_LOCATION_BATCH_SIZE, defaultInt = LocationEmitter.DEFAULT_BATCH_SIZE)
+    public void setLocationBatchSize(MapView view, int value) {
+        instanceFor(view).getLocationEmitter().setBatchSize(value);
+    }
+
+    @ReactProp(name = PROP_LOCATION_MAX_LATENCY, defaultInt = LocationEmitter.DEFAULT_MAX_LATENCY_MILLIS)
+    public void setLocationMaxLatency(MapView view, int millis) {
+        instanceFor(view).getLocationEmitter().setMaxLatencyMillis(millis);
+    }
+
+    @ReactProp(name = PROP_HIT_TEST_RADIUS, defaultDouble = HitTest.DEFAULT_RADIUS_PIXELS)
+    public void setHitTestRadius(MapView view, double pixels) {
+        instanceFor(view).getSettings().setHitTestRadius(pixels);
+    }
 
     @ReactProp(name = PROP_CENTER_COORDINATE)
     public void setCenterCoordinate(MapView view, @Nullable ReadableMap center) {
@@ -678,27 +865,10 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
 
         if (center != null) {
 
-            mapSettings.setCenter(center);
-
-
-            mapView.getMapAsync(new OnMapReadyCallback() {
-                @Override
-                public void onMapReady(@NonNull MapboxMap m) {
-
-                    ReadableMap center = mapSettings.getCenter();
-
-                    Toast.makeText(ctx, "[MapManager] set center: " + center.getDouble("latitude") + "," + center.getDouble("longitude"), Toast.LENGTH_SHORT).show();
-
-                    double latitude = center.getDouble("latitude");
-                    double longitude = center.getDouble("longitude");
-                    CameraPosition cameraPosition = new CameraPosition.Builder()
-                            .target(new LatLng(latitude, longitude))
-                            .build();
-                    mapboxMap.moveCamera(CameraUpdateFactory.newCameraPosition(cameraPosition));
-
-                }
-            });
+            MapInstance instance = instanceFor(view);
+            instance.getSettings().setCenter(center);
 
+            instance.getCameraController().setCenter(center.getDouble("latitude"), center.getDouble("longitude"));
 
         }else{
             Log.w(REACT_CLASS, "No CenterCoordinate provided");
@@ -725,33 +895,32 @@ public class ReactNativeMapboxGLManager extends SimpleViewManager<MapView> {
 
     @ReactProp(name = PROP_USER_LOCATION, defaultBoolean = true)
     public void setMyLocationEnabled(MapView view, Boolean value) {
-/*
-        mapSettings.setMyLocationEnabled(value);
-re
-        view.getMapAsync(new OnMapReadyCallback() {
-            @Override
-            public void onMapReady(@NonNull MapboxMap m) {
-
-                boolean myLocationEnabled = mapSettings.isMyLocationEnabled();
-
-                mapboxMap.setMyLocationEnabled(myLocationEnabled);
-            }
-        });
-*/
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setShowsUserLocation(value);
+        if (!value) {
+            // report what is buffered, then start afresh when location comes back
+            instance.getLocationEmitter().flush();
+            instance.getLocationEmitter().reset();
+        }
+        MapboxMap map = instance.getMap();
+        if (map != null) {
+            map.setMyLocationEnabled(value);
+        }
     }
 
     @ReactProp(name = PROP_STYLE_URL)
     public void setStyleUrl(MapView view, @Nullable String value) {
 
+        final MapSettings mapSettings = instanceFor(view).getSettings();
         mapSettings.setStyleURL(value);
 
         if (value != null && !value.isEmpty()) {
 
-            mapView.getMapAsync(new OnMapReadyCallback() {
+            view.getMapAsync(new OnMapReadyCallback() {
                 @Override
                 public void onMapReady(@NonNull MapboxMap m) {
 
-                    mapboxMap.setStyleUrl(mapSettings.getStyleURL());
+                    m.setStyleUrl(mapSettings.getStyleURL());
                 }
             });
 
@@ -796,20 +965,10 @@ re
     @ReactProp(name = PROP_ZOOM_LEVEL, defaultFloat = 0f)
     public void setZoomLevel(MapView view, float value) {
 
-        mapSettings.setZoomLevel(value);
+        MapInstance instance = instanceFor(view);
+        instance.getSettings().setZoomLevel(value);
 
-        mapView.getMapAsync(new OnMapReadyCallback() {
-            @Override
-            public void onMapReady(@NonNull MapboxMap m) {
-
-                Toast.makeText(ctx, "[MapManager] set zoomLevel", Toast.LENGTH_SHORT).show();
-
-                mapboxMap.moveCamera(CameraUpdateFactory.newCameraPosition(
-                        new CameraPosition.Builder()
-                                .zoom(mapSettings.getZoomLevel())
-                                .build()));
-            }
-        });
+        instance.getCameraController().setZoom(value);
 
     }
 
@@ -861,35 +1020,17 @@ re
 
     public void setCenterCoordinateZoomLevel(MapView view, @Nullable ReadableMap center) {
 
-/*
         if (center != null) {
 
-            mapSettings.setCenter(center);
-
-            view.getMapAsync(new OnMapReadyCallback() {
-                @Override
-                public void onMapReady(@NonNull MapboxMap m) {
-
-                    Toast.makeText(ctx, "[MapManager] setCenterCoordinateZoomLevel: ", Toast.LENGTH_SHORT).show();
+            MapInstance instance = instanceFor(view);
+            instance.getSettings().setCenter(center);
 
-
-                    ReadableMap center = mapSettings.getCenter();
-
-                    double latitude = center.getDouble("latitude");
-                    double longitude = center.getDouble("longitude");
-                    float zoom = (float)center.getDouble("zoom");
-                    CameraPosition cameraPosition = new CameraPosition.Builder()
-                            .target(new LatLng(latitude, longitude))
-                            .zoom(zoom)
-                            .build();
-                    mapboxMap.moveCamera(CameraUpdateFactory.newCameraPosition(cameraPosition));
-
-                }
-            });
+            instance.getCameraController().setCenterAndZoom(
+                    center.getDouble("latitude"), center.getDouble("longitude"), center.getDouble("zoom"));
 
         }else{
             Log.w(REACT_CLASS, "No CenterCoordinate provided");
-        }*/
+        }
     }
 
     public void setVisibleCoordinateBounds(MapView view, @Nullable ReadableMap info) {
@@ -904,11 +1045,141 @@ re
     }
 
     public void removeAllAnnotations(MapView view, @Nullable Boolean placeHolder) {
-        mapboxMap.removeAnnotations();
+        instanceFor(view).getAnnotationPipeline().submitClear();
+    }
+
+    public void addGeoJSON(MapView view, GeoJsonReader.Source source, final Callback callback) {
+        instanceFor(view).getAnnotationPipeline().submitGeoJson(source, new AnnotationPipeline.GeoJsonCallback() {
+            @Override
+            public void onGeoJsonAdded(int features, int skipped, long parseNanos) {
+                WritableMap result = Arguments.createMap();
+                result.putInt("features", features);
+                result.putInt("skipped", skipped);
+                result.putDouble("parseMs", parseNanos / 1e6);
+                callback.invoke(null, result);
+            }
+
+            @Override
+            public void onGeoJsonFailed(String message) {
+                callback.invoke(message);
+            }
+        });
+    }
+
+    public void addGeoJSONDataset(MapView view, String path, int maxFeatures, final Callback callback) {
+        instanceFor(view).getAnnotationPipeline().addDataset(path, maxFeatures, new AnnotationPipeline.DatasetCallback() {
+            @Override
+            public void onDatasetAdded(GeoJsonDataset dataset) {
+                WritableMap result = Arguments.createMap();
+                result.putInt("features", dataset.getFeatureCount());
+                result.putInt("skipped", dataset.getSkippedCount());
+                result.putDouble("bytes", dataset.getByteCount());
+                result.putDouble("indexMs", dataset.getIndexNanos() / 1e6);
+                callback.invoke(null, result);
+            }
+
+            @Override
+            public void onDatasetFailed(String message) {
+                callback.invoke(message);
+            }
+        });
+    }
+
+    public void removeGeoJSONDataset(MapView view, String path) {
+        instanceFor(view).getAnnotationPipeline().removeDataset(path);
+    }
+
+    /**
+     * Reads the stats on the UI thread, where the store and the pipeline are updated.
+     */
+    public void getAnnotationStats(MapView view, final Callback callback) {
+        final MapInstance instance = instanceFor(view);
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.invoke(annotationStats(instance));
+            }
+        });
+    }
+
+    private WritableMap annotationStats(MapInstance instance) {
+        AnnotationStore annotationStore = instance.getAnnotationStore();
+        AnnotationPipeline annotationPipeline = instance.getAnnotationPipeline();
+        WritableMap callbackDict = Arguments.createMap();
+        AnnotationDiff lastDiff = annotationStore.getLastDiff();
+        callbackDict.putInt("count", annotationStore.size());
+        callbackDict.putInt("added", lastDiff.getAddedCount());
+        callbackDict.putInt("updated", lastDiff.getUpdatedCount());
+        callbackDict.putInt("removed", lastDiff.getRemovedCount());
+        callbackDict.putInt("unchanged", lastDiff.getUnchangedCount());
+        callbackDict.putDouble("totalAdded", annotationStore.getTotalAdded());
+        callbackDict.putDouble("totalUpdated", annotationStore.getTotalUpdated());
+        callbackDict.putDouble("totalRemoved", annotationStore.getTotalRemoved());
+        callbackDict.putDouble("updates", annotationStore.getUpdateCount());
+        callbackDict.putInt("materialized", annotationStore.getMaterializedCount());
+        callbackDict.putInt("pending", annotationStore.getPendingCount());
+        callbackDict.putDouble("batches", annotationStore.getBatchCount());
+        callbackDict.putDouble("frames", annotationPipeline.getFramesUsed());
+        callbackDict.putDouble("droppedUpdates", annotationPipeline.getDroppedUpdates());
+        callbackDict.putDouble("lastParseMs", annotationPipeline.getLastParseNanos() / 1e6);
+        callbackDict.putInt("datasets", annotationPipeline.getDatasetCount());
+        callbackDict.putInt("datasetFeaturesLoaded", annotationPipeline.getDatasetFeaturesLoaded());
+        callbackDict.putInt("polylineLevel", annotationStore.getLevel());
+        callbackDict.putDouble("polylineLevelSwaps", annotationStore.getLevelSwaps());
+        callbackDict.putDouble("polygonVertices", annotationStore.getPolygonVertexCount());
+        callbackDict.putDouble("polygonVertexRatio", annotationStore.getPolygonVertexRatio());
+        callbackDict.putInt("visible", annotationStore.getVisibleCount());
+        callbackDict.putInt("clusters", annotationStore.getClusterCount());
+        callbackDict.putDouble("clusterIndexBuilds", annotationStore.getClusterIndexBuilds());
+        callbackDict.putDouble("iconsApplied", annotationStore.getIconsApplied());
+        IconLoader icons = IconLoader.getInstance(ctx);
+        callbackDict.putDouble("iconMemoryHits", icons.getMemoryHits());
+        callbackDict.putDouble("iconCoalesced", icons.getCoalesced());
+        callbackDict.putDouble("iconDiskHits", icons.getDiskHits());
+        callbackDict.putDouble("iconFetches", icons.getFetches());
+        callbackDict.putDouble("iconFailures", icons.getFailures());
+        callbackDict.putInt("iconMemoryBytes", icons.getMemoryCacheBytes());
+        return callbackDict;
+    }
+
+    /**
+     * Reads the stats on the UI thread, where the camera and the emitters are updated.
+     */
+    public void getCameraStats(MapView view, final Callback callback) {
+        final MapInstance instance = instanceFor(view);
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.invoke(cameraStats(instance));
+            }
+        });
+    }
+
+    private static WritableMap cameraStats(MapInstance instance) {
+        CameraController cameraController = instance.getCameraController();
+        WritableMap callbackDict = Arguments.createMap();
+        callbackDict.putDouble("requested", cameraController.getRequested());
+        callbackDict.putDouble("merged", cameraController.getMerged());
+        callbackDict.putDouble("applied", cameraController.getApplied());
+        RegionChangeEmitter regionChangeEmitter = instance.getRegionChangeEmitter();
+        callbackDict.putString("regionChangePolicy", regionChangeEmitter.getPolicy());
+        callbackDict.putDouble("regionChangesEmitted", regionChangeEmitter.getEmitted());
+        callbackDict.putDouble("regionChangesDropped", regionChangeEmitter.getDropped());
+        LocationEmitter locationEmitter = instance.getLocationEmitter();
+        callbackDict.putDouble("locationsReceived", locationEmitter.getReceived());
+        callbackDict.putDouble("locationsAccuracyFiltered", locationEmitter.getAccuracyFiltered());
+        callbackDict.putDouble("locationsDisplacementFiltered", locationEmitter.getDisplacementFiltered());
+        callbackDict.putDouble("locationsEmitted", locationEmitter.getFixesEmitted());
+        callbackDict.putDouble("locationEvents", locationEmitter.getEvents());
+        return callbackDict;
     }
 
     public WritableMap getDirection(MapView view) {
         WritableMap callbackDict = Arguments.createMap();
+        MapboxMap mapboxMap = instanceFor(view).getMap();
+        if (mapboxMap == null) {
+            return callbackDict;
+        }
         CameraPosition center = mapboxMap.getCameraPosition();
         callbackDict.putDouble("direction", center.bearing);
         return callbackDict;
@@ -916,6 +1187,10 @@ re
 
     public WritableMap getCenterCoordinateZoomLevel(MapView view) {
         WritableMap callbackDict = Arguments.createMap();
+        MapboxMap mapboxMap = instanceFor(view).getMap();
+        if (mapboxMap == null) {
+            return callbackDict;
+        }
         CameraPosition center = mapboxMap.getCameraPosition();
         callbackDict.putDouble("latitude", center.target.getLatitude());
         callbackDict.putDouble("longitude", center.target.getLongitude());
@@ -939,16 +1214,7 @@ re
             return callbackDict;
         }
     */
-    public MapView getMapView() {
-        return mapView;
-    }
-
-    public MapboxMap getMapboxMap() {
-        return mapboxMap;
-    }
-
-
-    private class MapSettings {
+    static class MapSettings {
         private boolean isCompassHidden;
 
         private boolean zoomEnabled;
@@ -957,8 +1223,6 @@ re
 
         private String accessToken;
 
-        private ReadableArray annotations;
-
         private ReadableMap center;
 
         private boolean debugActive;
@@ -981,6 +1245,20 @@ re
 
         private int trackingMode;
 
+        private boolean clusterAnnotations;
+
+        private double clusterRadius = AnnotationStore.DEFAULT_CLUSTER_RADIUS;
+
+        private int clusterMaxZoom = AnnotationStore.DEFAULT_CLUSTER_MAX_ZOOM;
+
+        private boolean cullAnnotations = true;
+
+        private double cullingMargin = AnnotationStore.DEFAULT_CULLING_MARGIN;
+
+        private double hitTestRadius = HitTest.DEFAULT_RADIUS_PIXELS;
+
+        private boolean userLocationEvents = true;
+
         public boolean getIsCompassHidden() {
             return isCompassHidden;
         }
@@ -997,14 +1275,6 @@ re
             this.zoomEnabled = value;
         }
 
-        public ReadableArray getAnnotations() {
-            return annotations;
-        }
-
-        public void setAnnotations(ReadableArray annotations) {
-            this.annotations = annotations;
-        }
-
         public String getAccessToken() {
             return accessToken;
         }
@@ -1157,11 +1427,67 @@ re
             this.trackingMode = trackingMode;
         }
 
+        public boolean isClusterAnnotations() {
+            return clusterAnnotations;
+        }
+
+        public void setClusterAnnotations(boolean clusterAnnotations) {
+            this.clusterAnnotations = clusterAnnotations;
+        }
+
+        public double getClusterRadius() {
+            return clusterRadius;
+        }
+
+        public void setClusterRadius(double clusterRadius) {
+            this.clusterRadius = clusterRadius;
+        }
+
+        public int getClusterMaxZoom() {
+            return clusterMaxZoom;
+        }
+
+        public void setClusterMaxZoom(int clusterMaxZoom) {
+            this.clusterMaxZoom = clusterMaxZoom;
+        }
+
+        public boolean isCullAnnotations() {
+            return cullAnnotations;
+        }
+
+        public void setCullAnnotations(boolean cullAnnotations) {
+            this.cullAnnotations = cullAnnotations;
+        }
+
+        public double getCullingMargin() {
+            return cullingMargin;
+        }
+
+        public void setCullingMargin(double cullingMargin) {
+            this.cullingMargin = cullingMargin;
+        }
+
+        public double getHitTestRadius() {
+            return hitTestRadius;
+        }
+
+        public void setHitTestRadius(double hitTestRadius) {
+            this.hitTestRadius = Math.max(0, hitTestRadius);
+        }
+
+        public boolean isUserLocationEvents() {
+            return userLocationEvents;
+        }
+
+        public void setUserLocationEvents(boolean userLocationEvents) {
+            this.userLocationEvents = userLocationEvents;
+        }
+
         public double getPitch() {
             return pitch;
         }
 
-        public void setPitch(double tilt) {
+        public void setPitch(double pitch) {
             this.pitch = pitch;
         }
 
@@ -2,6 +2,8 @@
 package com.mapbox.reactnativemapboxgl;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import com.facebook.react.bridge.Arguments;
@@ -11,12 +13,17 @@ import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.mapbox.mapboxsdk.constants.MyLocationTracking;
 import com.mapbox.mapboxsdk.constants.Style;
+import com.mapbox.mapboxsdk.maps.MapView;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nullable;
@@ -25,9 +32,61 @@ public class ReactNativeMapboxGLModule extends ReactContextBaseJavaModule {
 
     private static final String TAG = ReactNativeMapboxGLModule.class.getSimpleName();
 
+    private static final Metrics.Histogram ADD_PACK_FOR_REGION_NANOS = Metrics.histogram("bridge.addPackForRegion");
+    private static final Metrics.Histogram GET_PACKS_NANOS = Metrics.histogram("bridge.getPacks");
+    private static final Metrics.Histogram REMOVE_PACK_NANOS = Metrics.histogram("bridge.removePack");
+    private static final Metrics.Histogram REMOVE_PACKS_NANOS = Metrics.histogram("bridge.removePacks");
+    private static final Metrics.Histogram ESTIMATE_PACK_FOR_REGION_NANOS = Metrics.histogram("bridge.estimatePackForRegion");
+    private static final Metrics.Histogram PAUSE_PACK_NANOS = Metrics.histogram("bridge.pausePack");
+    private static final Metrics.Histogram RESUME_PACK_NANOS = Metrics.histogram("bridge.resumePack");
+    private static final Metrics.Histogram SET_PACK_PRIORITY_NANOS = Metrics.histogram("bridge.setPackPriority");
+    private static final Metrics.Histogram SET_OFFLINE_STORAGE_QUOTA_NANOS = Metrics.histogram("bridge.setOfflineStorageQuota");
+    private static final Metrics.Histogram SET_PACK_PINNED_NANOS = Metrics.histogram("bridge.setPackPinned");
+    private static final Metrics.Histogram GET_OFFLINE_STORAGE_STATS_NANOS = Metrics.histogram("bridge.getOfflineStorageStats");
+    private static final Metrics.Histogram SET_MAX_CONCURRENT_PACKS_NANOS = Metrics.histogram("bridge.setMaxConcurrentPacks");
+    private static final Metrics.Histogram SET_DIRECTION_ANIMATED_NANOS = Metrics.histogram("bridge.setDirectionAnimated");
+    private static final Metrics.Histogram SET_CENTER_COORDINATE_ANIMATED_NANOS = Metrics.histogram("bridge.setCenterCoordinateAnimated");
+    private static final Metrics.Histogram SET_CENTER_COORDINATE_ZOOM_LEVEL_ANIMATED_NANOS = Metrics.histogram("bridge.setCenterCoordinateZoomLevelAnimated");
+    private static final Metrics.Histogram ADD_ANNOTATIONS_NANOS = Metrics.histogram("bridge.addAnnotations");
+    private static final Metrics.Histogram ADD_GEOJSON_NANOS = Metrics.histogram("bridge.addGeoJSON");
+    private static final Metrics.Histogram ADD_GEOJSON_FROM_FILE_NANOS = Metrics.histogram("bridge.addGeoJSONFromFile");
+    private static final Metrics.Histogram ADD_GEOJSON_DATASET_NANOS = Metrics.histogram("bridge.addGeoJSONDataset");
+    private static final Metrics.Histogram REMOVE_GEOJSON_DATASET_NANOS = Metrics.histogram("bridge.removeGeoJSONDataset");
+    private static final Metrics.Histogram START_TRACK_RECORDING_NANOS = Metrics.histogram("bridge.startTrackRecording");
+    private static final Metrics.Histogram STOP_TRACK_RECORDING_NANOS = Metrics.histogram("bridge.stopTrackRecording");
+    private static final Metrics.Histogram GET_TRACK_SEGMENT_NANOS = Metrics.histogram("bridge.getTrackSegment");
+    private static final Metrics.Histogram GET_TRACKS_NANOS = Metrics.histogram("bridge.getTracks");
+    private static final Metrics.Histogram DELETE_TRACK_NANOS = Metrics.histogram("bridge.deleteTrack");
+    private static final Metrics.Histogram GET_ANNOTATION_STATS_NANOS = Metrics.histogram("bridge.getAnnotationStats");
+    private static final Metrics.Histogram GET_CAMERA_STATS_NANOS = Metrics.histogram("bridge.getCameraStats");
+    private static final Metrics.Histogram SET_USER_TRACKING_MODE_NANOS = Metrics.histogram("bridge.setUserTrackingMode");
+    private static final Metrics.Histogram REMOVE_ALL_ANNOTATIONS_NANOS = Metrics.histogram("bridge.removeAllAnnotations");
+    private static final Metrics.Histogram SET_TILT_NANOS = Metrics.histogram("bridge.setTilt");
+    private static final Metrics.Histogram SET_VISIBLE_COORDINATE_BOUNDS_ANIMATED_NANOS = Metrics.histogram("bridge.setVisibleCoordinateBoundsAnimated");
+    private static final Metrics.Histogram GET_DIRECTION_NANOS = Metrics.histogram("bridge.getDirection");
+    private static final Metrics.Histogram GET_CENTER_COORDINATE_ZOOM_LEVEL_NANOS = Metrics.histogram("bridge.getCenterCoordinateZoomLevel");
+
+    public static final String EVENT_METRICS = "onMetrics";
+
     private Context context;
     private ReactNativeMapboxGLPackage aPackage;
 
+    private final Handler metricsHandler = new Handler(Looper.getMainLooper());
+    private volatile int metricsIntervalMillis;
+    private final Runnable emitMetrics = new Runnable() {
+        @Override
+        public void run() {
+            if (metricsIntervalMillis <= 0) {
+                return;
+            }
+            WritableMap event = Arguments.createMap();
+            event.putMap("src", metricsSnapshot());
+            getReactApplicationContext().getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit(EVENT_METRICS, event);
+            metricsHandler.postDelayed(this, metricsIntervalMillis);
+        }
+    };
+
     public ReactNativeMapboxGLModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.context = reactContext;
@@ -67,88 +126,454 @@ public class ReactNativeMapboxGLModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void addPackForRegion(int mapRef, ReadableMap options, Callback progressCallback) {
-
-        aPackage.getManager().addPackForRegion( aPackage.getManager().getMapView(), options, progressCallback);
-
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().addPackForRegion(options, progressCallback);
+        } finally {
+            ADD_PACK_FOR_REGION_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void getPacks(int mapRef, Callback callback) {
-        aPackage.getManager().getPacks(aPackage.getManager().getMapView());
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().getPacks(callback);
+        } finally {
+            GET_PACKS_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void removePack(int mapRef, String packName, Callback callback) {
-        aPackage.getManager().removePack(aPackage.getManager().getMapView(), packName);
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().removePacks(Collections.singletonList(packName), callback);
+        } finally {
+            REMOVE_PACK_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void removePacks(int mapRef, ReadableArray packUuids, Callback callback) {
+        long start = Metrics.start();
+        try {
+            List<String> uuids = new ArrayList<>(packUuids.size());
+            for (int i = 0; i < packUuids.size(); i++) {
+                uuids.add(packUuids.getString(i));
+            }
+            aPackage.getManager().removePacks(uuids, callback);
+        } finally {
+            REMOVE_PACKS_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void estimatePackForRegion(ReadableMap options, Callback callback) {
+        long start = Metrics.start();
+        try {
+            WritableMap estimate;
+            try {
+                estimate = aPackage.getManager().estimatePackForRegion(options);
+            } catch (RuntimeException e) {
+                callback.invoke(e.getMessage());
+                return;
+            }
+            callback.invoke(null, estimate);
+        } finally {
+            ESTIMATE_PACK_FOR_REGION_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void pausePack(int mapRef, String packUuid) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().pausePack(packUuid);
+        } finally {
+            PAUSE_PACK_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void resumePack(int mapRef, String packUuid) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().resumePack(packUuid);
+        } finally {
+            RESUME_PACK_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void setPackPriority(int mapRef, String packUuid, int priority) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().setPackPriority(packUuid, priority);
+        } finally {
+            SET_PACK_PRIORITY_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void setOfflineStorageQuota(int mapRef, double bytes) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().setOfflineStorageQuota((long) bytes);
+        } finally {
+            SET_OFFLINE_STORAGE_QUOTA_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void setPackPinned(int mapRef, String packUuid, boolean pinned) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().setPackPinned(packUuid, pinned);
+        } finally {
+            SET_PACK_PINNED_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void getOfflineStorageStats(int mapRef, Callback callback) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().getOfflineStorageStats(callback);
+        } finally {
+            GET_OFFLINE_STORAGE_STATS_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void setMaxConcurrentPacks(int mapRef, int maxActive) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().setMaxConcurrentPacks(maxActive);
+        } finally {
+            SET_MAX_CONCURRENT_PACKS_NANOS.recordSince(start);
+        }
     }
 
 
     @ReactMethod
     public void setDirectionAnimated(int mapRef, int direction) {
-        aPackage.getManager().setDirection(aPackage.getManager().getMapView(), direction);
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().setDirection(view, direction);
+        } finally {
+            SET_DIRECTION_ANIMATED_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void setCenterCoordinateAnimated(int mapRef, double latitude, double longitude) {
-        WritableMap location = Arguments.createMap();
-        location.putDouble("latitude", latitude);
-        location.putDouble("longitude", longitude);
-        aPackage.getManager().setCenterCoordinate(aPackage.getManager().getMapView(), location);
+        long start = Metrics.start();
+        try {
+            WritableMap location = Arguments.createMap();
+            location.putDouble("latitude", latitude);
+            location.putDouble("longitude", longitude);
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().setCenterCoordinate(view, location);
+        } finally {
+            SET_CENTER_COORDINATE_ANIMATED_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void setCenterCoordinateZoomLevelAnimated(int mapRef, double latitude, double longitude, double zoom) {
-        WritableMap location = Arguments.createMap();
-        location.putDouble("latitude", latitude);
-        location.putDouble("longitude", longitude);
-        location.putDouble("zoom", zoom);
-        aPackage.getManager().setCenterCoordinateZoomLevel(aPackage.getManager().getMapView(), location);
+        long start = Metrics.start();
+        try {
+            WritableMap location = Arguments.createMap();
+            location.putDouble("latitude", latitude);
+            location.putDouble("longitude", longitude);
+            location.putDouble("zoom", zoom);
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().setCenterCoordinateZoomLevel(view, location);
+        } finally {
+            SET_CENTER_COORDINATE_ZOOM_LEVEL_ANIMATED_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void addAnnotations(int mapRef, ReadableArray value) {
-        aPackage.getManager().setAnnotations(aPackage.getManager().getMapView(), value, false);
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().setAnnotations(view, value, false);
+        } finally {
+            ADD_ANNOTATIONS_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void addGeoJSON(int mapRef, String geoJson, Callback callback) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                callback.invoke(noMapError(mapRef));
+                return;
+            }
+            aPackage.getManager().addGeoJSON(view, GeoJsonReader.fromString(geoJson), callback);
+        } finally {
+            ADD_GEOJSON_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void addGeoJSONFromFile(int mapRef, String path, Callback callback) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                callback.invoke(noMapError(mapRef));
+                return;
+            }
+            aPackage.getManager().addGeoJSON(view, GeoJsonReader.fromFile(path), callback);
+        } finally {
+            ADD_GEOJSON_FROM_FILE_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void addGeoJSONDataset(int mapRef, String path, @Nullable ReadableMap options, Callback callback) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                callback.invoke(noMapError(mapRef));
+                return;
+            }
+            int maxFeatures = options != null && options.hasKey("maxFeatures")
+                    ? options.getInt("maxFeatures") : AnnotationPipeline.DEFAULT_DATASET_MAX_FEATURES;
+            aPackage.getManager().addGeoJSONDataset(view, path, maxFeatures, callback);
+        } finally {
+            ADD_GEOJSON_DATASET_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void removeGeoJSONDataset(int mapRef, String path) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().removeGeoJSONDataset(view, path);
+        } finally {
+            REMOVE_GEOJSON_DATASET_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void startTrackRecording(int mapRef, String name, @Nullable ReadableMap options, @Nullable Callback callback) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                if (callback != null) {
+                    callback.invoke(noMapError(mapRef));
+                }
+                return;
+            }
+            aPackage.getManager().startTrackRecording(view, name, options, callback);
+        } finally {
+            START_TRACK_RECORDING_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void stopTrackRecording(int mapRef) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().stopTrackRecording(view);
+        } finally {
+            STOP_TRACK_RECORDING_NANOS.recordSince(start);
+        }
+    }
+
+    /**
+     * Times are milliseconds since the epoch; doubles because the bridge has no longs.
+     */
+    @ReactMethod
+    public void getTrackSegment(String name, double startTime, double endTime, Callback callback) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().getTrackRecorder(context).getSegment(name, (long) startTime, (long) endTime, callback);
+        } finally {
+            GET_TRACK_SEGMENT_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void getTracks(Callback callback) {
+        long start = Metrics.start();
+        try {
+            aPackage.getManager().getTrackRecorder(context).getTracks(callback);
+        } finally {
+            GET_TRACKS_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void deleteTrack(final String name, final Callback callback) {
+        long start = Metrics.start();
+        try {
+            final TrackRecorder recorder = aPackage.getManager().getTrackRecorder(context);
+            recorder.post(new Runnable() {
+                @Override
+                public void run() {
+                    recorder.delete(name, callback);
+                }
+            });
+        } finally {
+            DELETE_TRACK_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void getAnnotationStats(int mapRef, Callback successCallback) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                successCallback.invoke(noMapResult(mapRef));
+                return;
+            }
+            aPackage.getManager().getAnnotationStats(view, successCallback);
+        } finally {
+            GET_ANNOTATION_STATS_NANOS.recordSince(start);
+        }
+    }
+
+    @ReactMethod
+    public void getCameraStats(int mapRef, Callback successCallback) {
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                successCallback.invoke(noMapResult(mapRef));
+                return;
+            }
+            aPackage.getManager().getCameraStats(view, successCallback);
+        } finally {
+            GET_CAMERA_STATS_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void setUserTrackingMode(int mapRef, int mode) {
-        aPackage.getManager().setMyLocationTrackingMode(aPackage.getManager().getMapView(), mode);
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().setMyLocationTrackingMode(view, mode);
+        } finally {
+            SET_USER_TRACKING_MODE_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void removeAllAnnotations(int mapRef) {
-        aPackage.getManager().removeAllAnnotations(aPackage.getManager().getMapView(), true);
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().removeAllAnnotations(view, true);
+        } finally {
+            REMOVE_ALL_ANNOTATIONS_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void setTilt(int mapRef, double pitch) {
-        aPackage.getManager().setTiltFn(aPackage.getManager().getMapboxMap(), pitch);
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view != null) {
+                aPackage.getManager().setTiltFn(view, pitch);
+            }
+        } finally {
+            SET_TILT_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void setVisibleCoordinateBoundsAnimated(int mapRef, double latSW, double lngSW,double latNE, double lngNE, float paddingTop, float paddingRight, float paddingBottom, float paddingLeft) {
-        WritableMap info = Arguments.createMap();
-        info.putDouble("latSW", latSW);
-        info.putDouble("lngSW", lngSW);
-        info.putDouble("latNE", latNE);
-        info.putDouble("lngNE", lngNE);
-        info.putDouble("paddingTop", paddingTop);
-        info.putDouble("paddingRight", paddingRight);
-        info.putDouble("paddingBottom", paddingBottom);
-        info.putDouble("paddingLeft", paddingLeft);
-        aPackage.getManager().setVisibleCoordinateBounds(aPackage.getManager().getMapView(), info);
+        long start = Metrics.start();
+        try {
+            WritableMap info = Arguments.createMap();
+            info.putDouble("latSW", latSW);
+            info.putDouble("lngSW", lngSW);
+            info.putDouble("latNE", latNE);
+            info.putDouble("lngNE", lngNE);
+            info.putDouble("paddingTop", paddingTop);
+            info.putDouble("paddingRight", paddingRight);
+            info.putDouble("paddingBottom", paddingBottom);
+            info.putDouble("paddingLeft", paddingLeft);
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                return;
+            }
+            aPackage.getManager().setVisibleCoordinateBounds(view, info);
+        } finally {
+            SET_VISIBLE_COORDINATE_BOUNDS_ANIMATED_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void getDirection(int mapRef, Callback successCallback) {
-        WritableMap direction = aPackage.getManager().getDirection(aPackage.getManager().getMapView());
-        successCallback.invoke(direction);
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                successCallback.invoke(noMapResult(mapRef));
+                return;
+            }
+            WritableMap direction = aPackage.getManager().getDirection(view);
+            successCallback.invoke(direction);
+        } finally {
+            GET_DIRECTION_NANOS.recordSince(start);
+        }
     }
 
     @ReactMethod
     public void getCenterCoordinateZoomLevel(int mapRef, Callback successCallback) {
-        WritableMap location = aPackage.getManager().getCenterCoordinateZoomLevel(aPackage.getManager().getMapView());
-        successCallback.invoke(location);
+        long start = Metrics.start();
+        try {
+            MapView view = resolve(mapRef);
+            if (view == null) {
+                successCallback.invoke(noMapResult(mapRef));
+                return;
+            }
+            WritableMap location = aPackage.getManager().getCenterCoordinateZoomLevel(view);
+            successCallback.invoke(location);
+        } finally {
+            GET_CENTER_COORDINATE_ZOOM_LEVEL_NANOS.recordSince(start);
+        }
     }
 /*
     @ReactMethod
@@ -157,6 +582,82 @@ public class ReactNativeMapboxGLModule extends ReactContextBaseJavaModule {
         successCallback.invoke(bounds);
     }
 */
+    /**
+     * Turns metrics recording on or off. While on and {@code intervalMillis} is positive,
+     * a snapshot is also sent as an {@value #EVENT_METRICS} device event at that interval.
+     */
+    @ReactMethod
+    public void setMetricsEnabled(boolean enabled, int intervalMillis) {
+        Metrics.setEnabled(enabled);
+        metricsIntervalMillis = enabled ? intervalMillis : 0;
+        metricsHandler.removeCallbacks(emitMetrics);
+        if (metricsIntervalMillis > 0) {
+            metricsHandler.postDelayed(emitMetrics, metricsIntervalMillis);
+        }
+    }
+
+    @ReactMethod
+    public void getMetrics(Callback successCallback) {
+        successCallback.invoke(metricsSnapshot());
+    }
+
+    @ReactMethod
+    public void resetMetrics() {
+        Metrics.reset();
+    }
+
+    /**
+     * Histogram values are nanoseconds; histograms without values are left out.
+     */
+    static WritableMap metricsSnapshot() {
+        WritableMap counters = Arguments.createMap();
+        for (Map.Entry<String, Metrics.Counter> entry : Metrics.getCounters().entrySet()) {
+            counters.putDouble(entry.getKey(), entry.getValue().get());
+        }
+        WritableMap histograms = Arguments.createMap();
+        for (Map.Entry<String, Metrics.Histogram> entry : Metrics.getHistograms().entrySet()) {
+            Metrics.Histogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            WritableMap values = Arguments.createMap();
+            values.putDouble("count", histogram.getCount());
+            values.putDouble("mean", histogram.getMean());
+            values.putDouble("p50", histogram.getPercentile(0.5));
+            values.putDouble("p90", histogram.getPercentile(0.9));
+            values.putDouble("p99", histogram.getPercentile(0.99));
+            values.putDouble("max", histogram.getMax());
+            histograms.putMap(entry.getKey(), values);
+        }
+        WritableMap snapshot = Arguments.createMap();
+        snapshot.putBoolean("enabled", Metrics.isEnabled());
+        snapshot.putMap("counters", counters);
+        snapshot.putMap("histograms", histograms);
+        return snapshot;
+    }
+
+    private @Nullable MapView resolve(int mapRef) {
+        MapInstance instance = aPackage.getManager().getMapInstance(mapRef);
+        if (instance == null) {
+            Log.w(TAG, "No map view with tag " + mapRef);
+            return null;
+        }
+        return instance.getMapView();
+    }
+
+    private static String noMapError(int mapRef) {
+        return "No map with tag " + mapRef;
+    }
+
+    /**
+     * Result for the callbacks that take a single object, which have no error argument.
+     */
+    private static WritableMap noMapResult(int mapRef) {
+        WritableMap result = Arguments.createMap();
+        result.putString("error", noMapError(mapRef));
+        return result;
+    }
+
     public void setPackage(ReactNativeMapboxGLPackage aPackage) {
         this.aPackage = aPackage;
     }
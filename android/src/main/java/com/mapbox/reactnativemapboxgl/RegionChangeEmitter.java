@@ -0,0 +1,168 @@
+package com.mapbox.reactnativemapboxgl;
+
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+/**
+ * Decides which camera changes are reported to JS as region change events.
+ *
+ * The map reports a change for every frame of a gesture or animation, far more than
+ * the bridge should carry. Depending on the policy, only the position the camera
+ * settles at is reported ({@link #POLICY_IDLE}), changes are reported at most
+ * {@code hz} times a second ({@link #POLICY_THROTTLE}), or only once the center moved
+ * or the zoom changed by more than a threshold since the last report
+ * ({@link #POLICY_DELTA}). The settled position is always reported unless it equals the
+ * last one sent.
+ *
+ * Must only be used from the UI thread.
+ */
+public class RegionChangeEmitter {
+
+    public static final String POLICY_IDLE = "idle";
+    public static final String POLICY_THROTTLE = "throttle";
+    public static final String POLICY_DELTA = "delta";
+
+    public static final double DEFAULT_THROTTLE_HZ = 10;
+    public static final double DEFAULT_MIN_DISTANCE_METERS = 50;
+    public static final double DEFAULT_MIN_ZOOM_DELTA = 0.25;
+
+    private static final double EARTH_RADIUS_METERS = 6378137;
+
+    public interface Listener {
+        void onRegionChange(double latitude, double longitude, double zoom, double bearing, double tilt, boolean idle);
+    }
+
+    private static final Metrics.Counter EMITTED = Metrics.counter("region.emitted");
+    private static final Metrics.Counter DROPPED = Metrics.counter("region.dropped");
+
+    private final Listener listener;
+
+    private String policy = POLICY_IDLE;
+    private long minIntervalNanos = (long) (1e9 / DEFAULT_THROTTLE_HZ);
+    private double minDistanceMeters = DEFAULT_MIN_DISTANCE_METERS;
+    private double minZoomDelta = DEFAULT_MIN_ZOOM_DELTA;
+
+    private boolean hasLast;
+    private long lastNanos;
+    private double lastLatitude;
+    private double lastLongitude;
+    private double lastZoom;
+    private double lastBearing;
+    private double lastTilt;
+
+    private long emitted;
+    private long dropped;
+
+    public RegionChangeEmitter(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param policy one of {@link #POLICY_IDLE}, {@link #POLICY_THROTTLE} or {@link #POLICY_DELTA};
+     *               anything else falls back to idle
+     */
+    public void setPolicy(String policy) {
+        this.policy = POLICY_THROTTLE.equals(policy) || POLICY_DELTA.equals(policy) ? policy : POLICY_IDLE;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setThrottleHz(double hz) {
+        this.minIntervalNanos = hz > 0 ? (long) (1e9 / hz) : 0;
+    }
+
+    public void setMinDistanceMeters(double meters) {
+        this.minDistanceMeters = Math.max(0, meters);
+    }
+
+    public void setMinZoomDelta(double delta) {
+        this.minZoomDelta = Math.max(0, delta);
+    }
+
+    /**
+     * Call for every camera change while the map is moving.
+     */
+    public void onRegionChanging(MapboxMap map) {
+        if (POLICY_IDLE.equals(policy)) {
+            dropped++;
+            DROPPED.increment();
+            return;
+        }
+        long now = System.nanoTime();
+        if (POLICY_THROTTLE.equals(policy) && hasLast && now - lastNanos < minIntervalNanos) {
+            // decided without even reading the camera
+            dropped++;
+            DROPPED.increment();
+            return;
+        }
+        offer(map.getCameraPosition(), now, false);
+    }
+
+    /**
+     * Call when the camera settled.
+     */
+    public void onRegionDidChange(MapboxMap map) {
+        offer(map.getCameraPosition(), System.nanoTime(), true);
+    }
+
+    void offer(CameraPosition position, long now, boolean idle) {
+        double latitude = position.target.getLatitude();
+        double longitude = position.target.getLongitude();
+        if (!shouldEmit(latitude, longitude, position.zoom, position.bearing, position.tilt, idle)) {
+            dropped++;
+            DROPPED.increment();
+            return;
+        }
+        hasLast = true;
+        lastNanos = now;
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+        lastZoom = position.zoom;
+        lastBearing = position.bearing;
+        lastTilt = position.tilt;
+        emitted++;
+        EMITTED.increment();
+        listener.onRegionChange(latitude, longitude, position.zoom, position.bearing, position.tilt, idle);
+    }
+
+    private boolean shouldEmit(double latitude, double longitude, double zoom, double bearing, double tilt, boolean idle) {
+        if (!hasLast) {
+            return true;
+        }
+        if (idle) {
+            return latitude != lastLatitude || longitude != lastLongitude
+                    || zoom != lastZoom || bearing != lastBearing || tilt != lastTilt;
+        }
+        if (POLICY_DELTA.equals(policy)) {
+            return Math.abs(zoom - lastZoom) >= minZoomDelta
+                    || distanceMeters(lastLatitude, lastLongitude, latitude, longitude) >= minDistanceMeters;
+        }
+        return true;
+    }
+
+    /**
+     * Equirectangular approximation, accurate enough for the short distances between
+     * two camera positions.
+     */
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLon = Math.toRadians(lon2 - lon1);
+        if (dLon > Math.PI) {
+            dLon -= 2 * Math.PI;
+        } else if (dLon < -Math.PI) {
+            dLon += 2 * Math.PI;
+        }
+        double x = dLon * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS_METERS;
+    }
+
+    public long getEmitted() {
+        return emitted;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
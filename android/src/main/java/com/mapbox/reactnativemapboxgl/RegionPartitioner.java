@@ -0,0 +1,110 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an offline region that would hold too many tiles into smaller regions.
+ *
+ * The bounds are halved along their longer side, in tiles at the deepest zoom level of
+ * the source, until every part holds at most the given number of tiles as counted by
+ * {@link TilePyramid#tileCount()}. Cuts fall on tile boundaries of that zoom level, so
+ * the parts share no tiles there; only the few tiles of lower zoom levels that straddle
+ * a cut are counted in both parts.
+ *
+ * Every part becomes an offline region of its own, so the number of parts is capped at
+ * {@link #MAX_PARTS}; larger regions are refused rather than split into thousands.
+ */
+public final class RegionPartitioner {
+
+    public static final int MAX_PARTS = 64;
+
+    private RegionPartitioner() {
+    }
+
+    /**
+     * @param maxTiles at least one tile per covering zoom level, the size of a part
+     *                 covering a single tile at the deepest zoom level
+     * @return the bounds of the parts, or just {@code pyramid}'s bounds if it fits
+     * @throws IllegalArgumentException if {@code maxTiles} is too small, or more than
+     *                                  {@link #MAX_PARTS} parts are needed
+     */
+    public static List<BoundingBox> partition(TilePyramid pyramid, long maxTiles) {
+        List<BoundingBox> parts = new ArrayList<>();
+        if (!partition(pyramid, maxTiles, parts)) {
+            throw new IllegalArgumentException("The region needs more than " + MAX_PARTS + " parts of at most "
+                    + maxTiles + " tiles; lower the zoom levels or the bounds");
+        }
+        return parts;
+    }
+
+    /**
+     * @return the number of parts {@link #partition} splits {@code pyramid} into, or
+     * {@link #MAX_PARTS} + 1 if it needs more
+     * @throws IllegalArgumentException if {@code maxTiles} is too small
+     */
+    public static int countParts(TilePyramid pyramid, long maxTiles) {
+        List<BoundingBox> parts = new ArrayList<>();
+        return partition(pyramid, maxTiles, parts) ? parts.size() : MAX_PARTS + 1;
+    }
+
+    /**
+     * @return false if more than {@link #MAX_PARTS} parts are needed, {@code parts} is
+     * then incomplete
+     */
+    private static boolean partition(TilePyramid pyramid, long maxTiles, List<BoundingBox> parts) {
+        // style zoom levels clamped to the same source zoom level share their tiles
+        int levels = pyramid.coveringZoom(pyramid.getMaxZoom()) - pyramid.coveringZoom(pyramid.getMinZoom()) + 1;
+        if (maxTiles < levels) {
+            throw new IllegalArgumentException("A part needs room for at least " + levels + " tiles");
+        }
+        // parts only ever add up to more tiles than the whole, never fewer
+        if ((pyramid.tileCount() + maxTiles - 1) / maxTiles > MAX_PARTS) {
+            return false;
+        }
+        return split(pyramid, maxTiles, parts);
+    }
+
+    private static boolean split(TilePyramid pyramid, long maxTiles, List<BoundingBox> parts) {
+        if (parts.size() >= MAX_PARTS) {
+            return false;
+        }
+        BoundingBox box = pyramid.getBounds();
+        if (pyramid.tileCount() <= maxTiles) {
+            parts.add(box);
+            return true;
+        }
+        int zoom = pyramid.coveringZoom(pyramid.getMaxZoom());
+        double tiles = 1 << zoom;
+        int x0 = TilePyramid.firstTile(WebMercator.lonToX(box.getMinLon()), zoom);
+        int x1 = Math.max(x0, TilePyramid.lastTile(WebMercator.lonToX(box.getMaxLon()), zoom));
+        int y0 = TilePyramid.firstTile(WebMercator.latToY(box.getMaxLat()), zoom);
+        int y1 = Math.max(y0, TilePyramid.lastTile(WebMercator.latToY(box.getMinLat()), zoom));
+        int columns = x1 - x0 + 1;
+        int rows = y1 - y0 + 1;
+        if (columns == 1 && rows == 1) {
+            parts.add(box);
+            return true;
+        }
+
+        BoundingBox first;
+        BoundingBox second;
+        if (columns >= rows) {
+            double lon = WebMercator.xToLon((x0 + columns / 2) / tiles);
+            first = new BoundingBox(box.getMinLat(), box.getMinLon(), box.getMaxLat(), lon);
+            second = new BoundingBox(box.getMinLat(), lon, box.getMaxLat(), box.getMaxLon());
+        } else {
+            // y grows southwards
+            double lat = WebMercator.yToLat((y0 + rows / 2) / tiles);
+            first = new BoundingBox(lat, box.getMinLon(), box.getMaxLat(), box.getMaxLon());
+            second = new BoundingBox(box.getMinLat(), box.getMinLon(), lat, box.getMaxLon());
+        }
+        return split(part(pyramid, first), maxTiles, parts)
+                && split(part(pyramid, second), maxTiles, parts);
+    }
+
+    private static TilePyramid part(TilePyramid pyramid, BoundingBox bounds) {
+        return new TilePyramid(bounds, pyramid.getMinZoom(), pyramid.getMaxZoom(), pyramid.getPixelRatio(),
+                pyramid.getTileSize(), pyramid.getSourceMinZoom(), pyramid.getSourceMaxZoom());
+    }
+}
@@ -0,0 +1,184 @@
+package com.mapbox.reactnativemapboxgl;
+
+/**
+ * Tile count and size estimate of an offline tile pyramid region, computed without
+ * touching the offline database.
+ *
+ * The count follows the SDK: at every zoom level from min to max, each tile of the
+ * source covering the bounds is downloaded once. Sources with 512 pixel tiles (vector
+ * styles) use the zoom level itself, 256 pixel sources one level deeper, clamped to the
+ * zoom range of the source; levels clamped to a zoom already covered add no tiles. The
+ * source range defaults to that of Mapbox Streets, which the Mapbox styles are built on.
+ * The pixel ratio does not change the count. Sizes use an average tile size per zoom
+ * level, given for a pixel ratio of 1; for 256 pixel (raster) sources they grow with the
+ * square of the pixel ratio.
+ */
+public final class TilePyramid {
+
+    /**
+     * The number of tiles a pack of the Mapbox hosted styles may hold.
+     */
+    public static final long MAPBOX_TILE_COUNT_LIMIT = 6000;
+    public static final long DEFAULT_AVERAGE_TILE_BYTES = 32 * 1024;
+    public static final int MAX_ZOOM = 22;
+    public static final int MAPBOX_STREETS_MIN_ZOOM = 0;
+    public static final int MAPBOX_STREETS_MAX_ZOOM = 16;
+
+    private final BoundingBox bounds;
+    private final int minZoom;
+    private final int maxZoom;
+    private final float pixelRatio;
+    private final int tileSize;
+    private final int sourceMinZoom;
+    private final int sourceMaxZoom;
+
+    public TilePyramid(BoundingBox bounds, int minZoom, int maxZoom, float pixelRatio) {
+        this(bounds, minZoom, maxZoom, pixelRatio, WebMercator.TILE_SIZE);
+    }
+
+    public TilePyramid(BoundingBox bounds, int minZoom, int maxZoom, float pixelRatio, int tileSize) {
+        this(bounds, minZoom, maxZoom, pixelRatio, tileSize, MAPBOX_STREETS_MIN_ZOOM, MAPBOX_STREETS_MAX_ZOOM);
+    }
+
+    /**
+     * @param sourceMinZoom lowest zoom level the source has tiles for
+     * @param sourceMaxZoom highest zoom level the source has tiles for
+     */
+    public TilePyramid(BoundingBox bounds, int minZoom, int maxZoom, float pixelRatio, int tileSize,
+                       int sourceMinZoom, int sourceMaxZoom) {
+        if (minZoom < 0 || maxZoom < minZoom || maxZoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("Invalid zoom range " + minZoom + ".." + maxZoom);
+        }
+        if (!(pixelRatio > 0)) {
+            throw new IllegalArgumentException("Invalid pixel ratio " + pixelRatio);
+        }
+        if (tileSize != 256 && tileSize != 512) {
+            throw new IllegalArgumentException("Invalid tile size " + tileSize);
+        }
+        if (sourceMinZoom < 0 || sourceMaxZoom < sourceMinZoom || sourceMaxZoom > MAX_ZOOM + 1) {
+            throw new IllegalArgumentException("Invalid source zoom range " + sourceMinZoom + ".." + sourceMaxZoom);
+        }
+        if (bounds.getMinLat() > bounds.getMaxLat() || bounds.getMinLon() > bounds.getMaxLon()) {
+            throw new IllegalArgumentException("Invalid bounds");
+        }
+        this.bounds = bounds;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.pixelRatio = pixelRatio;
+        this.tileSize = tileSize;
+        this.sourceMinZoom = sourceMinZoom;
+        this.sourceMaxZoom = sourceMaxZoom;
+    }
+
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    public int getMinZoom() {
+        return minZoom;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    public float getPixelRatio() {
+        return pixelRatio;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getSourceMinZoom() {
+        return sourceMinZoom;
+    }
+
+    public int getSourceMaxZoom() {
+        return sourceMaxZoom;
+    }
+
+    /**
+     * @return the zoom level of the source tiles downloaded for the given style zoom level
+     */
+    public int coveringZoom(int zoom) {
+        int z = tileSize == 256 ? zoom + 1 : zoom;
+        return Math.max(sourceMinZoom, Math.min(sourceMaxZoom, z));
+    }
+
+    /**
+     * @return the number of tiles the given style zoom level adds to the pack; none if a
+     * lower level of the pack already covers the same source zoom level
+     */
+    public long tileCount(int zoom) {
+        int z = coveringZoom(zoom);
+        if (zoom > minZoom && coveringZoom(zoom - 1) == z) {
+            return 0;
+        }
+        return (long) span(WebMercator.lonToX(bounds.getMinLon()), WebMercator.lonToX(bounds.getMaxLon()), z)
+                * span(WebMercator.latToY(bounds.getMaxLat()), WebMercator.latToY(bounds.getMinLat()), z);
+    }
+
+    public long tileCount() {
+        long count = 0;
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            count += tileCount(zoom);
+        }
+        return count;
+    }
+
+    public boolean exceedsTileCountLimit() {
+        return tileCount() > MAPBOX_TILE_COUNT_LIMIT;
+    }
+
+    /**
+     * @param averageTileBytes average tile size indexed by style zoom level; zoom levels
+     *                         past the end use the last value, and a null or empty array
+     *                         uses {@link #DEFAULT_AVERAGE_TILE_BYTES}
+     */
+    public long estimateBytes(int zoom, long[] averageTileBytes) {
+        long average;
+        if (averageTileBytes == null || averageTileBytes.length == 0) {
+            average = DEFAULT_AVERAGE_TILE_BYTES;
+        } else {
+            average = averageTileBytes[Math.min(zoom, averageTileBytes.length - 1)];
+        }
+        double scale = tileSize == 256 ? pixelRatio * pixelRatio : 1;
+        return (long) (tileCount(zoom) * average * scale);
+    }
+
+    public long estimateBytes(long[] averageTileBytes) {
+        long bytes = 0;
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            bytes += estimateBytes(zoom, averageTileBytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of tiles between two normalized coordinates at a zoom level.
+     * A tile only touched by the far edge is not counted.
+     */
+    static int span(double from, double to, int zoom) {
+        int first = firstTile(from, zoom);
+        return Math.max(first, lastTile(to, zoom)) - first + 1;
+    }
+
+    // edges within EDGE_EPSILON of a tile boundary are snapped to it, so bounds split on
+    // tile boundaries do not pick up a neighbouring row or column through rounding
+    private static final double EDGE_EPSILON = 1e-9;
+
+    static int firstTile(double from, int zoom) {
+        int tiles = 1 << zoom;
+        return clamp((int) Math.floor(from * tiles + EDGE_EPSILON), tiles);
+    }
+
+    static int lastTile(double to, int zoom) {
+        int tiles = 1 << zoom;
+        return clamp((int) Math.ceil(to * tiles - EDGE_EPSILON) - 1, tiles);
+    }
+
+    private static int clamp(int index, int tiles) {
+        return Math.max(0, Math.min(tiles - 1, index));
+    }
+}
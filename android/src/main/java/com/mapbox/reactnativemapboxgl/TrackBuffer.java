@@ -0,0 +1,68 @@
+package com.mapbox.reactnativemapboxgl;
+
+/**
+ * The most recent fixes of a track, kept in memory to draw the live end of it without
+ * reading the file. Once full, every fix replaces the oldest one.
+ */
+public final class TrackBuffer {
+
+    public static final int DEFAULT_CAPACITY = 2000;
+
+    private final long[] times;
+    private final double[] coordinates;
+    private int start;
+    private int size;
+
+    public TrackBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("A track buffer holds at least 2 fixes");
+        }
+        times = new long[capacity];
+        coordinates = new double[capacity * 2];
+    }
+
+    public void add(long time, double latitude, double longitude) {
+        int slot;
+        if (size < times.length) {
+            slot = (start + size) % times.length;
+            size++;
+        } else {
+            slot = start;
+            start = (start + 1) % times.length;
+        }
+        times[slot] = time;
+        coordinates[slot * 2] = latitude;
+        coordinates[slot * 2 + 1] = longitude;
+    }
+
+    /**
+     * @return packed [lat, lon, ...] coordinates, oldest first
+     */
+    public double[] toPacked() {
+        double[] packed = new double[size * 2];
+        int first = Math.min(size, times.length - start);
+        System.arraycopy(coordinates, start * 2, packed, 0, first * 2);
+        System.arraycopy(coordinates, 0, packed, first * 2, (size - first) * 2);
+        return packed;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return times.length;
+    }
+
+    /**
+     * @return time of the oldest fix held, 0 if empty
+     */
+    public long getStartTime() {
+        return size == 0 ? 0 : times[start];
+    }
+}
@@ -0,0 +1,431 @@
+package com.mapbox.reactnativemapboxgl;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A recorded track: location fixes in an append-only file, with an index of keyframes
+ * so any time range can be read without decoding the file from the start.
+ *
+ * The data file starts with a 4 byte magic, followed by one record per fix. A record
+ * is a header varint, then the latitude and longitude in 1e-7 degrees as zigzag varints
+ * and the accuracy in decimeters as a varint. The low bit of the header marks a
+ * keyframe: its header holds the time in milliseconds and its coordinates are
+ * absolute. Other records hold the time and coordinates as deltas to the previous fix,
+ * so a fix taken every second while walking takes about 7 bytes. Every
+ * {@value #KEYFRAME_INTERVAL}th fix, and the first fix written after opening, is a
+ * keyframe.
+ *
+ * The index file holds a (time, offset, ordinal) entry of three longs per keyframe
+ * and is loaded into memory when the track is opened.
+ *
+ * Appends are buffered in memory; {@link #sync()} writes them and forces them to disk,
+ * the data before the index entries pointing into it. After a crash, a partly written
+ * record or index entry at the end is cut off when the track is opened again, and
+ * keyframes written after the last index entry are indexed again.
+ *
+ * Not thread safe; {@link TrackRecorder} only uses it from its IO thread.
+ */
+public final class TrackFile {
+
+    public static final String DATA_SUFFIX = ".trk";
+    public static final String INDEX_SUFFIX = ".tdx";
+    public static final int KEYFRAME_INTERVAL = 256;
+
+    private static final int MAGIC = 0x54524B31;
+    private static final int HEADER_SIZE = 4;
+    private static final int INDEX_ENTRY_SIZE = 24;
+    private static final double COORDINATE_SCALE = 1e7;
+
+    /**
+     * Receives decoded fixes in the order they were recorded.
+     */
+    public interface Visitor {
+        /**
+         * @return false to stop reading
+         */
+        boolean onFix(long time, double latitude, double longitude, double accuracy);
+    }
+
+    private final File dataFile;
+    private final File indexFile;
+    private final RandomAccessFile data;
+    private final RandomAccessFile index;
+
+    private long[] keyframeTimes = new long[16];
+    private long[] keyframeOffsets = new long[16];
+    private long[] keyframeOrdinals = new long[16];
+    private int keyframeCount;
+    private int syncedKeyframeCount;
+
+    private byte[] pending = new byte[1024];
+    private int pendingSize;
+    private long writtenLength;
+    private long syncedLength;
+
+    private long fixCount;
+    private long firstTime;
+    private long lastTime;
+    private int lastLatitude;
+    private int lastLongitude;
+    private boolean needsKeyframe = true;
+
+    /**
+     * Opens a track for reading and appending, creating it if needed and cutting off a
+     * partly written tail.
+     *
+     * @param base path of the track without suffix
+     */
+    public static TrackFile open(File base) throws IOException {
+        return new TrackFile(new File(base.getPath() + DATA_SUFFIX), new File(base.getPath() + INDEX_SUFFIX));
+    }
+
+    private TrackFile(File dataFile, File indexFile) throws IOException {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        data = new RandomAccessFile(dataFile, "rw");
+        try {
+            index = new RandomAccessFile(indexFile, "rw");
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void recover() throws IOException {
+        if (data.length() < HEADER_SIZE) {
+            data.setLength(0);
+            data.writeInt(MAGIC);
+            index.setLength(0);
+        } else if (data.readInt() != MAGIC) {
+            throw new IOException("Not a track file: " + dataFile.getName());
+        }
+
+        long dataLength = data.length();
+        int entries = (int) (index.length() / INDEX_ENTRY_SIZE);
+        byte[] entry = new byte[INDEX_ENTRY_SIZE];
+        index.seek(0);
+        for (int i = 0; i < entries; i++) {
+            index.readFully(entry);
+            ByteBuffer buffer = ByteBuffer.wrap(entry);
+            long time = buffer.getLong();
+            long offset = buffer.getLong();
+            long ordinal = buffer.getLong();
+            if (offset < HEADER_SIZE || offset >= dataLength) {
+                break;
+            }
+            addKeyframe(time, offset, ordinal);
+        }
+        syncedKeyframeCount = keyframeCount;
+        index.setLength((long) keyframeCount * INDEX_ENTRY_SIZE);
+
+        // decode from the last keyframe to find the last complete record, indexing the
+        // keyframes flushed after it
+        long start = keyframeCount > 0 ? keyframeOffsets[keyframeCount - 1] : HEADER_SIZE;
+        long ordinal = keyframeCount > 0 ? keyframeOrdinals[keyframeCount - 1] : 0;
+        Decoder decoder = new Decoder(new BufferedInputStream(new FileInputStream(dataFile)), start);
+        long end = start;
+        try {
+            while (decoder.next()) {
+                if (keyframeCount == 0 || (decoder.keyframe && end > keyframeOffsets[keyframeCount - 1])) {
+                    addKeyframe(decoder.time, end, ordinal);
+                }
+                end = decoder.position;
+                ordinal++;
+                lastTime = decoder.time;
+                lastLatitude = decoder.latitude;
+                lastLongitude = decoder.longitude;
+            }
+        } finally {
+            decoder.close();
+        }
+        if (end < dataLength) {
+            data.setLength(end);
+        }
+        writtenLength = end;
+        syncedLength = end;
+        fixCount = ordinal;
+        firstTime = keyframeCount > 0 ? keyframeTimes[0] : 0;
+        data.seek(writtenLength);
+        if (syncedKeyframeCount < keyframeCount) {
+            data.getChannel().force(false);
+            syncIndex();
+        }
+    }
+
+    /**
+     * Buffers a fix; nothing reaches the file before {@link #flush()} or {@link #sync()}.
+     * Fixes older than the last one are stored with the last one's time.
+     */
+    public void append(long time, double latitude, double longitude, double accuracy) {
+        int lat = (int) Math.round(latitude * COORDINATE_SCALE);
+        int lon = (int) Math.round(longitude * COORDINATE_SCALE);
+        int decimeters = (int) Math.max(0, Math.min(Integer.MAX_VALUE, Math.round(accuracy * 10)));
+        if (fixCount > 0) {
+            time = Math.max(time, lastTime);
+        }
+        if (needsKeyframe || fixCount % KEYFRAME_INTERVAL == 0) {
+            addKeyframe(time, writtenLength + pendingSize, fixCount);
+            writeVarint((time << 1) | 1);
+            writeVarint(zigzag(lat));
+            writeVarint(zigzag(lon));
+            needsKeyframe = false;
+        } else {
+            writeVarint((time - lastTime) << 1);
+            writeVarint(zigzag(lat - lastLatitude));
+            writeVarint(zigzag(lon - lastLongitude));
+        }
+        writeVarint(decimeters);
+        if (fixCount == 0) {
+            firstTime = time;
+        }
+        fixCount++;
+        lastTime = time;
+        lastLatitude = lat;
+        lastLongitude = lon;
+    }
+
+    /**
+     * Writes buffered fixes to the file without forcing them to disk, so they can be read.
+     */
+    public void flush() throws IOException {
+        if (pendingSize == 0) {
+            return;
+        }
+        data.seek(writtenLength);
+        data.write(pending, 0, pendingSize);
+        writtenLength += pendingSize;
+        pendingSize = 0;
+    }
+
+    /**
+     * Writes buffered fixes and the index entries of their keyframes and forces both to
+     * disk, the data first so the index never points past it.
+     */
+    public void sync() throws IOException {
+        flush();
+        if (syncedLength < writtenLength) {
+            data.getChannel().force(false);
+            syncedLength = writtenLength;
+        }
+        if (syncedKeyframeCount < keyframeCount) {
+            syncIndex();
+        }
+    }
+
+    /**
+     * Writes the index entries added since the last call and forces them to disk; the
+     * data they point into must be on disk already.
+     */
+    private void syncIndex() throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate((keyframeCount - syncedKeyframeCount) * INDEX_ENTRY_SIZE);
+        for (int i = syncedKeyframeCount; i < keyframeCount; i++) {
+            entries.putLong(keyframeTimes[i]).putLong(keyframeOffsets[i]).putLong(keyframeOrdinals[i]);
+        }
+        index.seek((long) syncedKeyframeCount * INDEX_ENTRY_SIZE);
+        index.write(entries.array());
+        index.getChannel().force(false);
+        syncedKeyframeCount = keyframeCount;
+    }
+
+    /**
+     * Decodes the fixes taken from {@code startTime} to {@code endTime}, inclusive,
+     * starting at the last keyframe before {@code startTime}.
+     */
+    public void read(long startTime, long endTime, Visitor visitor) throws IOException {
+        flush();
+        if (fixCount == 0 || startTime > lastTime || endTime < firstTime) {
+            return;
+        }
+        int keyframe = Math.max(0, floorKeyframe(startTime));
+        Decoder decoder = new Decoder(new BufferedInputStream(new FileInputStream(dataFile)), keyframeOffsets[keyframe]);
+        try {
+            while (decoder.next()) {
+                if (decoder.time > endTime) {
+                    break;
+                }
+                if (decoder.time >= startTime && !visitor.onFix(decoder.time, decoder.latitude / COORDINATE_SCALE,
+                        decoder.longitude / COORDINATE_SCALE, decoder.decimeters / 10.0)) {
+                    break;
+                }
+            }
+        } finally {
+            decoder.close();
+        }
+    }
+
+    /**
+     * @return the last keyframe at or before {@code time}, or -1 if there is none
+     */
+    private int floorKeyframe(long time) {
+        int found = Arrays.binarySearch(keyframeTimes, 0, keyframeCount, time);
+        if (found >= 0) {
+            // several keyframes can share a time; the first of them holds the earliest fixes
+            while (found > 0 && keyframeTimes[found - 1] == time) {
+                found--;
+            }
+            return found;
+        }
+        return -found - 2;
+    }
+
+    private void addKeyframe(long time, long offset, long ordinal) {
+        if (keyframeCount == keyframeTimes.length) {
+            keyframeTimes = Arrays.copyOf(keyframeTimes, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+            keyframeOrdinals = Arrays.copyOf(keyframeOrdinals, keyframeCount * 2);
+        }
+        keyframeTimes[keyframeCount] = time;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeOrdinals[keyframeCount] = ordinal;
+        keyframeCount++;
+    }
+
+    private void writeVarint(long value) {
+        if (pendingSize + 10 > pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        while ((value & ~0x7FL) != 0) {
+            pending[pendingSize++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        pending[pendingSize++] = (byte) value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Deletes both files of a closed track.
+     *
+     * @return true if the data file was deleted
+     */
+    public static boolean delete(File base) {
+        new File(base.getPath() + INDEX_SUFFIX).delete();
+        return new File(base.getPath() + DATA_SUFFIX).delete();
+    }
+
+    public long getFixCount() {
+        return fixCount;
+    }
+
+    public long getFirstTime() {
+        return firstTime;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @return size of the data file once buffered fixes are written
+     */
+    public long getByteCount() {
+        return writtenLength + pendingSize;
+    }
+
+    /**
+     * Reads records from a keyframe on. A record cut off by the end of the file ends the
+     * track as if it was not there.
+     */
+    private static final class Decoder {
+        private final InputStream in;
+        long position;
+        private int recordSize;
+        boolean keyframe;
+        long time;
+        int latitude;
+        int longitude;
+        int decimeters;
+
+        Decoder(InputStream in, long start) throws IOException {
+            this.in = in;
+            long skipped = 0;
+            while (skipped < start) {
+                long n = in.skip(start - skipped);
+                if (n <= 0) {
+                    throw new EOFException("Track index points past the end of the data");
+                }
+                skipped += n;
+            }
+            position = start;
+        }
+
+        /**
+         * @return false at the end of the track, {@link #position} is then left after
+         * the last complete record
+         */
+        boolean next() throws IOException {
+            recordSize = 0;
+            long header = readVarint();
+            long lat = header == -1 ? -1 : readVarint();
+            long lon = lat == -1 ? -1 : readVarint();
+            long accuracy = lon == -1 ? -1 : readVarint();
+            if (accuracy == -1) {
+                return false;
+            }
+            keyframe = (header & 1) != 0;
+            if (keyframe) {
+                time = header >>> 1;
+                latitude = (int) unzigzag(lat);
+                longitude = (int) unzigzag(lon);
+            } else {
+                time += header >>> 1;
+                latitude += (int) unzigzag(lat);
+                longitude += (int) unzigzag(lon);
+            }
+            decimeters = (int) accuracy;
+            position += recordSize;
+            return true;
+        }
+
+        /**
+         * @return the value, or -1 at the end of the stream
+         */
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.read();
+                if (b == -1) {
+                    return -1;
+                }
+                recordSize++;
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in track");
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.mapbox.reactnativemapboxgl;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+/**
+ * Records user location fixes to {@link TrackFile}s in the app's private storage, one
+ * file per named track, and keeps the latest fixes of every track being recorded in a
+ * {@link TrackBuffer} so the map can draw them.
+ *
+ * Files are only touched on a background thread. Appends are forced to disk once
+ * {@code syncEvery} fixes are waiting, or {@code syncIntervalMillis} after the first of
+ * them, whichever comes first, so a crash loses at most that much of a track while the
+ * disk is not flushed for every fix.
+ *
+ * Apart from {@link #getSegment} and {@link #getTracks}, everything here must be called
+ * on the UI thread, see {@link #post(Runnable)}.
+ */
+public class TrackRecorder {
+
+    private static final String TAG = TrackRecorder.class.getSimpleName();
+
+    public static final int DEFAULT_SYNC_EVERY = 32;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10000;
+    public static final int SEGMENT_PRECISION = 6;
+
+    private static final String DIRECTORY = "tracks";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private static final ScheduledExecutorService IO = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "mapbox-tracks");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    });
+
+    private static final Metrics.Counter FIXES = Metrics.counter("track.fixes");
+    private static final Metrics.Counter SYNCS = Metrics.counter("track.syncs");
+    private static final Metrics.Counter ERRORS = Metrics.counter("track.errors");
+    private static final Metrics.Histogram SYNC_NANOS = Metrics.histogram("track.syncNanos");
+    private static final Metrics.Histogram SEGMENT_NANOS = Metrics.histogram("track.segmentNanos");
+
+    /**
+     * A track being recorded. The tail is only used on the UI thread, the rest only on
+     * the IO thread.
+     */
+    private static final class Recording {
+        final String name;
+        final TrackBuffer tail;
+        final int syncEvery;
+        final long syncIntervalMillis;
+        TrackFile file;
+        int unsynced;
+        ScheduledFuture<?> scheduledSync;
+
+        Recording(String name, int ringSize, int syncEvery, long syncIntervalMillis) {
+            this.name = name;
+            this.tail = new TrackBuffer(ringSize);
+            this.syncEvery = Math.max(1, syncEvery);
+            this.syncIntervalMillis = Math.max(0, syncIntervalMillis);
+        }
+    }
+
+    private final File directory;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Recording> recordings = new HashMap<>();
+    // recordings with an open file, only used on the IO thread
+    private final Map<String, Recording> open = new HashMap<>();
+
+    /**
+     * @param filesDir the app's private files directory; tracks are kept in a
+     *                 subdirectory of it
+     */
+    public TrackRecorder(File filesDir) {
+        this.directory = new File(filesDir, DIRECTORY);
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && NAME.matcher(name).matches();
+    }
+
+    /**
+     * Starts appending to the track {@code name}, creating it if needed. {@code callback}
+     * is invoked once the file is open with {@code {name, fixes, startTime, endTime}}
+     * describing what was recorded before, or with an error message.
+     *
+     * @param ringSize number of recent fixes kept in memory for drawing
+     * @return false if the name is invalid or the track is already being recorded, in
+     * which case {@code callback} has been invoked with the reason
+     */
+    public boolean start(String name, int ringSize, int syncEvery, long syncIntervalMillis, @Nullable final Callback callback) {
+        if (!isValidName(name)) {
+            invoke(callback, "Invalid track name: " + name);
+            return false;
+        }
+        if (recordings.containsKey(name)) {
+            invoke(callback, "Track is already being recorded: " + name);
+            return false;
+        }
+        final Recording recording = new Recording(name, Math.max(2, ringSize), syncEvery, syncIntervalMillis);
+        recordings.put(name, recording);
+        IO.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    directory.mkdirs();
+                    recording.file = TrackFile.open(new File(directory, recording.name));
+                    open.put(recording.name, recording);
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not open track " + recording.name + ": " + e.getMessage());
+                    ERRORS.increment();
+                    final String message = e.getMessage();
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (recordings.get(recording.name) == recording) {
+                                recordings.remove(recording.name);
+                            }
+                            invoke(callback, message);
+                        }
+                    });
+                    return;
+                }
+                final WritableMap info = describe(recording.name, recording.file, true);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (callback != null) {
+                            callback.invoke(null, info);
+                        }
+                    }
+                });
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Appends a fix to a track being recorded; ignored for other tracks.
+     *
+     * @return true if the fix was recorded
+     */
+    public boolean append(String name, final long time, final double latitude, final double longitude, final double accuracy) {
+        final Recording recording = recordings.get(name);
+        if (recording == null) {
+            return false;
+        }
+        recording.tail.add(time, latitude, longitude);
+        FIXES.increment();
+        IO.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (recording.file == null) {
+                    return;
+                }
+                recording.file.append(time, latitude, longitude, accuracy);
+                recording.unsynced++;
+                if (recording.unsynced >= recording.syncEvery) {
+                    sync(recording);
+                } else if (recording.scheduledSync == null && recording.syncIntervalMillis > 0) {
+                    recording.scheduledSync = IO.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            sync(recording);
+                        }
+                    }, recording.syncIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Forces the waiting fixes of a track to disk; runs on the IO thread.
+     */
+    private static void sync(Recording recording) {
+        if (recording.scheduledSync != null) {
+            recording.scheduledSync.cancel(false);
+            recording.scheduledSync = null;
+        }
+        if (recording.file == null || recording.unsynced == 0) {
+            return;
+        }
+        long start = Metrics.start();
+        try {
+            recording.file.sync();
+            recording.unsynced = 0;
+            SYNCS.increment();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not sync track " + recording.name + ": " + e.getMessage());
+            ERRORS.increment();
+        } finally {
+            SYNC_NANOS.recordSince(start);
+        }
+    }
+
+    /**
+     * Stops recording a track, forcing its waiting fixes to disk.
+     */
+    public void stop(String name) {
+        final Recording recording = recordings.remove(name);
+        if (recording == null) {
+            return;
+        }
+        IO.execute(new Runnable() {
+            @Override
+            public void run() {
+                sync(recording);
+                if (recording.file == null) {
+                    return;
+                }
+                open.remove(recording.name);
+                try {
+                    recording.file.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not close track " + recording.name + ": " + e.getMessage());
+                }
+                recording.file = null;
+            }
+        });
+    }
+
+    public boolean isRecording(String name) {
+        return recordings.containsKey(name);
+    }
+
+    /**
+     * @return packed [lat, lon, ...] coordinates of the latest fixes of a track being
+     * recorded, oldest first, or null if it is not being recorded
+     */
+    public @Nullable double[] getTail(String name) {
+        Recording recording = recordings.get(name);
+        return recording == null ? null : recording.tail.toPacked();
+    }
+
+    /**
+     * Reads the fixes of a track taken from {@code startTime} to {@code endTime},
+     * milliseconds since the epoch, both inclusive, and invokes {@code callback} with
+     * {@code {name, count, coordinates, precision, timestamps, accuracies}}, where
+     * {@code coordinates} is an encoded polyline of {@link #SEGMENT_PRECISION} digits.
+     * Only the part of the file from the keyframe before {@code startTime} on is read.
+     */
+    public void getSegment(final String name, final long startTime, final long endTime, final Callback callback) {
+        if (!isValidName(name)) {
+            callback.invoke("Invalid track name: " + name);
+            return;
+        }
+        IO.execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = Metrics.start();
+                final Segment segment = new Segment();
+                try {
+                    TrackFile file = openForReading(name);
+                    if (file == null) {
+                        postResult(callback, "No such track: " + name, null);
+                        return;
+                    }
+                    try {
+                        file.read(startTime, endTime, segment);
+                    } finally {
+                        closeAfterReading(name, file);
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not read track " + name + ": " + e.getMessage());
+                    ERRORS.increment();
+                    postResult(callback, e.getMessage(), null);
+                    return;
+                } finally {
+                    SEGMENT_NANOS.recordSince(start);
+                }
+
+                WritableArray timestamps = Arguments.createArray();
+                WritableArray accuracies = Arguments.createArray();
+                for (int i = 0; i < segment.count; i++) {
+                    timestamps.pushDouble(segment.times[i]);
+                    accuracies.pushDouble(segment.accuracies[i]);
+                }
+                WritableMap result = Arguments.createMap();
+                result.putString("name", name);
+                result.putInt("count", segment.count);
+                result.putString("coordinates", PolylineCodec.encode(
+                        Arrays.copyOf(segment.coordinates, segment.count * 2), SEGMENT_PRECISION));
+                result.putInt("precision", SEGMENT_PRECISION);
+                result.putArray("timestamps", timestamps);
+                result.putArray("accuracies", accuracies);
+                postResult(callback, null, result);
+            }
+        });
+    }
+
+    /**
+     * Invokes {@code callback} with {@code {name, fixes, bytes, startTime, endTime, recording}}
+     * for every recorded track.
+     */
+    public void getTracks(final Callback callback) {
+        IO.execute(new Runnable() {
+            @Override
+            public void run() {
+                WritableArray tracks = Arguments.createArray();
+                File[] files = directory.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        String fileName = file.getName();
+                        if (!fileName.endsWith(TrackFile.DATA_SUFFIX)) {
+                            continue;
+                        }
+                        String name = fileName.substring(0, fileName.length() - TrackFile.DATA_SUFFIX.length());
+                        try {
+                            TrackFile track = openForReading(name);
+                            if (track == null) {
+                                continue;
+                            }
+                            try {
+                                tracks.pushMap(describe(name, track, isOpenForRecording(name)));
+                            } finally {
+                                closeAfterReading(name, track);
+                            }
+                        } catch (IOException e) {
+                            Log.w(TAG, "Could not read track " + name + ": " + e.getMessage());
+                        }
+                    }
+                }
+                postResult(callback, null, tracks);
+            }
+        });
+    }
+
+    /**
+     * Deletes a track that is not being recorded; {@code callback} is invoked with
+     * {@code true} if it existed.
+     */
+    public void delete(final String name, final Callback callback) {
+        if (!isValidName(name)) {
+            callback.invoke("Invalid track name: " + name);
+            return;
+        }
+        if (recordings.containsKey(name)) {
+            callback.invoke("Track is being recorded: " + name);
+            return;
+        }
+        IO.execute(new Runnable() {
+            @Override
+            public void run() {
+                postResult(callback, null, TrackFile.delete(new File(directory, name)));
+            }
+        });
+    }
+
+    /**
+     * Runs {@code action} on the UI thread, where the recordings live.
+     */
+    public void post(Runnable action) {
+        mainHandler.post(action);
+    }
+
+    /**
+     * @return the open file of a track being recorded, else the track opened just for
+     * reading, or null if there is no such track; runs on the IO thread
+     */
+    private @Nullable TrackFile openForReading(String name) throws IOException {
+        TrackFile open = findOpen(name);
+        if (open != null) {
+            return open;
+        }
+        File base = new File(directory, name);
+        if (!new File(base.getPath() + TrackFile.DATA_SUFFIX).exists()) {
+            return null;
+        }
+        return TrackFile.open(base);
+    }
+
+    private void closeAfterReading(String name, TrackFile file) throws IOException {
+        if (findOpen(name) != file) {
+            file.close();
+        }
+    }
+
+    private boolean isOpenForRecording(String name) {
+        return findOpen(name) != null;
+    }
+
+    private @Nullable TrackFile findOpen(String name) {
+        Recording recording = open.get(name);
+        return recording == null ? null : recording.file;
+    }
+
+    private static WritableMap describe(String name, TrackFile file, boolean recording) {
+        WritableMap info = Arguments.createMap();
+        info.putString("name", name);
+        info.putDouble("fixes", file.getFixCount());
+        info.putDouble("bytes", file.getByteCount());
+        info.putDouble("startTime", file.getFirstTime());
+        info.putDouble("endTime", file.getLastTime());
+        info.putBoolean("recording", recording);
+        return info;
+    }
+
+    private void postResult(final Callback callback, @Nullable final String error, @Nullable final Object result) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (error != null) {
+                    callback.invoke(error);
+                } else {
+                    callback.invoke(null, result);
+                }
+            }
+        });
+    }
+
+    private static void invoke(@Nullable Callback callback, String error) {
+        if (callback != null) {
+            callback.invoke(error);
+        } else {
+            Log.w(TAG, error);
+        }
+    }
+
+    /**
+     * Collects the fixes of a segment into growing arrays.
+     */
+    private static final class Segment implements TrackFile.Visitor {
+        long[] times = new long[256];
+        double[] coordinates = new double[512];
+        double[] accuracies = new double[256];
+        int count;
+
+        @Override
+        public boolean onFix(long time, double latitude, double longitude, double accuracy) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                coordinates = Arrays.copyOf(coordinates, count * 4);
+                accuracies = Arrays.copyOf(accuracies, count * 2);
+            }
+            times[count] = time;
+            coordinates[count * 2] = latitude;
+            coordinates[count * 2 + 1] = longitude;
+            accuracies[count] = accuracy;
+            count++;
+            return true;
+        }
+    }
+}
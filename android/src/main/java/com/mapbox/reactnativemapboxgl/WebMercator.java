@@ -0,0 +1,40 @@
+package com.mapbox.reactnativemapboxgl;
+
+/**
+ * Spherical mercator helpers working in normalized world coordinates, where the
+ * whole world spans [0, 1] on both axes with y growing southwards.
+ */
+public final class WebMercator {
+
+    public static final double MAX_LATITUDE = 85.0511287798066;
+    public static final int TILE_SIZE = 512;
+
+    private WebMercator() {
+    }
+
+    public static double lonToX(double lon) {
+        return (lon + 180.0) / 360.0;
+    }
+
+    public static double latToY(double lat) {
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    public static double xToLon(double x) {
+        return x * 360.0 - 180.0;
+    }
+
+    public static double yToLat(double y) {
+        double n = Math.PI - 2.0 * Math.PI * y;
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    /**
+     * @return the size of the world in screen pixels at the given zoom level
+     */
+    public static double worldSize(double zoom) {
+        return TILE_SIZE * Math.pow(2, zoom);
+    }
+}
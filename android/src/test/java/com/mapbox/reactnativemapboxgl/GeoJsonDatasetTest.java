@@ -0,0 +1,57 @@
+package com.mapbox.reactnativemapboxgl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GeoJsonDatasetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsIdsOfDatasetsApart() throws IOException {
+        String features = "{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"id\":1,\"geometry\":{\"type\":\"Point\",\"coordinates\":[13.4,52.5]}},"
+                + "{\"type\":\"Feature\",\"properties\":{\"id\":\"2\"},\"geometry\":{\"type\":\"Point\",\"coordinates\":[13.5,52.6]}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[13.6,52.7]}}]}";
+        File first = write(new File(folder.newFolder("a"), "points.geojson"), features);
+        File second = write(new File(folder.newFolder("b"), "points.geojson"), features);
+
+        GeoJsonDataset a = GeoJsonDataset.open(first.getPath());
+        GeoJsonDataset b = GeoJsonDataset.open(second.getPath());
+        try {
+            assertEquals(3, a.getFeatureCount());
+            assertEquals(3, b.getFeatureCount());
+            for (int feature = 0; feature < 3; feature++) {
+                String idA = a.read(feature).getId();
+                String idB = b.read(feature).getId();
+                assertNotEquals(idA, idB);
+            }
+            assertEquals(first.getPath() + GeoJsonDataset.ID_SEPARATOR + "1", a.read(0).getId());
+            assertEquals(second.getPath() + GeoJsonDataset.ID_SEPARATOR + "2", b.read(1).getId());
+            assertEquals(first.getPath() + AnnotationParser.ID_PREFIX_POSITIONAL + "2", a.read(2).getId());
+        } finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    private static File write(File file, String text) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mapbox.reactnativemapboxgl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class RegionPartitionerTest {
+
+    private static final BoundingBox SAN_FRANCISCO = new BoundingBox(37.70, -122.52, 37.81, -122.35);
+
+    @Test
+    public void keepsEveryPartWithinTheTileLimit() {
+        TilePyramid pyramid = new TilePyramid(SAN_FRANCISCO, 10, 18, 1);
+        long maxTiles = 200;
+        List<BoundingBox> parts = RegionPartitioner.partition(pyramid, maxTiles);
+        assertTrue(parts.size() > 1);
+        assertTrue(parts.size() <= RegionPartitioner.MAX_PARTS);
+        assertEquals(parts.size(), RegionPartitioner.countParts(pyramid, maxTiles));
+        long total = 0;
+        for (BoundingBox part : parts) {
+            long count = new TilePyramid(part, 10, 18, 1).tileCount();
+            assertTrue(count + " tiles", count <= maxTiles);
+            total += count;
+        }
+        // only tiles straddling a cut are counted twice
+        assertTrue(total >= pyramid.tileCount());
+        assertTrue(total < pyramid.tileCount() * 2);
+    }
+
+    @Test
+    public void doesNotSplitAPackThatFits() {
+        // 17,360 tiles if z17 and z18 were counted, within the limit once clamped to z16
+        TilePyramid pyramid = new TilePyramid(SAN_FRANCISCO, 10, 18, 1);
+        List<BoundingBox> parts = RegionPartitioner.partition(pyramid, TilePyramid.MAPBOX_TILE_COUNT_LIMIT);
+        assertEquals(1, parts.size());
+        assertEquals(SAN_FRANCISCO, parts.get(0));
+        assertEquals(1, RegionPartitioner.countParts(pyramid, TilePyramid.MAPBOX_TILE_COUNT_LIMIT));
+    }
+
+    @Test
+    public void refusesPacksNeedingTooManyParts() {
+        BoundingBox california = new BoundingBox(32.5, -124.4, 42.0, -114.1);
+        TilePyramid pyramid = new TilePyramid(california, 0, 16, 1);
+        assertEquals(RegionPartitioner.MAX_PARTS + 1,
+                RegionPartitioner.countParts(pyramid, TilePyramid.MAPBOX_TILE_COUNT_LIMIT));
+        try {
+            RegionPartitioner.partition(pyramid, TilePyramid.MAPBOX_TILE_COUNT_LIMIT);
+            throw new AssertionError("partitioned into more than " + RegionPartitioner.MAX_PARTS + " parts");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
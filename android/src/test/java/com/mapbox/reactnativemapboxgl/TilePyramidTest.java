@@ -0,0 +1,56 @@
+package com.mapbox.reactnativemapboxgl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TilePyramidTest {
+
+    private static final BoundingBox WORLD = new BoundingBox(-WebMercator.MAX_LATITUDE, -180, WebMercator.MAX_LATITUDE, 180);
+    private static final BoundingBox SAN_FRANCISCO = new BoundingBox(37.70, -122.52, 37.81, -122.35);
+
+    @Test
+    public void countsEveryTileOfTheWorld() {
+        // 1 + 4 + 16
+        assertEquals(21, new TilePyramid(WORLD, 0, 2, 1).tileCount());
+    }
+
+    @Test
+    public void snapsEdgesOnTileBoundaries() {
+        TilePyramid quarter = new TilePyramid(new BoundingBox(0, 0, 66.51326044311186, 90), 2, 2, 1);
+        assertEquals(1, quarter.tileCount(2));
+        assertEquals(4, TilePyramid.span(0.5, 0.75 + 1e-12, 4));
+        assertEquals(1, TilePyramid.span(0.25 - 1e-12, 0.5, 2));
+    }
+
+    @Test
+    public void clampsToTheSourceZoomRange() {
+        TilePyramid pyramid = new TilePyramid(SAN_FRANCISCO, 10, 18, 1);
+        assertEquals(16, pyramid.coveringZoom(18));
+        assertEquals(0, pyramid.tileCount(17));
+        assertEquals(0, pyramid.tileCount(18));
+        long count = pyramid.tileCount();
+        assertTrue(count > 1000 && count < 1400);
+        assertEquals(count, new TilePyramid(SAN_FRANCISCO, 10, 16, 1).tileCount());
+
+        TilePyramid deeper = new TilePyramid(SAN_FRANCISCO, 10, 18, 1, 512, 0, 22);
+        assertEquals(17360, deeper.tileCount(), 17360 * 0.05);
+        assertTrue(deeper.tileCount() > count);
+    }
+
+    @Test
+    public void countsRasterTilesOneLevelDeeper() {
+        assertEquals(4 + 16 + 64, new TilePyramid(WORLD, 0, 2, 1, 256).tileCount());
+        assertEquals(21, new TilePyramid(WORLD, 0, 2, 2, 512).tileCount());
+        assertEquals(84, new TilePyramid(WORLD, 0, 2, 2, 256).tileCount());
+    }
+
+    @Test
+    public void scalesRasterSizesWithThePixelRatio() {
+        long[] average = {1000};
+        assertEquals(21000, new TilePyramid(WORLD, 0, 2, 2, 512).estimateBytes(average));
+        assertEquals(84000, new TilePyramid(WORLD, 0, 2, 1, 256).estimateBytes(average));
+        assertEquals(336000, new TilePyramid(WORLD, 0, 2, 2, 256).estimateBytes(average));
+    }
+}
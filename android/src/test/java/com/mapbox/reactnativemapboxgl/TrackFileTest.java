@@ -0,0 +1,66 @@
+package com.mapbox.reactnativemapboxgl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TrackFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsTrackFlushedWithoutIndex() throws IOException {
+        File base = new File(folder.getRoot(), "track");
+        int count = TrackFile.KEYFRAME_INTERVAL * 2 + 10;
+        TrackFile track = TrackFile.open(base);
+        for (int i = 0; i < count; i++) {
+            track.append(1000L * (i + 1), 52.5 + i * 1e-5, 13.4 - i * 1e-5, 5);
+        }
+        track.flush();
+        track.close();
+        // as after a crash between writing the data and writing its index entries
+        RandomAccessFile index = new RandomAccessFile(new File(base.getPath() + TrackFile.INDEX_SUFFIX), "rw");
+        index.setLength(0);
+        index.close();
+
+        track = TrackFile.open(base);
+        assertEquals(count, track.getFixCount());
+        assertEquals(1000L, track.getFirstTime());
+        assertEquals(1000L * count, track.getLastTime());
+        track.append(1000L * (count + 1), 52.6, 13.3, 5);
+        track.sync();
+
+        List<Long> times = readTimes(track, 0, Long.MAX_VALUE);
+        assertEquals(count + 1, times.size());
+        for (int i = 0; i < times.size(); i++) {
+            assertEquals(1000L * (i + 1), (long) times.get(i));
+        }
+        assertEquals(10, readTimes(track, 1000L * 300, 1000L * 309).size());
+        track.close();
+
+        track = TrackFile.open(base);
+        assertEquals(count + 1, readTimes(track, 0, Long.MAX_VALUE).size());
+        track.close();
+    }
+
+    private static List<Long> readTimes(TrackFile track, long startTime, long endTime) throws IOException {
+        final List<Long> times = new ArrayList<>();
+        track.read(startTime, endTime, new TrackFile.Visitor() {
+            @Override
+            public boolean onFix(long time, double latitude, double longitude, double accuracy) {
+                times.add(time);
+                return true;
+            }
+        });
+        return times;
+    }
+}
@@ -16,6 +16,33 @@ var MapMixins = {
   removePack(mapRef, packName, callback) {
     MapboxGLManager.removePack(findNodeHandle(this.refs[mapRef]), packName, callback);
   },
+  removePacks(mapRef, packUuids, callback) {
+    MapboxGLManager.removePacks(findNodeHandle(this.refs[mapRef]), packUuids, callback);
+  },
+  setOfflineStorageQuota(mapRef, bytes) {
+    MapboxGLManager.setOfflineStorageQuota(findNodeHandle(this.refs[mapRef]), bytes);
+  },
+  setPackPinned(mapRef, packUuid, pinned) {
+    MapboxGLManager.setPackPinned(findNodeHandle(this.refs[mapRef]), packUuid, pinned);
+  },
+  getOfflineStorageStats(mapRef, callback) {
+    MapboxGLManager.getOfflineStorageStats(findNodeHandle(this.refs[mapRef]), callback);
+  },
+  estimatePackForRegion(options, callback) {
+    MapboxGLManager.estimatePackForRegion(options, callback);
+  },
+  pausePack(mapRef, packUuid) {
+    MapboxGLManager.pausePack(findNodeHandle(this.refs[mapRef]), packUuid);
+  },
+  resumePack(mapRef, packUuid) {
+    MapboxGLManager.resumePack(findNodeHandle(this.refs[mapRef]), packUuid);
+  },
+  setPackPriority(mapRef, packUuid, priority) {
+    MapboxGLManager.setPackPriority(findNodeHandle(this.refs[mapRef]), packUuid, priority);
+  },
+  setMaxConcurrentPacks(mapRef, maxActive) {
+    MapboxGLManager.setMaxConcurrentPacks(findNodeHandle(this.refs[mapRef]), maxActive);
+  },
   setDirectionAnimated(mapRef, heading) {
     MapboxGLManager.setDirectionAnimated(findNodeHandle(this.refs[mapRef]), heading);
   },
@@ -31,12 +58,45 @@ var MapMixins = {
   addAnnotations(mapRef, annotations) {
     MapboxGLManager.addAnnotations(findNodeHandle(this.refs[mapRef]), annotations);
   },
+  addGeoJSON(mapRef, geoJson, callback) {
+    MapboxGLManager.addGeoJSON(findNodeHandle(this.refs[mapRef]), geoJson, callback);
+  },
+  addGeoJSONFromFile(mapRef, path, callback) {
+    MapboxGLManager.addGeoJSONFromFile(findNodeHandle(this.refs[mapRef]), path, callback);
+  },
+  addGeoJSONDataset(mapRef, path, options, callback) {
+    MapboxGLManager.addGeoJSONDataset(findNodeHandle(this.refs[mapRef]), path, options, callback);
+  },
+  removeGeoJSONDataset(mapRef, path) {
+    MapboxGLManager.removeGeoJSONDataset(findNodeHandle(this.refs[mapRef]), path);
+  },
+  startTrackRecording(mapRef, name, options, callback) {
+    MapboxGLManager.startTrackRecording(findNodeHandle(this.refs[mapRef]), name, options, callback);
+  },
+  stopTrackRecording(mapRef) {
+    MapboxGLManager.stopTrackRecording(findNodeHandle(this.refs[mapRef]));
+  },
+  getTrackSegment(name, startTime, endTime, callback) {
+    MapboxGLManager.getTrackSegment(name, startTime, endTime, callback);
+  },
+  getTracks(callback) {
+    MapboxGLManager.getTracks(callback);
+  },
+  deleteTrack(name, callback) {
+    MapboxGLManager.deleteTrack(name, callback);
+  },
   selectAnnotationAnimated(mapRef, selectedIdentifier) {
     MapboxGLManager.selectAnnotationAnimated(findNodeHandle(this.refs[mapRef]), selectedIdentifier);
   },
   removeAnnotation(mapRef, selectedIdentifier) {
     MapboxGLManager.removeAnnotation(findNodeHandle(this.refs[mapRef]), selectedIdentifier);
   },
+  getAnnotationStats(mapRef, callback) {
+    MapboxGLManager.getAnnotationStats(findNodeHandle(this.refs[mapRef]), callback);
+  },
+  getCameraStats(mapRef, callback) {
+    MapboxGLManager.getCameraStats(findNodeHandle(this.refs[mapRef]), callback);
+  },
   removeAllAnnotations(mapRef) {
     MapboxGLManager.removeAllAnnotations(findNodeHandle(this.refs[mapRef]));
   },
@@ -58,6 +118,15 @@ var MapMixins = {
   getBounds(mapRef, callback) {
     MapboxGLManager.getBounds(findNodeHandle(this.refs[mapRef]), callback);
   },
+  setMetricsEnabled(enabled, intervalMillis) {
+    MapboxGLManager.setMetricsEnabled(enabled, intervalMillis);
+  },
+  getMetrics(callback) {
+    MapboxGLManager.getMetrics(callback);
+  },
+  resetMetrics() {
+    MapboxGLManager.resetMetrics();
+  },
   mapStyles: MapboxGLManager.mapStyles,
   userTrackingMode: MapboxGLManager.userTrackingMode
 };
@@ -82,7 +151,8 @@ var ReactMapViewWrapper = React.createClass({
       zoomEnabled: true,
       zoomLevel: 0,
       tilt: 0,
-      compassIsHidden: false
+      compassIsHidden: false,
+      cullAnnotations: true
     };
   },
   propTypes: {
@@ -92,7 +162,9 @@ var ReactMapViewWrapper = React.createClass({
     annotations: PropTypes.arrayOf(PropTypes.shape({
       title: PropTypes.string,
       subtitle: PropTypes.string,
-      coordinates: PropTypes.array.isRequired,
+      coordinates: PropTypes.oneOfType([PropTypes.array, PropTypes.string]).isRequired,
+      holes: PropTypes.arrayOf(PropTypes.oneOfType([PropTypes.array, PropTypes.string])),
+      precision: PropTypes.number,
       alpha: PropTypes.number,
       fillColor: PropTypes.string,
       strokeColor: PropTypes.string,
@@ -114,6 +186,23 @@ var ReactMapViewWrapper = React.createClass({
     zoomLevel: PropTypes.number,
     tilt: PropTypes.number,
     compassIsHidden: PropTypes.bool,
+    polylineSimplificationTolerance: PropTypes.number,
+    polygonVertexBudget: PropTypes.number,
+    clusterAnnotations: PropTypes.bool,
+    clusterRadius: PropTypes.number,
+    clusterMaxZoom: PropTypes.number,
+    cullAnnotations: PropTypes.bool,
+    cullingMargin: PropTypes.number,
+    hitTestRadius: PropTypes.number,
+    regionChangePolicy: PropTypes.oneOf(['idle', 'throttle', 'delta']),
+    regionChangeHz: PropTypes.number,
+    regionChangeMinDistance: PropTypes.number,
+    regionChangeMinZoomDelta: PropTypes.number,
+    locationMaxAccuracy: PropTypes.number,
+    locationMinDisplacement: PropTypes.number,
+    locationSmoothing: PropTypes.bool,
+    locationBatchSize: PropTypes.number,
+    locationMaxLatency: PropTypes.number,
     onRegionChange: PropTypes.func,
     onOpenAnnotation: PropTypes.func,
     onLongPress: PropTypes.func,